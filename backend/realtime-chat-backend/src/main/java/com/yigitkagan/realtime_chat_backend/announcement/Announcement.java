@@ -5,8 +5,10 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+// Akış sayfaları (created_at, id) üzerinden keyset ile okunur
 @Entity
-@Table(name = "announcements")
+@Table(name = "announcements", indexes = @Index(
+        name = "ix_announcements_created_at_id", columnList = "created_at DESC, id DESC"))
 public class Announcement {
 
     @Id
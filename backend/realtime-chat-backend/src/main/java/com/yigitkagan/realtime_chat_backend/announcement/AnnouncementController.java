@@ -1,13 +1,15 @@
 package com.yigitkagan.realtime_chat_backend.announcement;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
 import com.yigitkagan.realtime_chat_backend.user.Role;
 import com.yigitkagan.realtime_chat_backend.user.User;
 import com.yigitkagan.realtime_chat_backend.user.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,25 +17,42 @@ import java.util.Optional;
 @RequestMapping("/api/announcements")
 public class AnnouncementController {
 
-    @Autowired
-    private AnnouncementRepository announcementRepository;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    // ✅ DÜZELTME 1: Bu satır eksikti, bu yüzden "cannot find symbol" diyordu.
-    @Autowired
-    private ReactionRepository reactionRepository;
-
-    @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private final AnnouncementRepository announcementRepository;
+    private final UserRepository userRepository;
+    private final ReactionRepository reactionRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AnnouncementFeed announcementFeed;
+
+    public AnnouncementController(AnnouncementRepository announcementRepository,
+                                  UserRepository userRepository,
+                                  ReactionRepository reactionRepository,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  AnnouncementFeed announcementFeed) {
+        this.announcementRepository = announcementRepository;
+        this.userRepository = userRepository;
+        this.reactionRepository = reactionRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.announcementFeed = announcementFeed;
+    }
 
     // 1. Tüm Duyuruları Getir (Herkese Açık - ASC Sıralı)
+    // Eski istemciler için; tepkiler tek sorguda join'lenir. Yeni istemciler /feed kullanır.
     @GetMapping
     public List<Announcement> getAllAnnouncements() {
         return announcementRepository.findAllByOrderByCreatedAtAsc();
     }
 
+    // Duyuru akışı, en yeni önce: ?limit=20[&beforeCreatedAt=<ISO zaman>&beforeId=<duyuru id>]
+    @GetMapping("/feed")
+    public AnnouncementPage feed(
+            @RequestParam(required = false) Instant beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication
+    ) {
+        return announcementFeed.page(AuthenticatedUser.from(authentication).id(), beforeCreatedAt, beforeId, limit);
+    }
+
     // 2. Yeni Duyuru Oluştur (SADECE ADMIN)
     @PostMapping
     public ResponseEntity<?> createAnnouncement(@RequestBody Announcement announcement, @RequestParam Long userId) {
@@ -45,6 +64,7 @@ public class AnnouncementController {
         }
 
         Announcement savedAnnouncement = announcementRepository.save(announcement);
+        announcementFeed.invalidate();
         return ResponseEntity.ok(savedAnnouncement);
     }
 
@@ -76,6 +96,7 @@ public class AnnouncementController {
 
             reactionRepository.save(reaction);
         }
+        announcementFeed.invalidate();
 
         return ResponseEntity.ok().build();
     }
@@ -87,6 +108,7 @@ public class AnnouncementController {
         if (user.getRole() != Role.ADMIN) return ResponseEntity.status(403).body("Yetkisiz işlem");
 
         announcementRepository.deleteById(id);
+        announcementFeed.invalidate();
         return ResponseEntity.ok().build();
     }
 
@@ -98,6 +120,8 @@ public class AnnouncementController {
 
         Announcement announcement = announcementRepository.findById(id).orElseThrow();
         announcement.setContent(newContent);
-        return ResponseEntity.ok(announcementRepository.save(announcement));
+        Announcement saved = announcementRepository.save(announcement);
+        announcementFeed.invalidate();
+        return ResponseEntity.ok(saved);
     }
 }
\ No newline at end of file
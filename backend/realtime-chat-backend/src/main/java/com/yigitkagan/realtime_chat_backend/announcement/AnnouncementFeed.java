@@ -0,0 +1,112 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+import com.yigitkagan.realtime_chat_backend.cache.SnapshotCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Duyuru akışı: en yeni önce, keyset sayfalı. Sayfa başına sabit sorgu sayısı:
+// satırlar + emoji sayaçları (herkes için aynı, önbellekte) ve görüntüleyenin kendi tepkileri.
+// Duyuru oluşturma/düzenleme/silme ve tepki tüm sayfa önbelleğini düşürür; cluster modunda diğer
+// düğümlerin önbelleği de düşürülür (ClusterCacheRelay).
+@Component
+public class AnnouncementFeed {
+
+    public static final int MAX_PAGE = 100;
+
+    private record PageKey(Instant beforeCreatedAt, Long beforeId, int limit) {}
+
+    // Kullanıcıdan bağımsız kısım; sayaç map'leri önbelleğe girdikten sonra değişmez
+    private record CachedPage(List<AnnouncementRow> rows, Map<Long, Map<String, Long>> counts, boolean hasMore) {}
+
+    private final AnnouncementRepository announcementRepository;
+    private final ReactionRepository reactionRepository;
+    private final SnapshotCache<PageKey, CachedPage> pages;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    public AnnouncementFeed(AnnouncementRepository announcementRepository,
+                            ReactionRepository reactionRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.chat.cache.announcements.max-entries:256}") int maxEntries,
+                            @Value("${app.chat.cache.announcements.ttl-ms:60000}") long ttlMillis) {
+        this.announcementRepository = announcementRepository;
+        this.reactionRepository = reactionRepository;
+        this.pages = new SnapshotCache<>("announcement_pages", maxEntries, ttlMillis, meterRegistry, this::load);
+    }
+
+    public AnnouncementPage page(Long viewerId, Instant beforeCreatedAt, Long beforeId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE));
+        boolean keyset = beforeCreatedAt != null && beforeId != null;
+        CachedPage page = pages.get(new PageKey(keyset ? beforeCreatedAt : null, keyset ? beforeId : null, size));
+        if (page.rows().isEmpty()) {
+            return new AnnouncementPage(List.of(), false, null, null);
+        }
+
+        List<Long> ids = page.rows().stream().map(AnnouncementRow::id).toList();
+        Map<Long, List<String>> mine = new HashMap<>();
+        for (AnnouncementReactionRow row : reactionRepository.findByAnnouncementIdsAndUserId(ids, viewerId)) {
+            mine.computeIfAbsent(row.announcementId(), id -> new ArrayList<>()).add(row.emoji());
+        }
+
+        List<AnnouncementResponse> items = new ArrayList<>(page.rows().size());
+        for (AnnouncementRow row : page.rows()) {
+            items.add(new AnnouncementResponse(
+                    row.id(),
+                    row.content(),
+                    row.mediaUrl(),
+                    row.createdAt(),
+                    row.viewCount(),
+                    page.counts().getOrDefault(row.id(), Map.of()),
+                    mine.getOrDefault(row.id(), List.of())
+            ));
+        }
+        AnnouncementRow last = page.hasMore() ? page.rows().get(page.rows().size() - 1) : null;
+        return new AnnouncementPage(items, page.hasMore(),
+                last != null ? last.createdAt() : null,
+                last != null ? last.id() : null);
+    }
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    // Yazma commit edildikten sonra çağrılır
+    public void invalidate() {
+        pages.invalidateAll();
+        changeListeners.forEach(Runnable::run);
+    }
+
+    // Başka düğümdeki değişiklik; tekrar bildirilmez
+    public void discard() {
+        pages.invalidateAll();
+    }
+
+    private CachedPage load(PageKey key) {
+        PageRequest request = PageRequest.of(0, key.limit() + 1);
+        List<AnnouncementRow> rows = key.beforeCreatedAt() != null
+                ? announcementRepository.findPageBefore(key.beforeCreatedAt(), key.beforeId(), request)
+                : announcementRepository.findFirstPage(request);
+
+        boolean hasMore = rows.size() > key.limit();
+        List<AnnouncementRow> pageRows = List.copyOf(hasMore ? rows.subList(0, key.limit()) : rows);
+        if (pageRows.isEmpty()) {
+            return new CachedPage(pageRows, Map.of(), false);
+        }
+
+        List<Long> ids = pageRows.stream().map(AnnouncementRow::id).toList();
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        for (AnnouncementReactionCount count : reactionRepository.countByAnnouncementIds(ids)) {
+            counts.computeIfAbsent(count.announcementId(), id -> new HashMap<>()).put(count.emoji(), count.count());
+        }
+        counts.replaceAll((id, byEmoji) -> Map.copyOf(byEmoji));
+        return new CachedPage(pageRows, Map.copyOf(counts), hasMore);
+    }
+}
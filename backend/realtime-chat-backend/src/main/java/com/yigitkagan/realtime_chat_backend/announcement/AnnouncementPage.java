@@ -0,0 +1,12 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+import java.time.Instant;
+import java.util.List;
+
+// En yeni önce sıralı sayfa; bir sonraki sayfa için (nextBeforeCreatedAt, nextBeforeId) gönderilir
+public record AnnouncementPage(
+        List<AnnouncementResponse> items,
+        boolean hasMore,
+        Instant nextBeforeCreatedAt,
+        Long nextBeforeId
+) {}
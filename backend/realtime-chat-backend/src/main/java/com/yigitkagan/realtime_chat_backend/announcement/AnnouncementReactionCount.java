@@ -0,0 +1,8 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+// Duyuru + emoji bazında tepki sayısı
+public record AnnouncementReactionCount(
+        Long announcementId,
+        String emoji,
+        Long count
+) {}
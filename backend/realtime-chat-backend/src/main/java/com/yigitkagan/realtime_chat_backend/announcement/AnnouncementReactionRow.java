@@ -0,0 +1,7 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+// Görüntüleyen kişinin bir duyuruya verdiği tepki
+public record AnnouncementReactionRow(
+        Long announcementId,
+        String emoji
+) {}
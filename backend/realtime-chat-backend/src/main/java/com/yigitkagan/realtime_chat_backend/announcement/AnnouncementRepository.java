@@ -1,8 +1,28 @@
 package com.yigitkagan.realtime_chat_backend.announcement;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
 import java.util.List;
 
 public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
+
+    // Eski liste uç noktası için: tepkiler aynı sorguda join'lenir (duyuru başına ayrı sorgu yok)
+    @EntityGraph(attributePaths = "reactions")
     List<Announcement> findAllByOrderByCreatedAtAsc();
-}
\ No newline at end of file
+
+    String SELECT_ROW = "select new com.yigitkagan.realtime_chat_backend.announcement.AnnouncementRow(" +
+            "a.id, a.content, a.mediaUrl, a.createdAt, a.viewCount) from Announcement a ";
+
+    @Query(SELECT_ROW + "order by a.createdAt desc, a.id desc")
+    List<AnnouncementRow> findFirstPage(Pageable pageable);
+
+    // Keyset: (created_at, id) index'i üzerinden, OFFSET yok
+    @Query(SELECT_ROW +
+            "where a.createdAt < :beforeCreatedAt or (a.createdAt = :beforeCreatedAt and a.id < :beforeId) " +
+            "order by a.createdAt desc, a.id desc")
+    List<AnnouncementRow> findPageBefore(Instant beforeCreatedAt, Long beforeId, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Akıştaki duyuru: ham tepki satırları yerine emoji -> sayı ve görüntüleyenin kendi tepkileri
+public record AnnouncementResponse(
+        Long id,
+        String content,
+        String mediaUrl,
+        Instant createdAt,
+        int viewCount,
+        Map<String, Long> reactionCounts,
+        List<String> myReactions
+) {}
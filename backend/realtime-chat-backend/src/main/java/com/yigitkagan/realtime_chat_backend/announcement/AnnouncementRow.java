@@ -0,0 +1,12 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+import java.time.Instant;
+
+// Akış için duyuru satırı; tepki koleksiyonu yüklenmez
+public record AnnouncementRow(
+        Long id,
+        String content,
+        String mediaUrl,
+        Instant createdAt,
+        int viewCount
+) {}
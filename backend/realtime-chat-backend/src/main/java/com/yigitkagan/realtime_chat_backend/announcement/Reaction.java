@@ -3,8 +3,10 @@ package com.yigitkagan.realtime_chat_backend.announcement;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+// Sayfa başına sayaç (group by) ve kendi tepkim sorguları bu index'i kullanır
 @Entity
-@Table(name = "reactions")
+@Table(name = "reactions", indexes = @Index(
+        name = "ix_reactions_announcement_emoji_user", columnList = "announcement_id, emoji, user_id"))
 public class Reaction {
 
     @Id
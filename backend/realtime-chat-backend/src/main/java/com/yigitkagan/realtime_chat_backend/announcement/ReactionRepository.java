@@ -1,8 +1,22 @@
 package com.yigitkagan.realtime_chat_backend.announcement;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ReactionRepository extends JpaRepository<Reaction, Long> {
     Optional<Reaction> findByAnnouncement_IdAndUserIdAndEmoji(Long announcementId, Long userId, String emoji);
-}
\ No newline at end of file
+
+    // Bir sayfadaki tüm duyuruların emoji sayaçları tek sorguda
+    @Query("select new com.yigitkagan.realtime_chat_backend.announcement.AnnouncementReactionCount(" +
+            "r.announcement.id, r.emoji, count(r)) " +
+            "from Reaction r where r.announcement.id in :announcementIds group by r.announcement.id, r.emoji")
+    List<AnnouncementReactionCount> countByAnnouncementIds(Collection<Long> announcementIds);
+
+    @Query("select new com.yigitkagan.realtime_chat_backend.announcement.AnnouncementReactionRow(r.announcement.id, r.emoji) " +
+            "from Reaction r where r.announcement.id in :announcementIds and r.userId = :userId")
+    List<AnnouncementReactionRow> findByAnnouncementIdsAndUserId(Collection<Long> announcementIds, Long userId);
+}
@@ -0,0 +1,61 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Diske taşınmış bir mesaj aralığının kataloğu: hangi sohbetin hangi seq aralığı hangi dosyada
+@Entity
+@Table(name = "message_archive_segments", indexes = @Index(
+        name = "ix_message_archive_segments_conversation", columnList = "conversation_id, max_seq"))
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    @Column(name = "min_seq", nullable = false)
+    private Long minSeq;
+
+    @Column(name = "max_seq", nullable = false)
+    private Long maxSeq;
+
+    // Senkron: bu değerden eski pozisyonla gelen istemci geçmişi yeniden yüklemeli
+    @Column(name = "max_change_seq", nullable = false)
+    private Long maxChangeSeq;
+
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected ArchiveSegment() {
+    }
+
+    public ArchiveSegment(Long conversationId, Long minSeq, Long maxSeq, Long maxChangeSeq,
+                          Integer messageCount, String fileName) {
+        this.conversationId = conversationId;
+        this.minSeq = minSeq;
+        this.maxSeq = maxSeq;
+        this.maxChangeSeq = maxChangeSeq;
+        this.messageCount = messageCount;
+        this.fileName = fileName;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getConversationId() { return conversationId; }
+    public Long getMinSeq() { return minSeq; }
+    public Long getMaxSeq() { return maxSeq; }
+    public Long getMaxChangeSeq() { return maxChangeSeq; }
+    public Integer getMessageCount() { return messageCount; }
+    public String getFileName() { return fileName; }
+    public Instant getCreatedAt() { return createdAt; }
+}
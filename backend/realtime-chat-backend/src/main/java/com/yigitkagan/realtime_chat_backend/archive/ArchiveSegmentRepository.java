@@ -0,0 +1,10 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    List<ArchiveSegment> findByConversationIdOrderByMaxSeqDesc(Long conversationId);
+}
@@ -0,0 +1,24 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+// Segment dosyasındaki mesaj: arşivlendiği andaki hali, tepkileri ve "benden sil" diyen kullanıcılar
+public record ArchivedMessage(
+        Long id,
+        Long conversationId,
+        Long senderId,
+        Long seq,
+        Long changeSeq,
+        String content,
+        Instant createdAt,
+        Instant updatedAt,
+        MessageStatus status,       // Alıcının imleçlerinden türetilmiş son durum
+        boolean deletedForEveryone,
+        List<Reaction> reactions,
+        List<Long> hiddenFor
+) {
+    public record Reaction(Long userId, String emoji) {}
+}
@@ -0,0 +1,211 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import com.yigitkagan.realtime_chat_backend.cache.SnapshotCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Soğuk mesaj arşivi: eski mesajlar sohbet başına sıkıştırılmış, salt-eklemeli segment dosyalarında durur.
+// Katalog DB'de (message_archive_segments), dosyalar memory-mapped olarak okunur. Katalog tüm düğümlerde
+// ortak olduğu için cluster modunda app.chat.archive.dir de ortak olmalı (bkz. MessageArchiver).
+@Component
+public class MessageArchive {
+
+    public record ArchivePage(List<ArchivedMessage> newestFirst, boolean hasMore) {}
+
+    private record SegmentInfo(long minSeq, long maxSeq, int messageCount, String fileName) {}
+
+    private final ArchiveSegmentRepository segmentRepository;
+    private final Path directory;
+    private final int maxMappedSegments;
+    private final Counter segmentReads;
+    private final Counter blockReads;
+
+    // Sohbet başına segment listesi (en yeni önce). Sınırlı ve ttl'li; boş sonuç önbelleğe alınmaz,
+    // yoksa başka düğümde arşivlenen sohbet burada ttl boyunca arşivsiz görünürdü.
+    private final SnapshotCache<Long, List<SegmentInfo>> catalog;
+    private final LinkedHashMap<String, SegmentFile.Reader> mapped = new LinkedHashMap<>(64, 0.75f, true);
+
+    public MessageArchive(ArchiveSegmentRepository segmentRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.chat.archive.dir:./data/message-archive}") String directory,
+                          @Value("${app.chat.archive.max-mapped-segments:256}") int maxMappedSegments,
+                          @Value("${app.chat.archive.catalog.max-entries:10000}") int catalogMaxEntries,
+                          @Value("${app.chat.archive.catalog.ttl-ms:300000}") long catalogTtlMillis) {
+        this.segmentRepository = segmentRepository;
+        this.directory = Path.of(directory);
+        this.maxMappedSegments = Math.max(1, maxMappedSegments);
+        this.segmentReads = meterRegistry.counter("chat.archive.reads", "unit", "segment");
+        this.blockReads = meterRegistry.counter("chat.archive.reads", "unit", "block");
+        this.catalog = new SnapshotCache<>("archive_catalog", catalogMaxEntries, catalogTtlMillis, meterRegistry,
+                this::loadSegments);
+    }
+
+    // oldestHotSeq: sıcak tablodaki en eski mesajın seq'i (bilinmiyorsa null). Arşivde sadece ondan küçük
+    // seq'ler olabilir; seq 1 sıcaktaysa katalog hiç okunmaz. Önbellekteki en yeni segment ile sıcak tablo
+    // arasında boşluk varsa başka bir düğüm arşivlemiş demektir, liste yeniden yüklenir.
+    public boolean hasArchiveBefore(Long conversationId, Long oldestHotSeq) {
+        if (oldestHotSeq != null && oldestHotSeq <= 1) {
+            return false;
+        }
+        List<SegmentInfo> segments = segments(conversationId);
+        if (oldestHotSeq != null && !segments.isEmpty() && segments.get(0).maxSeq() < oldestHotSeq - 1) {
+            catalog.invalidate(conversationId);
+            segments = segments(conversationId);
+        }
+        return !segments.isEmpty();
+    }
+
+    public long archivedCount(Long conversationId) {
+        long count = 0;
+        for (SegmentInfo segment : segments(conversationId)) {
+            count += segment.messageCount();
+        }
+        return count;
+    }
+
+    // Yeniden eskiye: seq < beforeSeq olan mesajlardan ilk skip tanesini atlayıp limit kadarını döner.
+    // Atlanan bloklar açılmaz; sadece index'teki sayılar kullanılır.
+    public ArchivePage readBefore(Long conversationId, long beforeSeq, int skip, int limit) {
+        List<ArchivedMessage> result = new ArrayList<>(Math.max(0, limit));
+        int toSkip = Math.max(0, skip);
+        for (SegmentInfo segment : segments(conversationId)) {
+            if (segment.minSeq() >= beforeSeq) {
+                continue;
+            }
+            if (result.size() >= limit) {
+                return new ArchivePage(result, true);
+            }
+            SegmentFile.Reader reader = reader(segment.fileName());
+            segmentReads.increment();
+            for (int block = reader.blockCount() - 1; block >= 0; block--) {
+                if (reader.firstSeq(block) >= beforeSeq) {
+                    continue;
+                }
+                if (result.size() >= limit) {
+                    return new ArchivePage(result, true);
+                }
+                if (reader.lastSeq(block) < beforeSeq && toSkip >= reader.count(block)) {
+                    toSkip -= reader.count(block);
+                    continue;
+                }
+                blockReads.increment();
+                List<ArchivedMessage> ascending = reader.decodeBlock(block);
+                for (int i = ascending.size() - 1; i >= 0; i--) {
+                    ArchivedMessage m = ascending.get(i);
+                    if (m.seq() >= beforeSeq) {
+                        continue;
+                    }
+                    if (toSkip > 0) {
+                        toSkip--;
+                        continue;
+                    }
+                    if (result.size() >= limit) {
+                        return new ArchivePage(result, true);
+                    }
+                    result.add(m);
+                }
+            }
+        }
+        return new ArchivePage(result, false);
+    }
+
+    // Önce geçici dosyaya yazıp sync eder, sonra atomik olarak yerine taşır; yarım segment görünmez
+    public String writeSegment(Long conversationId, List<ArchivedMessage> ascending) {
+        if (ascending.isEmpty()) {
+            throw new IllegalArgumentException("Boş segment yazılamaz");
+        }
+        String fileName = conversationId + "/" + ascending.get(0).seq() + "-"
+                + ascending.get(ascending.size() - 1).seq() + ".seg";
+        Path target = directory.resolve(fileName);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "segment-", ".tmp");
+            try {
+                SegmentFile.write(temp, conversationId, ascending);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Segment yazılamadı: " + target, e);
+        }
+        return fileName;
+    }
+
+    // Katalog kaydı yazılamazsa (transaction geri alındı) dosya da silinir
+    public void discardSegment(String fileName) {
+        synchronized (mapped) {
+            mapped.remove(fileName);
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void onSegmentsChanged(Long conversationId) {
+        catalog.invalidate(conversationId);
+    }
+
+    private List<SegmentInfo> segments(Long conversationId) {
+        List<SegmentInfo> segments = catalog.get(conversationId);
+        return segments != null ? segments : List.of();
+    }
+
+    // Segmenti olmayan sohbet için null: SnapshotCache null'ı önbelleğe almaz
+    private List<SegmentInfo> loadSegments(Long conversationId) {
+        List<SegmentInfo> infos = new ArrayList<>();
+        for (ArchiveSegment s : segmentRepository.findByConversationIdOrderByMaxSeqDesc(conversationId)) {
+            infos.add(new SegmentInfo(s.getMinSeq(), s.getMaxSeq(), s.getMessageCount(), s.getFileName()));
+        }
+        return infos.isEmpty() ? null : List.copyOf(infos);
+    }
+
+    // Map edilmiş segmentler LRU ile sınırlı tutulur; atılan buffer'ı GC serbest bırakır
+    private SegmentFile.Reader reader(String fileName) {
+        synchronized (mapped) {
+            SegmentFile.Reader reader = mapped.get(fileName);
+            if (reader != null) {
+                return reader;
+            }
+        }
+        SegmentFile.Reader reader = new SegmentFile.Reader(map(directory.resolve(fileName)));
+        synchronized (mapped) {
+            mapped.put(fileName, reader);
+            while (mapped.size() > maxMappedSegments) {
+                mapped.remove(mapped.keySet().iterator().next());
+            }
+        }
+        return reader;
+    }
+
+    private static MappedByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Segment çok büyük: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Segment bulunamadı (app.chat.archive.dir düğümler arasında ortak mı?): " + file, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Segment açılamadı: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterFanout;
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+import com.yigitkagan.realtime_chat_backend.message.MessageTailCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Yaşı max-age'i geçen mesajları sohbet sohbet segment dosyalarına taşır ve sıcak tablolardan siler.
+// Dosya yazma ve silme aynı transaction içinde; commit olmazsa dosya da atılır.
+// Katalog ortak DB'de olduğu için cluster modunda segment dizini tüm düğümlerin gördüğü ortak bir dizin
+// olmalı (app.chat.archive.shared-dir: true ile beyan edilir); yoksa açılış reddedilir.
+@Component
+public class MessageArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageArchiver.class);
+
+    // Arşivlenecek aralık: sohbetin max-age'den eski en büyük seq'ine kadar her şey (seq sırası korunur)
+    private static final String CANDIDATES_SQL = """
+            SELECT conversation_id, max(seq) AS up_to_seq FROM messages
+            WHERE created_at < ? AND seq IS NOT NULL
+            GROUP BY conversation_id
+            ORDER BY conversation_id
+            LIMIT ?
+            """;
+
+    // Satırlar kilitlenir; arşivlenirken gelen düzenleme/tepki ya önce biter ya da satırı bulamaz
+    private static final String LOCK_ROWS_SQL = """
+            SELECT m.id, m.sender_id, m.seq, m.change_seq, m.content, m.created_at, m.updated_at, m.status,
+                   m.deleted_for_everyone, rc.seen_seq, rc.delivered_seq
+            FROM messages m
+            JOIN conversations c ON c.id = m.conversation_id
+            LEFT JOIN conversation_read_cursors rc ON rc.conversation_id = m.conversation_id
+                 AND rc.user_id = CASE WHEN c.user1_id = m.sender_id THEN c.user2_id ELSE c.user1_id END
+            WHERE m.conversation_id = ? AND m.seq <= ?
+            ORDER BY m.seq
+            LIMIT ?
+            FOR UPDATE OF m
+            """;
+
+    private static final String REACTIONS_SQL =
+            "SELECT message_id, user_id, reaction_content FROM message_reactions WHERE message_id = ANY(?) ORDER BY id";
+    private static final String DELETIONS_SQL =
+            "SELECT message_id, user_id FROM message_deletions WHERE message_id = ANY(?)";
+
+    private static final String[] DELETE_SQL = {
+            "DELETE FROM message_search WHERE message_id = ANY(?)",
+            "DELETE FROM message_reaction_counts WHERE message_id = ANY(?)",
+            "DELETE FROM message_reactions WHERE message_id = ANY(?)",
+            "DELETE FROM message_deletions WHERE message_id = ANY(?)",
+            "DELETE FROM messages WHERE id = ANY(?)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveSegmentRepository segmentRepository;
+    private final MessageArchive archive;
+    private final MessageTailCache tailCache;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int segmentSize;
+    private final int conversationsPerRun;
+    private final Counter archivedMessages;
+
+    public MessageArchiver(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ArchiveSegmentRepository segmentRepository,
+                           MessageArchive archive,
+                           MessageTailCache tailCache,
+                           MeterRegistry meterRegistry,
+                           ClusterFanout clusterFanout,
+                           @Value("${app.chat.archive.enabled:false}") boolean enabled,
+                           @Value("${app.chat.archive.shared-dir:false}") boolean sharedDirectory,
+                           @Value("${app.chat.archive.max-age-days:180}") long maxAgeDays,
+                           @Value("${app.chat.archive.segment-size:10000}") int segmentSize,
+                           @Value("${app.chat.archive.conversations-per-run:100}") int conversationsPerRun) {
+        if (enabled && clusterFanout.isClustered() && !sharedDirectory) {
+            // Bir düğümün yazdığı segmenti diğerleri bulamaz; sıcak tablodan silinen mesajlara oradan erişilemez
+            throw new IllegalStateException(
+                    "app.chat.archive.enabled cluster modunda ortak app.chat.archive.dir ve app.chat.archive.shared-dir: true gerektirir");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.segmentRepository = segmentRepository;
+        this.archive = archive;
+        this.tailCache = tailCache;
+        this.enabled = enabled;
+        this.maxAge = Duration.ofDays(Math.max(1, maxAgeDays));
+        this.segmentSize = Math.max(SegmentFile.BLOCK_SIZE, segmentSize);
+        this.conversationsPerRun = Math.max(1, conversationsPerRun);
+        this.archivedMessages = meterRegistry.counter("chat.archive.messages");
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.archive.interval-ms:3600000}",
+            initialDelayString = "${app.chat.archive.initial-delay-ms:300000}")
+    public void archiveOldMessages() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(maxAge));
+        List<Map<String, Object>> candidates = jdbcTemplate.queryForList(CANDIDATES_SQL, cutoff, conversationsPerRun);
+        long total = 0;
+        for (Map<String, Object> candidate : candidates) {
+            Long conversationId = ((Number) candidate.get("conversation_id")).longValue();
+            long upToSeq = ((Number) candidate.get("up_to_seq")).longValue();
+            try {
+                total += archiveConversation(conversationId, upToSeq);
+            } catch (RuntimeException e) {
+                log.error("Archiving conversation {} failed", conversationId, e);
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} messages from {} conversations", total, candidates.size());
+        }
+    }
+
+    // upToSeq'e kadar olan mesajları segment segment taşır; taşınan toplam mesaj sayısını döner
+    int archiveConversation(Long conversationId, long upToSeq) {
+        int total = 0;
+        int archived;
+        do {
+            archived = archiveSegment(conversationId, upToSeq);
+            total += archived;
+        } while (archived == segmentSize);
+        return total;
+    }
+
+    // Bir segment kadar mesajı taşır; taşınan mesaj sayısını döner
+    private int archiveSegment(Long conversationId, long upToSeq) {
+        String[] written = new String[1];
+        Integer archived;
+        try {
+            archived = transactionTemplate.execute(status -> {
+                List<ArchivedMessage> rows = lockRows(conversationId, upToSeq);
+                if (rows.isEmpty()) {
+                    return 0;
+                }
+                Long[] ids = rows.stream().map(ArchivedMessage::id).toArray(Long[]::new);
+                rows = withReactionsAndDeletions(rows, ids);
+
+                written[0] = archive.writeSegment(conversationId, rows);
+                long maxChangeSeq = 0;
+                for (ArchivedMessage m : rows) {
+                    maxChangeSeq = Math.max(maxChangeSeq, m.changeSeq() != null ? m.changeSeq() : m.seq());
+                }
+                segmentRepository.save(new ArchiveSegment(conversationId, rows.get(0).seq(),
+                        rows.get(rows.size() - 1).seq(), maxChangeSeq, rows.size(), written[0]));
+                for (String sql : DELETE_SQL) {
+                    jdbcTemplate.update(con -> {
+                        PreparedStatement ps = con.prepareStatement(sql);
+                        ps.setArray(1, con.createArrayOf("bigint", ids));
+                        return ps;
+                    });
+                }
+                return rows.size();
+            });
+        } catch (RuntimeException e) {
+            if (written[0] != null) {
+                archive.discardSegment(written[0]);
+            }
+            throw e;
+        }
+        if (archived != null && archived > 0) {
+            archive.onSegmentsChanged(conversationId);
+            tailCache.evict(conversationId);
+            archivedMessages.increment(archived);
+            return archived;
+        }
+        return 0;
+    }
+
+    private List<ArchivedMessage> lockRows(Long conversationId, long upToSeq) {
+        return jdbcTemplate.query(LOCK_ROWS_SQL, (rs, i) -> {
+            Long seq = rs.getLong("seq");
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            String status = rs.getString("status");
+            return new ArchivedMessage(
+                    rs.getLong("id"),
+                    conversationId,
+                    rs.getLong("sender_id"),
+                    seq,
+                    (Long) rs.getObject("change_seq"),
+                    rs.getString("content"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    updatedAt != null ? updatedAt.toInstant() : null,
+                    MessageStatus.derive(status != null ? MessageStatus.valueOf(status) : MessageStatus.SENT, seq,
+                            (Long) rs.getObject("seen_seq"), (Long) rs.getObject("delivered_seq")),
+                    rs.getBoolean("deleted_for_everyone"),
+                    List.of(),
+                    List.of());
+        }, conversationId, upToSeq, segmentSize);
+    }
+
+    private List<ArchivedMessage> withReactionsAndDeletions(List<ArchivedMessage> rows, Long[] ids) {
+        Map<Long, List<ArchivedMessage.Reaction>> reactions = new HashMap<>();
+        Map<Long, List<Long>> hidden = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(REACTIONS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (RowCallbackHandler) rs -> reactions.computeIfAbsent(rs.getLong("message_id"), id -> new ArrayList<>())
+                .add(new ArchivedMessage.Reaction(rs.getLong("user_id"), rs.getString("reaction_content"))));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETIONS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (RowCallbackHandler) rs -> hidden.computeIfAbsent(rs.getLong("message_id"), id -> new ArrayList<>())
+                .add(rs.getLong("user_id")));
+
+        List<ArchivedMessage> complete = new ArrayList<>(rows.size());
+        for (ArchivedMessage m : rows) {
+            complete.add(new ArchivedMessage(m.id(), m.conversationId(), m.senderId(), m.seq(), m.changeSeq(),
+                    m.content(), m.createdAt(), m.updatedAt(), m.status(), m.deletedForEveryone(),
+                    reactions.getOrDefault(m.id(), List.of()), hidden.getOrDefault(m.id(), List.of())));
+        }
+        return complete;
+    }
+}
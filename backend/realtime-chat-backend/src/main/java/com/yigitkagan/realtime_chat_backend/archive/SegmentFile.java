@@ -0,0 +1,259 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Segment dosya formatı (tek seferde yazılır, sonra hiç değişmez):
+//   başlık:  magic(int) version(short) conversationId(long)
+//   bloklar: seq sırasına göre en fazla BLOCK_SIZE mesaj, her blok ayrı deflate ile sıkıştırılmış
+//   index:   blok başına firstSeq(long) lastSeq(long) count(int) offset(long) compressedLength(int) rawLength(int)
+//   son ek:  indexOffset(long) blockCount(int) messageCount(int) magic(int)
+// Okuyucu sadece index'e bakarak istenen seq aralığındaki blokları açar.
+final class SegmentFile {
+
+    static final int MAGIC = 0x52435347; // "RCSG"
+    static final short VERSION = 1;
+    static final int BLOCK_SIZE = 128;
+
+    private static final int HEADER_BYTES = 4 + 2 + 8;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 8 + 4 + 4;
+    private static final int FOOTER_BYTES = 8 + 4 + 4 + 4;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final MessageStatus[] STATUSES = MessageStatus.values();
+
+    private SegmentFile() {
+    }
+
+    // messages seq'e göre artan sırada olmalı; dosya diske sync edilmeden dönmez
+    static void write(Path file, long conversationId, List<ArchivedMessage> messages) {
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(conversationId);
+            long offset = HEADER_BYTES;
+
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream indexOut = new DataOutputStream(index);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            int blockCount = 0;
+            try {
+                for (int from = 0; from < messages.size(); from += BLOCK_SIZE) {
+                    List<ArchivedMessage> block = messages.subList(from, Math.min(from + BLOCK_SIZE, messages.size()));
+                    byte[] raw = encodeBlock(block);
+                    byte[] compressed = deflate(deflater, raw);
+                    out.write(compressed);
+
+                    indexOut.writeLong(block.get(0).seq());
+                    indexOut.writeLong(block.get(block.size() - 1).seq());
+                    indexOut.writeInt(block.size());
+                    indexOut.writeLong(offset);
+                    indexOut.writeInt(compressed.length);
+                    indexOut.writeInt(raw.length);
+                    offset += compressed.length;
+                    blockCount++;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            out.write(index.toByteArray());
+            out.writeLong(offset);
+            out.writeInt(blockCount);
+            out.writeInt(messages.size());
+            out.writeInt(MAGIC);
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Segment yazılamadı: " + file, e);
+        }
+    }
+
+    private static byte[] encodeBlock(List<ArchivedMessage> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (ArchivedMessage m : block) {
+            out.writeLong(m.id());
+            out.writeLong(m.seq());
+            out.writeLong(m.changeSeq() != null ? m.changeSeq() : m.seq());
+            out.writeLong(m.senderId());
+            out.writeLong(toMicros(m.createdAt()));
+            out.writeLong(toMicros(m.updatedAt()));
+            out.writeByte(m.status().ordinal());
+            out.writeBoolean(m.deletedForEveryone());
+            writeString(out, m.content());
+            out.writeShort(m.reactions().size());
+            for (ArchivedMessage.Reaction r : m.reactions()) {
+                out.writeLong(r.userId());
+                writeString(out, r.emoji());
+            }
+            out.writeShort(m.hiddenFor().size());
+            for (Long userId : m.hiddenFor()) {
+                out.writeLong(userId);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    // writeUTF 64 KB ile sınırlı; içerik uzunluk önekli UTF-8 olarak yazılır
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant != null ? ChronoUnit.MICROS.between(Instant.EPOCH, instant) : NO_TIME;
+    }
+
+    private static Instant fromMicros(long micros) {
+        return micros != NO_TIME ? Instant.EPOCH.plus(micros, ChronoUnit.MICROS) : null;
+    }
+
+    // Memory-mapped dosya üzerinde sadece mutlak okumalar yapar; thread'ler arasında paylaşılabilir
+    static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final long conversationId;
+        private final int indexOffset;
+        private final int blockCount;
+        private final int messageCount;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            int size = buffer.limit();
+            if (size < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+                throw new IllegalStateException("Geçersiz segment dosyası");
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IllegalStateException("Desteklenmeyen segment sürümü: " + buffer.getShort(4));
+            }
+            this.conversationId = buffer.getLong(6);
+            int footer = size - FOOTER_BYTES;
+            this.indexOffset = Math.toIntExact(buffer.getLong(footer));
+            this.blockCount = buffer.getInt(footer + 8);
+            this.messageCount = buffer.getInt(footer + 12);
+        }
+
+        long conversationId() {
+            return conversationId;
+        }
+
+        int blockCount() {
+            return blockCount;
+        }
+
+        int messageCount() {
+            return messageCount;
+        }
+
+        long firstSeq(int block) {
+            return buffer.getLong(entry(block));
+        }
+
+        long lastSeq(int block) {
+            return buffer.getLong(entry(block) + 8);
+        }
+
+        int count(int block) {
+            return buffer.getInt(entry(block) + 16);
+        }
+
+        // Blok seq'e göre artan sırada döner
+        List<ArchivedMessage> decodeBlock(int block) {
+            int entry = entry(block);
+            int offset = Math.toIntExact(buffer.getLong(entry + 20));
+            int compressedLength = buffer.getInt(entry + 28);
+            byte[] raw = new byte[buffer.getInt(entry + 32)];
+            Inflater inflater = new Inflater();
+            try {
+                // Sıkıştırılmış bayt'lar kopyalanmadan doğrudan map edilmiş bölgeden okunur
+                inflater.setInput(buffer.slice(offset, compressedLength));
+                int n = 0;
+                while (n < raw.length && !inflater.finished()) {
+                    n += inflater.inflate(raw, n, raw.length - n);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Bozuk segment bloğu", e);
+            } finally {
+                inflater.end();
+            }
+            try {
+                return decode(raw, count(block));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<ArchivedMessage> decode(byte[] raw, int count) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            List<ArchivedMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long seq = in.readLong();
+                long changeSeq = in.readLong();
+                long senderId = in.readLong();
+                Instant createdAt = fromMicros(in.readLong());
+                Instant updatedAt = fromMicros(in.readLong());
+                MessageStatus status = STATUSES[in.readByte()];
+                boolean deletedForEveryone = in.readBoolean();
+                String content = readString(in);
+                int reactionCount = in.readShort();
+                List<ArchivedMessage.Reaction> reactions = new ArrayList<>(reactionCount);
+                for (int r = 0; r < reactionCount; r++) {
+                    reactions.add(new ArchivedMessage.Reaction(in.readLong(), readString(in)));
+                }
+                int hiddenCount = in.readShort();
+                List<Long> hiddenFor = new ArrayList<>(hiddenCount);
+                for (int h = 0; h < hiddenCount; h++) {
+                    hiddenFor.add(in.readLong());
+                }
+                messages.add(new ArchivedMessage(id, conversationId, senderId, seq, changeSeq, content,
+                        createdAt, updatedAt, status, deletedForEveryone, reactions, hiddenFor));
+            }
+            return messages;
+        }
+
+        private int entry(int block) {
+            return indexOffset + block * INDEX_ENTRY_BYTES;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.yigitkagan.realtime_chat_backend.auth;
+
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+
+// Doğrulanmış token'ın sahibi. REST'te Authentication principal'ı olarak taşınır;
+// id hazır olduğu için isteklerde kullanıcıyı tekrar DB'den bulmaya gerek kalmaz.
+public record AuthenticatedUser(Long id, String email) implements Principal {
+
+    // Kullanıcı hedefleri (/user/...) id üzerinden çözülür
+    @Override
+    public String getName() {
+        return String.valueOf(id);
+    }
+
+    public static AuthenticatedUser from(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
+    }
+}
@@ -0,0 +1,76 @@
+package com.yigitkagan.realtime_chat_backend.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+
+// Doğrulanmış token -> kullanıcı. Boyutu sınırlı (LRU), kayıtlar ttl ya da token süresi dolunca düşer.
+// Kullanıcı değişince (UserCacheInvalidator) o kullanıcının tüm kayıtları silinir.
+@Component
+public class AuthenticatedUserCache {
+
+    private record Entry(AuthenticatedUser user, long expiresAtMillis) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+
+    public AuthenticatedUserCache(MeterRegistry meterRegistry,
+                                  @Value("${app.auth.principal-cache.max-entries:10000}") int maxEntries,
+                                  @Value("${app.auth.principal-cache.ttl-ms:300000}") long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = Math.max(1, ttlMillis);
+        this.hits = meterRegistry.counter("chat.auth.principal_cache", "result", "hit");
+        this.misses = meterRegistry.counter("chat.auth.principal_cache", "result", "miss");
+        Gauge.builder("chat.auth.principal_cache.size", this, AuthenticatedUserCache::size).register(meterRegistry);
+    }
+
+    public AuthenticatedUser get(String token) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(token);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                hits.increment();
+                return entry.user();
+            }
+            if (entry != null) {
+                entries.remove(token);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String token, AuthenticatedUser user, Date tokenExpiration) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        synchronized (entries) {
+            entries.put(token, new Entry(user, expiresAt));
+            while (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    // Kullanıcı değişikliği nadir; tüm tabloyu taramak yeterli
+    public void invalidateUser(Long userId) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.user().id().equals(userId));
+        }
+    }
+
+    private double size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -12,22 +12,23 @@ import java.util.Date;
 @Service
 public class JwtService {
 
-    private final String secret;
     private final long expirationMinutes;
+    // Anahtar ve parser bir kez kurulur; ikisi de thread-safe
+    private final Key signingKey;
+    private final JwtParser parser;
 
     public JwtService(
             @Value("${application.security.jwt.secret-key}") String secret,
             @Value("${jwt.expiration-minutes:1440}") long expirationMinutes
     ) {
-        this.secret = secret;
-        this.expirationMinutes = expirationMinutes;
-    }
-
-    private Key getSigningKey() {
         if (secret == null || secret.isEmpty()) {
             throw new IllegalStateException("JWT Secret key konfigürasyonu bulunamadı! Lütfen Render Environment Variables kontrol et.");
         }
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        this.expirationMinutes = expirationMinutes;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(String email) {
@@ -38,7 +39,7 @@ public class JwtService {
                 .setSubject(email)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -62,10 +63,16 @@ public class JwtService {
         }
     }
 
+    // Geçerli token'ın claim'leri; imza/süre hatalıysa null
+    public Claims verify(String token) {
+        try {
+            return parseClaims(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private Jws<Claims> parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.yigitkagan.realtime_chat_backend.auth;
+
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.springframework.stereotype.Component;
+
+// Bearer token -> kullanıcı. REST filtresi ve STOMP CONNECT aynı yolu ve aynı önbelleği kullanır.
+@Component
+public class TokenAuthenticator {
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final AuthenticatedUserCache userCache;
+
+    public TokenAuthenticator(JwtService jwtService, UserRepository userRepository,
+                              AuthenticatedUserCache userCache) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+    }
+
+    // Token geçersizse ya da kullanıcı yoksa null
+    public AuthenticatedUser authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        // Önbellekte varsa imza da DB de atlanır
+        AuthenticatedUser principal = userCache.get(token);
+        if (principal != null) {
+            return principal;
+        }
+        Claims claims = jwtService.verify(token);
+        if (claims == null) {
+            return null;
+        }
+        principal = userRepository.findByEmail(claims.getSubject())
+                .map(user -> new AuthenticatedUser(user.getId(), user.getEmail()))
+                .orElse(null);
+        if (principal != null) {
+            userCache.put(token, principal, claims.getExpiration());
+        }
+        return principal;
+    }
+
+    // "Bearer xxx" başlığından token; başka biçimdeyse null
+    public static String bearerToken(String header) {
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring(7);
+    }
+}
@@ -0,0 +1,25 @@
+package com.yigitkagan.realtime_chat_backend.auth;
+
+import com.yigitkagan.realtime_chat_backend.user.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+// User entity listener'ı: güncellenen/silinen kullanıcının önbellekteki oturumları atılır
+@Component
+public class UserCacheInvalidator {
+
+    private final AuthenticatedUserCache cache;
+
+    public UserCacheInvalidator(AuthenticatedUserCache cache) {
+        this.cache = cache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void userChanged(User user) {
+        if (user.getId() != null) {
+            cache.invalidateUser(user.getId());
+        }
+    }
+}
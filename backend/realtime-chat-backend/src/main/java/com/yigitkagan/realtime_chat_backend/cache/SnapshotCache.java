@@ -0,0 +1,99 @@
+package com.yigitkagan.realtime_chat_backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Değişmez snapshot'lar için read-through önbellek: boyutu sınırlı (LRU), kayıtlar ttl sonunda yeniden yüklenir.
+// Yükleme kilit dışında yapılır; yükleme sürerken bir invalidate gelirse yüklenen değer önbelleğe yazılmaz.
+// Metrikler: chat.cache.gets{cache, result=hit|miss}, chat.cache.evictions{cache}, chat.cache.size{cache}
+public class SnapshotCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtMillis) {}
+
+    private final Function<K, V> loader;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // Her invalidate'te artar; eski snapshot'ın geri yazılmasını engeller
+    private long generation;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public SnapshotCache(String name, int maxEntries, long ttlMillis, MeterRegistry meterRegistry,
+                         Function<K, V> loader) {
+        this(name, maxEntries, ttlMillis, meterRegistry, loader, System::currentTimeMillis);
+    }
+
+    SnapshotCache(String name, int maxEntries, long ttlMillis, MeterRegistry meterRegistry,
+                  Function<K, V> loader, LongSupplier clock) {
+        this.loader = loader;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = Math.max(1, ttlMillis);
+        this.clock = clock;
+        this.hits = meterRegistry.counter("chat.cache.gets", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("chat.cache.gets", "cache", name, "result", "miss");
+        this.evictions = meterRegistry.counter("chat.cache.evictions", "cache", name);
+        Gauge.builder("chat.cache.size", this, SnapshotCache::size).tag("cache", name).register(meterRegistry);
+    }
+
+    // Kayıt yoksa yükler; loader null dönerse (kayıt bulunamadı) önbelleğe alınmaz
+    public V get(K key) {
+        long now = clock.getAsLong();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                hits.increment();
+                return entry.value();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value, now, loadGeneration);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+            generation++;
+        }
+    }
+
+    // Tek bir yazı birçok kaydı etkiliyorsa (ör. sayfa önbellekleri) hepsi birden düşürülür
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+        }
+    }
+
+    private void put(K key, V value, long now, long loadGeneration) {
+        synchronized (entries) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            entries.put(key, new Entry<>(value, now + ttlMillis));
+            while (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+                evictions.increment();
+            }
+        }
+    }
+
+    private double size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
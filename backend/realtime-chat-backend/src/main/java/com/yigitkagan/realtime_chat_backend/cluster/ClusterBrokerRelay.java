@@ -0,0 +1,120 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import com.yigitkagan.realtime_chat_backend.websocket.BroadcastPayload;
+import com.yigitkagan.realtime_chat_backend.websocket.PayloadCodec;
+import com.yigitkagan.realtime_chat_backend.websocket.PayloadFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// brokerChannel interceptor'ı: bu düğümde yayınlanan /topic ve /user/{id}/... mesajlarını diğer düğümlere iletir,
+// diğer düğümlerden geleni yerel broker'a verir. Gelen mesajlar origin header'ı taşır, tekrar iletilmez.
+// /user hedefi her düğümde o kullanıcının yerel oturumlarına çözülür; çözülmüş /queue hedefleri iletilmez.
+@Component
+public class ClusterBrokerRelay implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterBrokerRelay.class);
+    static final String ORIGIN_HEADER = "cluster-origin";
+    private static final String BASE_PACKAGE = "com.yigitkagan.realtime_chat_backend.";
+    private static final String OBJECT_PREFIX = "object:";
+
+    private final ClusterFanout fanout;
+    private final PayloadCodec codec;
+    private final JsonMapper jsonMapper;
+    private final ObjectProvider<MessageChannel> brokerChannel;
+    private final List<String> relayPrefixes;
+
+    public ClusterBrokerRelay(ClusterFanout fanout,
+                              PayloadCodec codec,
+                              JsonMapper jsonMapper,
+                              @Qualifier("brokerChannel") ObjectProvider<MessageChannel> brokerChannel,
+                              @Value("${app.chat.cluster.relay-prefixes:/topic/,/user/}") List<String> relayPrefixes) {
+        this.fanout = fanout;
+        this.codec = codec;
+        this.jsonMapper = jsonMapper;
+        this.brokerChannel = brokerChannel;
+        this.relayPrefixes = List.copyOf(relayPrefixes);
+        fanout.addListener(this::onClusterEvent);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!fanout.isClustered()
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || message.getHeaders().containsKey(ORIGIN_HEADER)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || relayPrefixes.stream().noneMatch(destination::startsWith)) {
+            return message;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        String type;
+        String payload;
+        if (message.getPayload() instanceof BroadcastPayload broadcast) {
+            // JSON kodlaması önbelleğe girer; yerel JSON aboneleri aynı diziyi kullanır
+            type = OBJECT_PREFIX + broadcast.value().getClass().getName();
+            payload = new String(broadcast.bytes(PayloadFormat.JSON, codec), StandardCharsets.UTF_8);
+        } else if (message.getPayload() instanceof String text) {
+            type = "text";
+            payload = text;
+        } else if (message.getPayload() instanceof byte[] bytes) {
+            type = "bytes";
+            payload = Base64.getEncoder().encodeToString(bytes);
+        } else {
+            return message;
+        }
+        fanout.publish(new ClusterEvent(fanout.nodeId(), ClusterEvent.Type.BROADCAST, destination,
+                contentType != null ? contentType.toString() : null, type, payload));
+        return message;
+    }
+
+    private void onClusterEvent(ClusterEvent event) {
+        if (event.type() != ClusterEvent.Type.BROADCAST) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(event.destination());
+        if (event.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(event.contentType()));
+        }
+        accessor.setHeader(ORIGIN_HEADER, event.origin());
+        brokerChannel.getObject().send(MessageBuilder.createMessage(decode(event), accessor.getMessageHeaders()));
+    }
+
+    private Object decode(ClusterEvent event) {
+        String type = event.payloadType();
+        if ("text".equals(type)) {
+            return event.payload();
+        }
+        if ("bytes".equals(type)) {
+            return Base64.getDecoder().decode(event.payload());
+        }
+        // Kendi DTO'larımız tipine geri çevrilir (CBOR aboneleri zamanları yine epoch ms alır); diğerleri JSON ağacı
+        String className = type != null && type.startsWith(OBJECT_PREFIX) ? type.substring(OBJECT_PREFIX.length()) : "";
+        if (className.startsWith(BASE_PACKAGE)) {
+            try {
+                return BroadcastPayload.of(jsonMapper.readValue(event.payload(), Class.forName(className)));
+            } catch (ClassNotFoundException | RuntimeException e) {
+                log.debug("Falling back to JSON tree for {}", className, e);
+            }
+        }
+        return BroadcastPayload.of(jsonMapper.readTree(event.payload()));
+    }
+}
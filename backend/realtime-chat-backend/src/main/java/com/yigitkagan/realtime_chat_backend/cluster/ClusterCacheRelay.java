@@ -0,0 +1,76 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import com.yigitkagan.realtime_chat_backend.announcement.AnnouncementFeed;
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUserCache;
+import com.yigitkagan.realtime_chat_backend.message.MessageTailCache;
+import com.yigitkagan.realtime_chat_backend.user.UserDirectory;
+import com.yigitkagan.realtime_chat_backend.user.UserSummaryCache;
+import org.springframework.stereotype.Component;
+
+// Kullanıcıya bağlı önbellekler düğüm başınadır: bir düğümde commit edilen kullanıcı değişikliği
+// diğer düğümlere duyurulur, onlar da kendi oturum, özet ve rehber kayıtlarını yeniler.
+// Mesaj tail'i de düğüm başınadır: bir düğümde değişen sohbetin tail'i diğerlerinde düşürülür.
+// Duyuru akışı sayfaları da öyle; bir düğümdeki duyuru/tepki yazısı hepsinde önbelleği düşürür.
+// Sohbet katılımcıları oluşturulduktan sonra değişmediği için o önbelleklerin duyuruya ihtiyacı yok.
+@Component
+public class ClusterCacheRelay {
+
+    private final ClusterFanout fanout;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final UserSummaryCache userSummaryCache;
+    private final UserDirectory userDirectory;
+    private final MessageTailCache tailCache;
+    private final AnnouncementFeed announcementFeed;
+
+    public ClusterCacheRelay(ClusterFanout fanout,
+                             AuthenticatedUserCache authenticatedUserCache,
+                             UserSummaryCache userSummaryCache,
+                             UserDirectory userDirectory,
+                             MessageTailCache tailCache,
+                             AnnouncementFeed announcementFeed) {
+        this.fanout = fanout;
+        this.authenticatedUserCache = authenticatedUserCache;
+        this.userSummaryCache = userSummaryCache;
+        this.userDirectory = userDirectory;
+        this.tailCache = tailCache;
+        this.announcementFeed = announcementFeed;
+        fanout.addListener(this::onClusterEvent);
+        tailCache.addChangeListener(this::tailChanged);
+        announcementFeed.addChangeListener(this::announcementsChanged);
+    }
+
+    // Commit sonrası çağrılır; yerel önbellekler çağıran tarafından zaten güncellenmiştir
+    public void userChanged(Long userId) {
+        if (fanout.isClustered() && userId != null) {
+            fanout.publish(ClusterEvent.userChanged(fanout.nodeId(), userId));
+        }
+    }
+
+    // Tail commit sonrası güncellenir; diğer düğümler düşürülen tail'i DB'den güncel haliyle yükler
+    private void tailChanged(Long conversationId) {
+        if (fanout.isClustered()) {
+            fanout.publish(ClusterEvent.tailChanged(fanout.nodeId(), conversationId));
+        }
+    }
+
+    private void announcementsChanged() {
+        if (fanout.isClustered()) {
+            fanout.publish(ClusterEvent.announcementsChanged(fanout.nodeId()));
+        }
+    }
+
+    private void onClusterEvent(ClusterEvent event) {
+        switch (event.type()) {
+            case USER_CHANGED -> {
+                Long userId = Long.valueOf(event.payload());
+                authenticatedUserCache.invalidateUser(userId);
+                userSummaryCache.invalidate(userId);
+                userDirectory.refresh(userId);
+            }
+            case TAIL_CHANGED -> tailCache.discard(Long.valueOf(event.payload()));
+            case ANNOUNCEMENTS_CHANGED -> announcementFeed.discard();
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+// Düğümler arası olay. origin: gönderen düğüm; kendi olaylarını alan düğüm onları yok sayar.
+// BROADCAST: destination + payload (payloadType: "text", "bytes" ya da "object:<sınıf>" JSON'u)
+// PRESENCE_*: payload kullanıcı id'si ya da id listesi (JSON)
+// USER_CHANGED: payload kullanıcı id'si; diğer düğümler o kullanıcının önbellek kayıtlarını yeniler
+// TAIL_CHANGED: payload sohbet id'si; diğer düğümler o sohbetin mesaj tail'ini düşürür
+// ANNOUNCEMENTS_CHANGED: payload yok; diğer düğümler duyuru akışı önbelleğini düşürür
+public record ClusterEvent(String origin,
+                           Type type,
+                           String destination,
+                           String contentType,
+                           String payloadType,
+                           String payload) {
+
+    public enum Type {
+        BROADCAST,
+        PRESENCE_ONLINE,
+        PRESENCE_OFFLINE,
+        // Düğümün yerel çevrimiçi kullanıcılarının tamamı; periyodik gönderilir, gelmeyen düğüm düşer
+        PRESENCE_SNAPSHOT,
+        // Yeni açılan düğüm diğerlerinden hemen snapshot ister
+        PRESENCE_SYNC,
+        USER_CHANGED,
+        TAIL_CHANGED,
+        ANNOUNCEMENTS_CHANGED
+    }
+
+    public static ClusterEvent presence(String origin, Type type, String payload) {
+        return new ClusterEvent(origin, type, null, null, null, payload);
+    }
+
+    public static ClusterEvent userChanged(String origin, Long userId) {
+        return new ClusterEvent(origin, Type.USER_CHANGED, null, null, null, String.valueOf(userId));
+    }
+
+    public static ClusterEvent tailChanged(String origin, Long conversationId) {
+        return new ClusterEvent(origin, Type.TAIL_CHANGED, null, null, null, String.valueOf(conversationId));
+    }
+
+    public static ClusterEvent announcementsChanged(String origin) {
+        return new ClusterEvent(origin, Type.ANNOUNCEMENTS_CHANGED, null, null, null, null);
+    }
+}
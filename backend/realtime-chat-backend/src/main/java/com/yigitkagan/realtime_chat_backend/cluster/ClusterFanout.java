@@ -0,0 +1,19 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import java.util.function.Consumer;
+
+// Düğümler arası yayın katmanı. app.chat.cluster.mode ile seçilir:
+// local (tek düğüm, hiçbir şey göndermez) ya da postgres (LISTEN/NOTIFY).
+public interface ClusterFanout {
+
+    String nodeId();
+
+    // false ise yayınlar düğüm dışına çıkmaz; çağıranlar serileştirmeyi atlayabilir
+    boolean isClustered();
+
+    // Asenkron; çağıran thread DB'yi beklemez
+    void publish(ClusterEvent event);
+
+    // Dinleyiciler sadece diğer düğümlerden gelen olayları alır
+    void addListener(Consumer<ClusterEvent> listener);
+}
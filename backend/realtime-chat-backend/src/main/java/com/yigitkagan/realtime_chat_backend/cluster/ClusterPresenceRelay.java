@@ -0,0 +1,78 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import com.yigitkagan.realtime_chat_backend.presence.PresenceService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.Set;
+
+// Çevrimiçi durumunu düğümler arasında paylaşır: değişiklikler anında, tam liste periyodik snapshot olarak.
+// Snapshot'ı ttl boyunca gelmeyen düğümün kullanıcıları çevrimdışı sayılır.
+@Component
+public class ClusterPresenceRelay {
+
+    private static final TypeReference<Set<Long>> USER_IDS = new TypeReference<>() {};
+
+    private final ClusterFanout fanout;
+    private final PresenceService presenceService;
+    private final JsonMapper jsonMapper;
+    private final Duration nodeTtl;
+
+    public ClusterPresenceRelay(ClusterFanout fanout,
+                                PresenceService presenceService,
+                                JsonMapper jsonMapper,
+                                @Value("${app.chat.cluster.presence-node-ttl-ms:30000}") long nodeTtlMs) {
+        this.fanout = fanout;
+        this.presenceService = presenceService;
+        this.jsonMapper = jsonMapper;
+        this.nodeTtl = Duration.ofMillis(nodeTtlMs);
+        fanout.addListener(this::onClusterEvent);
+    }
+
+    public void announce(Long userId, boolean online) {
+        if (fanout.isClustered()) {
+            fanout.publish(ClusterEvent.presence(fanout.nodeId(),
+                    online ? ClusterEvent.Type.PRESENCE_ONLINE : ClusterEvent.Type.PRESENCE_OFFLINE,
+                    String.valueOf(userId)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestSnapshots() {
+        if (fanout.isClustered()) {
+            fanout.publish(ClusterEvent.presence(fanout.nodeId(), ClusterEvent.Type.PRESENCE_SYNC, null));
+            publishSnapshot();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.cluster.presence-snapshot-ms:10000}")
+    public void snapshotAndExpire() {
+        if (fanout.isClustered()) {
+            publishSnapshot();
+            presenceService.expireRemoteNodes(nodeTtl);
+        }
+    }
+
+    private void publishSnapshot() {
+        fanout.publish(ClusterEvent.presence(fanout.nodeId(), ClusterEvent.Type.PRESENCE_SNAPSHOT,
+                jsonMapper.writeValueAsString(presenceService.getLocalOnlineUsers())));
+    }
+
+    private void onClusterEvent(ClusterEvent event) {
+        switch (event.type()) {
+            case PRESENCE_ONLINE -> presenceService.remoteUserOnline(event.origin(), Long.valueOf(event.payload()));
+            case PRESENCE_OFFLINE -> presenceService.remoteUserOffline(event.origin(), Long.valueOf(event.payload()));
+            case PRESENCE_SNAPSHOT -> presenceService.remoteSnapshot(event.origin(),
+                    jsonMapper.readValue(event.payload(), USER_IDS));
+            case PRESENCE_SYNC -> publishSnapshot();
+            default -> {
+            }
+        }
+    }
+}
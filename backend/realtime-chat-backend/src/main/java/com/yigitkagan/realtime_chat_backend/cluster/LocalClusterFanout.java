@@ -0,0 +1,30 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+// Tek düğüm: broker zaten tüm aboneleri görüyor
+@Component
+@ConditionalOnProperty(name = "app.chat.cluster.mode", havingValue = "local", matchIfMissing = true)
+public class LocalClusterFanout implements ClusterFanout {
+
+    @Override
+    public String nodeId() {
+        return "local";
+    }
+
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+
+    @Override
+    public void publish(ClusterEvent event) {
+    }
+
+    @Override
+    public void addListener(Consumer<ClusterEvent> listener) {
+    }
+}
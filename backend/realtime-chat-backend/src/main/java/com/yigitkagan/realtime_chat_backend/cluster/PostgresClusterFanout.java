@@ -0,0 +1,238 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Postgres LISTEN/NOTIFY üzerinden düğümler arası yayın; ek servis gerektirmez.
+// NOTIFY payload'u 8000 bayt ile sınırlı: büyük olaylar cluster_event_payloads tablosuna yazılır,
+// bildirimde sadece "@<id>" gider. LISTEN havuz dışındaki ayrı bir bağlantıda çalışır: havuza geri dönen
+// bir bağlantıda kayıtlı kalıp başkasına bildirim biriktirmez ve kalıcı olarak havuzdan yer tutmaz.
+@Component
+@ConditionalOnProperty(name = "app.chat.cluster.mode", havingValue = "postgres")
+public class PostgresClusterFanout implements ClusterFanout {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresClusterFanout.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int MAX_INLINE_BYTES = 7000;
+    private static final int PUBLISH_BATCH = 100;
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final String channel;
+    private final int pollTimeoutMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<ClusterEvent> outgoing;
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter dropped;
+
+    private volatile boolean running = true;
+    private Thread listenerThread;
+    private Thread publisherThread;
+
+    public PostgresClusterFanout(@Value("${spring.datasource.url}") String jdbcUrl,
+                                 @Value("${spring.datasource.username:}") String username,
+                                 @Value("${spring.datasource.password:}") String password,
+                                 JdbcTemplate jdbcTemplate,
+                                 JsonMapper jsonMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.chat.cluster.channel:chat_cluster}") String channel,
+                                 @Value("${app.chat.cluster.poll-timeout-ms:500}") int pollTimeoutMs,
+                                 @Value("${app.chat.cluster.publish-queue-capacity:10000}") int queueCapacity) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Geçersiz cluster kanal adı: " + channel);
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+        this.channel = channel;
+        this.pollTimeoutMs = Math.max(50, pollTimeoutMs);
+        this.outgoing = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.published = meterRegistry.counter("chat.cluster.events", "direction", "published");
+        this.received = meterRegistry.counter("chat.cluster.events", "direction", "received");
+        this.dropped = meterRegistry.counter("chat.cluster.events", "direction", "dropped");
+    }
+
+    @PostConstruct
+    void start() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS cluster_event_payloads (
+                    id bigserial PRIMARY KEY,
+                    payload text NOT NULL,
+                    created_at timestamptz NOT NULL DEFAULT now()
+                )""");
+        listenerThread = new Thread(this::listenLoop, "cluster-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        publisherThread = new Thread(this::publishLoop, "cluster-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    // Kuyruk doluysa olay düşer; yayın yapan istek thread'i DB yüzünden beklemez
+    @Override
+    public void publish(ClusterEvent event) {
+        if (!outgoing.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void addListener(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void publishLoop() {
+        List<ClusterEvent> batch = new ArrayList<>(PUBLISH_BATCH);
+        while (running) {
+            try {
+                ClusterEvent first = outgoing.poll(pollTimeoutMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outgoing.drainTo(batch, PUBLISH_BATCH - 1);
+                for (ClusterEvent event : batch) {
+                    notify(jsonMapper.writeValueAsString(event));
+                }
+                published.increment(batch.size());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                dropped.increment(batch.size());
+                log.warn("Cluster publish failed, {} events dropped", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void notify(String json) {
+        String payload = json;
+        if (json.getBytes(StandardCharsets.UTF_8).length > MAX_INLINE_BYTES) {
+            Long id = jdbcTemplate.queryForObject(
+                    "INSERT INTO cluster_event_payloads (payload) VALUES (?) RETURNING id", Long.class, json);
+            payload = "@" + id;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) rs -> {}, channel, payload);
+    }
+
+    // Bağlantı koparsa bekleyip yeniden LISTEN eder; aradaki olaylar kaçar (istemciler sync ile tamamlar)
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Cluster node {} listening on {}", nodeId, channel);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster listener connection lost, reconnecting", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String json = payload;
+        if (payload.startsWith("@")) {
+            List<String> rows = jdbcTemplate.queryForList(
+                    "SELECT payload FROM cluster_event_payloads WHERE id = ?", String.class,
+                    Long.parseLong(payload.substring(1)));
+            if (rows.isEmpty()) {
+                return;
+            }
+            json = rows.get(0);
+        }
+        ClusterEvent event = jsonMapper.readValue(json, ClusterEvent.class);
+        if (nodeId.equals(event.origin())) {
+            return;
+        }
+        received.increment();
+        for (Consumer<ClusterEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Cluster listener failed for {}", event.type(), e);
+            }
+        }
+    }
+
+    // Büyük payload'lar sadece dinleyiciler okuyana kadar gerekli
+    @Scheduled(fixedDelayString = "${app.chat.cluster.payload-cleanup-ms:60000}")
+    public void purgeOldPayloads() {
+        jdbcTemplate.update("DELETE FROM cluster_event_payloads WHERE created_at < now() - interval '5 minutes'");
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        if (publisherThread != null) {
+            publisherThread.interrupt();
+        }
+    }
+}
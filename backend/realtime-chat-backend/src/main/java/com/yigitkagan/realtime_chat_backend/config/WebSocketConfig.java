@@ -1,15 +1,44 @@
 package com.yigitkagan.realtime_chat_backend.config;
 
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterBrokerRelay;
+import com.yigitkagan.realtime_chat_backend.websocket.BroadcastPayloadConverter;
+import com.yigitkagan.realtime_chat_backend.websocket.DestinationShardedExecutor;
+import com.yigitkagan.realtime_chat_backend.websocket.PayloadFormatInterceptor;
+import com.yigitkagan.realtime_chat_backend.websocket.SessionOutboundExecutor;
+import com.yigitkagan.realtime_chat_backend.websocket.StompAuthInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final PayloadFormatInterceptor payloadFormatInterceptor;
+    private final DestinationShardedExecutor destinationShardedExecutor;
+    private final SessionOutboundExecutor sessionOutboundExecutor;
+    private final ClusterBrokerRelay clusterBrokerRelay;
+    private final StompAuthInterceptor stompAuthInterceptor;
+
+    public WebSocketConfig(PayloadFormatInterceptor payloadFormatInterceptor,
+                           @Qualifier("destinationShardedExecutor") DestinationShardedExecutor destinationShardedExecutor,
+                           @Qualifier("sessionOutboundExecutor") SessionOutboundExecutor sessionOutboundExecutor,
+                           ClusterBrokerRelay clusterBrokerRelay,
+                           StompAuthInterceptor stompAuthInterceptor) {
+        this.payloadFormatInterceptor = payloadFormatInterceptor;
+        this.destinationShardedExecutor = destinationShardedExecutor;
+        this.sessionOutboundExecutor = sessionOutboundExecutor;
+        this.clusterBrokerRelay = clusterBrokerRelay;
+        this.stompAuthInterceptor = stompAuthInterceptor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry
@@ -21,5 +50,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
+        // Yayınlar hedefe göre shard'lanmış thread'lerde dağıtılır; /topic ve /user yayınları diğer düğümlere de gider
+        registry.configureBrokerChannel()
+                .executor(destinationShardedExecutor)
+                .interceptors(clusterBrokerRelay);
+    }
+
+    // Yayınlar nesne olarak broker'a girer, aboneye giderken JSON ya da CBOR'a kodlanır
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new BroadcastPayloadConverter());
+        return true;
+    }
+
+    // Kimlik CONNECT'te bir kez doğrulanır (/ws el sıkışması permitAll kalır)
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthInterceptor);
+    }
+
+    // Her oturumun sınırlı, sıralı giden kuyruğu var; yavaş istemci ortak thread'leri tıkamaz
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(sessionOutboundExecutor).interceptors(payloadFormatInterceptor);
     }
 }
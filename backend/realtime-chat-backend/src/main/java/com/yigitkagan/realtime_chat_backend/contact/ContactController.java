@@ -1,5 +1,6 @@
 package com.yigitkagan.realtime_chat_backend.contact;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
 import com.yigitkagan.realtime_chat_backend.user.User;
 import com.yigitkagan.realtime_chat_backend.user.UserRepository;
 import org.springframework.http.ResponseEntity;
@@ -22,8 +23,7 @@ public class ContactController {
 
     @PostMapping
     public ResponseEntity<Void> saveContact(@RequestBody ContactDto request, Authentication authentication) {
-        String email = (String) authentication.getPrincipal();
-        User currentUser = userRepository.findByEmail(email).orElseThrow();
+        User currentUser = userRepository.getReferenceById(AuthenticatedUser.from(authentication).id());
 
         User targetUser = userRepository.findById(request.userId())
                 .orElseThrow(() -> new RuntimeException("Kullanıcı bulunamadı"));
@@ -22,9 +22,25 @@ public class Conversation {
 
     private Instant createdAt;
 
+    // Kanonik katılımcı anahtarı (min, max) üzerinde unique index var (ConversationPairs)
+    @Column(name = "pair_low")
+    private Long pairLow;
+
+    @Column(name = "pair_high")
+    private Long pairHigh;
+
+    // Son ayrılan mesaj sıra numarası; sadece MessageSequencer SQL ile günceller
+    @Column(name = "last_message_seq", columnDefinition = "bigint not null default 0",
+            insertable = false, updatable = false)
+    private Long lastMessageSeq;
+
     @PrePersist
     void onCreate() {
         createdAt = Instant.now();
+        if (user1 != null && user2 != null && user1.getId() != null && user2.getId() != null) {
+            pairLow = Math.min(user1.getId(), user2.getId());
+            pairHigh = Math.max(user1.getId(), user2.getId());
+        }
     }
 
     // --- GETTER / SETTER ---
@@ -52,4 +68,8 @@ public class Conversation {
     public Instant getCreatedAt() {
         return createdAt;
     }
+
+    public Long getLastMessageSeq() {
+        return lastMessageSeq;
+    }
 }
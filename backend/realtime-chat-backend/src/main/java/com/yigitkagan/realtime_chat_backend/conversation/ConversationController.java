@@ -3,6 +3,7 @@ package com.yigitkagan.realtime_chat_backend.conversation;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -29,4 +30,15 @@ public class ConversationController {
     public List<ConversationResponse> myConversations(Authentication authentication) {
         return conversationService.listMyConversations(authentication);
     }
+
+    // Sohbet listesi önizlemeleri: ?limit=30[&beforeActivity=<ISO zaman>&beforeId=<sohbet id>]
+    @GetMapping("/summaries")
+    public ConversationSummaryPage mySummaries(
+            @RequestParam(required = false) Instant beforeActivity,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "30") int limit,
+            Authentication authentication
+    ) {
+        return conversationService.listMySummaries(authentication, beforeActivity, beforeId, limit);
+    }
 }
@@ -0,0 +1,129 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import com.yigitkagan.realtime_chat_backend.cache.SnapshotCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// İki kullanıcı arasındaki sohbet: (min, max) katılımcı anahtarı üzerinde unique index.
+// Oluşturma insert-or-get; eşzamanlı iki istek aynı sohbete çıkar. Çift -> sohbet eşlemesi önbellekte tutulur.
+// pair_low/pair_high kolonları Conversation entity'sinden gelir; tablo hazır olmadan backfill çalışamayacağı
+// için entityManagerFactory'den sonra başlar.
+@Component
+@DependsOn("entityManagerFactory")
+public class ConversationPairs {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationPairs.class);
+
+    public record Pair(long low, long high) {
+        public static Pair of(Long userA, Long userB) {
+            return new Pair(Math.min(userA, userB), Math.max(userA, userB));
+        }
+    }
+
+    public record Result(ConversationParticipants participants, boolean created, Instant createdAt) {}
+
+    // Eski kayıtlar: her çiftin en eski sohbeti anahtarı alır, kopyalar NULL kalır (unique index NULL'ları saymaz)
+    private static final String BACKFILL_SQL = """
+            UPDATE conversations c
+            SET pair_low = LEAST(c.user1_id, c.user2_id), pair_high = GREATEST(c.user1_id, c.user2_id)
+            WHERE c.pair_low IS NULL
+              AND c.id = (SELECT min(d.id) FROM conversations d
+                          WHERE LEAST(d.user1_id, d.user2_id) = LEAST(c.user1_id, c.user2_id)
+                            AND GREATEST(d.user1_id, d.user2_id) = GREATEST(c.user1_id, c.user2_id))
+              AND NOT EXISTS (SELECT 1 FROM conversations e
+                              WHERE e.pair_low = LEAST(c.user1_id, c.user2_id)
+                                AND e.pair_high = GREATEST(c.user1_id, c.user2_id))
+            """;
+
+    // Anahtarsız kalan kopyalar ve çiftin anahtarlı sohbeti; birleştirilmez, elle ele alınmak üzere loglanır
+    private static final String UNKEYED_DUPLICATES_SQL = """
+            SELECT d.id AS duplicate_id, k.id AS keyed_id
+            FROM conversations d
+            JOIN conversations k ON k.pair_low = LEAST(d.user1_id, d.user2_id)
+                                AND k.pair_high = GREATEST(d.user1_id, d.user2_id)
+            WHERE d.pair_low IS NULL
+            ORDER BY d.id
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO conversations (user1_id, user2_id, pair_low, pair_high, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (pair_low, pair_high) DO NOTHING
+            RETURNING id, user1_id, user2_id
+            """;
+
+    private static final String FIND_SQL =
+            "SELECT id, user1_id, user2_id FROM conversations WHERE pair_low = ? AND pair_high = ?";
+
+    private static final RowMapper<ConversationParticipants> PARTICIPANTS_ROW = (rs, i) ->
+            new ConversationParticipants(rs.getLong("id"), rs.getLong("user1_id"), rs.getLong("user2_id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnapshotCache<Pair, ConversationParticipants> cache;
+
+    public ConversationPairs(JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.chat.cache.conversations.max-entries:100000}") int maxEntries,
+                             @Value("${app.chat.cache.conversations.ttl-ms:3600000}") long ttlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new SnapshotCache<>("conversation_pairs", maxEntries, ttlMillis, meterRegistry, this::load);
+    }
+
+    @PostConstruct
+    void ensureSchema() {
+        int keyed = jdbcTemplate.update(BACKFILL_SQL);
+        if (keyed > 0) {
+            log.info("Assigned pair keys to {} conversations", keyed);
+        }
+        // Kopyalar her açılışta raporlanır: find() onlara hiç çıkmaz, mesajları anahtarlı sohbete taşınmalı
+        List<String> duplicates = jdbcTemplate.query(UNKEYED_DUPLICATES_SQL,
+                (rs, i) -> rs.getLong("duplicate_id") + "->" + rs.getLong("keyed_id"));
+        if (!duplicates.isEmpty()) {
+            log.warn("{} duplicate conversations have no pair key and are not reachable by participants "
+                    + "(duplicate->keyed): {}", duplicates.size(), duplicates);
+        }
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_conversations_pair ON conversations (pair_low, pair_high)");
+    }
+
+    // Önbellekteyse sorgu yok
+    public ConversationParticipants find(Long userA, Long userB) {
+        return cache.get(Pair.of(userA, userB));
+    }
+
+    public Result insertOrGet(Long userId, Long otherUserId) {
+        ConversationParticipants existing = find(userId, otherUserId);
+        if (existing != null) {
+            return new Result(existing, false, null);
+        }
+        Pair pair = Pair.of(userId, otherUserId);
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<ConversationParticipants> inserted = jdbcTemplate.query(INSERT_SQL, PARTICIPANTS_ROW,
+                userId, otherUserId, pair.low(), pair.high(), Timestamp.from(createdAt));
+        if (!inserted.isEmpty()) {
+            return new Result(inserted.get(0), true, createdAt);
+        }
+        // Çakışma: diğer istek commit etti; yeni sorgu onun satırını görür
+        ConversationParticipants winner = find(userId, otherUserId);
+        if (winner == null) {
+            throw new RuntimeException("Conversation not found");
+        }
+        return new Result(winner, false, null);
+    }
+
+    private ConversationParticipants load(Pair pair) {
+        List<ConversationParticipants> rows = jdbcTemplate.query(FIND_SQL, PARTICIPANTS_ROW, pair.low(), pair.high());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
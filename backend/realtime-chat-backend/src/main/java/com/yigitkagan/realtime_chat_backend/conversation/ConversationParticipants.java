@@ -0,0 +1,16 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+// Sohbetin katılımcıları; sohbet oluştuktan sonra değişmez
+public record ConversationParticipants(
+        Long conversationId,
+        Long user1Id,
+        Long user2Id
+) {
+    public boolean includes(Long userId) {
+        return user1Id.equals(userId) || user2Id.equals(userId);
+    }
+
+    public Long otherParticipant(Long userId) {
+        return user1Id.equals(userId) ? user2Id : user1Id;
+    }
+}
@@ -0,0 +1,30 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import com.yigitkagan.realtime_chat_backend.cache.SnapshotCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Katılımcılar sohbet oluştuktan sonra değişmez; sınır sadece bellek için, ttl silinen sohbetler için.
+// Değişmeyen kayıt tuttuğu için düğümler arası invalidation gerekmez.
+@Component
+public class ConversationParticipantsCache {
+
+    private final SnapshotCache<Long, ConversationParticipants> cache;
+
+    public ConversationParticipantsCache(ConversationRepository conversationRepository,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.chat.cache.conversations.max-entries:100000}") int maxEntries,
+                                         @Value("${app.chat.cache.conversations.ttl-ms:3600000}") long ttlMillis) {
+        this.cache = new SnapshotCache<>("conversation_participants", maxEntries, ttlMillis, meterRegistry,
+                id -> conversationRepository.findParticipantsById(id).orElse(null));
+    }
+
+    public ConversationParticipants require(Long conversationId) {
+        ConversationParticipants participants = cache.get(conversationId);
+        if (participants == null) {
+            throw new RuntimeException("Conversation not found");
+        }
+        return participants;
+    }
+}
@@ -1,17 +1,20 @@
 package com.yigitkagan.realtime_chat_backend.conversation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
 
-    // Bir kullanıcının içinde olduğu tüm konuşmalar
-    List<Conversation> findByUser1IdOrUser2Id(Long user1Id, Long user2Id);
+    // Bir kullanıcının içinde olduğu tüm konuşmalar (sadece id'ler; adlar UserSummaryCache'ten)
+    @Query("select new com.yigitkagan.realtime_chat_backend.conversation.ConversationParticipants(c.id, c.user1.id, c.user2.id) " +
+            "from Conversation c where c.user1.id = :userId or c.user2.id = :userId")
+    List<ConversationParticipants> findParticipantsByUserId(Long userId);
 
-    // İki kullanıcı arasındaki (varsa) konuşmayı bulmak için
-    Conversation findFirstByUser1IdAndUser2IdOrUser2IdAndUser1Id(
-            Long user1Id, Long user2Id,
-            Long user2IdAlt, Long user1IdAlt
-    );
+    // Sadece katılımcı id'leri (User satırlarını join'lemeden)
+    @Query("select new com.yigitkagan.realtime_chat_backend.conversation.ConversationParticipants(c.id, c.user1.id, c.user2.id) " +
+            "from Conversation c where c.id = :conversationId")
+    Optional<ConversationParticipants> findParticipantsById(Long conversationId);
 }
@@ -1,73 +1,93 @@
 package com.yigitkagan.realtime_chat_backend.conversation;
 
-import com.yigitkagan.realtime_chat_backend.user.User;
-import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import com.yigitkagan.realtime_chat_backend.user.UserSummary;
+import com.yigitkagan.realtime_chat_backend.user.UserSummaryCache;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 @Service
 public class ConversationService {
 
     private final ConversationRepository conversationRepository;
-    private final UserRepository userRepository;
+    private final ConversationSummaryRepository summaryRepository;
+    private final ConversationSummaryWriter summaryWriter;
+    private final UserSummaryCache userSummaryCache;
+    private final ConversationPairs conversationPairs;
+
+    private static final int MAX_SUMMARY_PAGE = 100;
 
     public ConversationService(ConversationRepository conversationRepository,
-                               UserRepository userRepository) {
+                               ConversationSummaryRepository summaryRepository,
+                               ConversationSummaryWriter summaryWriter,
+                               UserSummaryCache userSummaryCache,
+                               ConversationPairs conversationPairs) {
         this.conversationRepository = conversationRepository;
-        this.userRepository = userRepository;
-    }
-
-    private User getCurrentUser(Authentication authentication) {
-        String email = (String) authentication.getPrincipal();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        this.summaryRepository = summaryRepository;
+        this.summaryWriter = summaryWriter;
+        this.userSummaryCache = userSummaryCache;
+        this.conversationPairs = conversationPairs;
     }
 
+    // Sohbet satırı ve iki özet satırı birlikte commit edilir; özet yazılamazsa sohbet de oluşmaz
+    @Transactional
     public ConversationResponse createOrGetConversation(ConversationCreateRequest request,
                                                         Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
-        User otherUser = userRepository.findById(request.otherUserId())
-                .orElseThrow(() -> new RuntimeException("Other user not found"));
-
-        // Önce mevcut konuşma var mı diye bak
-        Conversation existing = conversationRepository
-                .findFirstByUser1IdAndUser2IdOrUser2IdAndUser1Id(
-                        currentUser.getId(), otherUser.getId(),
-                        currentUser.getId(), otherUser.getId()
-                );
-
-        Conversation conversation;
-        if (existing != null) {
-            conversation = existing;
-        } else {
-            conversation = new Conversation();
-            conversation.setUser1(currentUser);
-            conversation.setUser2(otherUser);
-            conversation = conversationRepository.save(conversation);
+        Long currentUserId = AuthenticatedUser.from(authentication).id();
+        if (userSummaryCache.get(request.otherUserId()) == null) {
+            throw new RuntimeException("Other user not found");
         }
 
-        return toResponse(conversation);
+        // Çift önbellekteyse sorgu yok; yoksa tek insert-or-get, eşzamanlı istekler aynı sohbete çıkar
+        ConversationPairs.Result result = conversationPairs.insertOrGet(currentUserId, request.otherUserId());
+        if (result.created()) {
+            summaryWriter.conversationCreated(result.participants(), result.createdAt());
+        }
+        return toResponse(result.participants());
     }
 
     public List<ConversationResponse> listMyConversations(Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
-        List<Conversation> conversations =
-                conversationRepository.findByUser1IdOrUser2Id(currentUser.getId(), currentUser.getId());
-
-        return conversations.stream()
+        Long currentUserId = AuthenticatedUser.from(authentication).id();
+        return conversationRepository.findParticipantsByUserId(currentUserId).stream()
                 .map(this::toResponse)
                 .toList();
     }
 
-    private ConversationResponse toResponse(Conversation c) {
+    // Sohbet listesi: son aktiviteye göre sıralı, tek sorgu (mesaj geçmişi çekilmez)
+    public ConversationSummaryPage listMySummaries(Authentication authentication,
+                                                   Instant beforeActivity, Long beforeId, int limit) {
+        Long currentUserId = AuthenticatedUser.from(authentication).id();
+        int size = Math.max(1, Math.min(limit, MAX_SUMMARY_PAGE));
+        PageRequest request = PageRequest.of(0, size + 1);
+        List<ConversationSummaryResponse> rows = beforeActivity != null && beforeId != null
+                ? summaryRepository.findPageBefore(currentUserId, beforeActivity, beforeId, request)
+                : summaryRepository.findFirstPage(currentUserId, request);
+
+        boolean hasMore = rows.size() > size;
+        List<ConversationSummaryResponse> items = hasMore ? rows.subList(0, size) : rows;
+        ConversationSummaryResponse last = hasMore ? items.get(items.size() - 1) : null;
+        return new ConversationSummaryPage(items, hasMore,
+                last != null ? last.lastActivityAt() : null,
+                last != null ? last.conversationId() : null);
+    }
+
+    private ConversationResponse toResponse(ConversationParticipants c) {
         return new ConversationResponse(
-                c.getId(),
-                c.getUser1().getId(),
-                c.getUser1().getDisplayName(),
-                c.getUser2().getId(),
-                c.getUser2().getDisplayName()
+                c.conversationId(),
+                c.user1Id(),
+                displayName(c.user1Id()),
+                c.user2Id(),
+                displayName(c.user2Id())
         );
     }
+
+    private String displayName(Long userId) {
+        UserSummary user = userSummaryCache.get(userId);
+        return user != null ? user.displayName() : null;
+    }
 }
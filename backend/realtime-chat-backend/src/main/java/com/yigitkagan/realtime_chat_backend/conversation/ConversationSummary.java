@@ -0,0 +1,80 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+// Kullanıcı başına sohbet listesi satırı: son mesaj önizlemesi, son aktivite zamanı, okunmamış sayısı.
+// Mesaj yazma yolunda ConversationSummaryWriter ile güncellenir; liste tek sorguda okunur.
+@Entity
+@Table(name = "conversation_summaries", indexes = @Index(
+        name = "ix_conversation_summaries_activity", columnList = "user_id, last_activity_at DESC, conversation_id DESC"))
+@IdClass(ConversationSummary.Key.class)
+public class ConversationSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "other_user_id", nullable = false)
+    private Long otherUserId;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_seq")
+    private Long lastMessageSeq;
+
+    @Column(name = "last_message_snippet", length = 200)
+    private String lastMessageSnippet;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_activity_at", nullable = false)
+    private Instant lastActivityAt;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    public Long getUserId() { return userId; }
+    public Long getConversationId() { return conversationId; }
+    public Long getOtherUserId() { return otherUserId; }
+    public Long getLastMessageId() { return lastMessageId; }
+    public Long getLastMessageSeq() { return lastMessageSeq; }
+    public String getLastMessageSnippet() { return lastMessageSnippet; }
+    public Long getLastSenderId() { return lastSenderId; }
+    public Instant getLastActivityAt() { return lastActivityAt; }
+    public Integer getUnreadCount() { return unreadCount; }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long conversationId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long conversationId) {
+            this.userId = userId;
+            this.conversationId = conversationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(conversationId, key.conversationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, conversationId);
+        }
+    }
+}
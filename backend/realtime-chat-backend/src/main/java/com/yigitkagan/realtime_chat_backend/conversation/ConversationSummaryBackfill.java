@@ -0,0 +1,60 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Özet tablosundan önce oluşmuş sohbetler için satırları üretir (sadece eksik olanlar)
+@Component
+public class ConversationSummaryBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationSummaryBackfill.class);
+
+    private static final String MISSING_SQL = """
+            SELECT EXISTS (SELECT 1 FROM conversations c
+                           WHERE NOT EXISTS (SELECT 1 FROM conversation_summaries s
+                                             WHERE s.conversation_id = c.id AND s.user_id IN (c.user1_id, c.user2_id)))
+            """;
+
+    // Okunmamış: okuma imlecinden sonraki karşı taraf mesajları (eski satırlarda status = SEEN de okunmuş sayılır)
+    private static final String BACKFILL_SQL = """
+            INSERT INTO conversation_summaries (user_id, conversation_id, other_user_id, last_message_id, last_message_seq,
+                                                last_message_snippet, last_sender_id, last_activity_at, unread_count)
+            SELECT p.user_id, c.id, p.other_id, lm.id, lm.seq,
+                   CASE WHEN lm.content ~ '^[A-Z]+::' THEN substring(lm.content from '^[A-Z]+::') ELSE left(lm.content, 200) END,
+                   lm.sender_id, COALESCE(lm.created_at, c.created_at, now()),
+                   (SELECT count(*) FROM messages m
+                    WHERE m.conversation_id = c.id AND m.sender_id <> p.user_id AND m.status <> 'SEEN'
+                      AND m.seq > COALESCE((SELECT rc.seen_seq FROM conversation_read_cursors rc
+                                            WHERE rc.conversation_id = c.id AND rc.user_id = p.user_id), 0))
+            FROM conversations c
+            CROSS JOIN LATERAL (VALUES (c.user1_id, c.user2_id), (c.user2_id, c.user1_id)) AS p(user_id, other_id)
+            LEFT JOIN LATERAL (SELECT id, seq, content, sender_id, created_at FROM messages
+                               WHERE conversation_id = c.id ORDER BY seq DESC LIMIT 1) lm ON true
+            WHERE NOT EXISTS (SELECT 1 FROM conversation_summaries s WHERE s.user_id = p.user_id AND s.conversation_id = c.id)
+            ON CONFLICT (user_id, conversation_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ConversationSummaryBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(MISSING_SQL, Boolean.class))) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int created = jdbcTemplate.update(BACKFILL_SQL);
+            log.info("Created {} conversation summary rows", created);
+        });
+    }
+}
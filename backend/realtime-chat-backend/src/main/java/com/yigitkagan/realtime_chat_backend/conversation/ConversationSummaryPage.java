@@ -0,0 +1,12 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import java.time.Instant;
+import java.util.List;
+
+// Aktiviteye göre sıralı sayfa; bir sonraki sayfa için (nextBeforeActivity, nextBeforeId) gönderilir
+public record ConversationSummaryPage(
+        List<ConversationSummaryResponse> items,
+        boolean hasMore,
+        Instant nextBeforeActivity,
+        Long nextBeforeId
+) {}
@@ -0,0 +1,27 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, ConversationSummary.Key> {
+
+    String SELECT_SUMMARY = "select new com.yigitkagan.realtime_chat_backend.conversation.ConversationSummaryResponse(" +
+            "s.conversationId, s.otherUserId, u.displayName, u.profilePictureUrl, s.lastMessageId, s.lastMessageSeq, " +
+            "s.lastMessageSnippet, s.lastSenderId, s.lastActivityAt, s.unreadCount) " +
+            "from ConversationSummary s join User u on u.id = s.otherUserId ";
+
+    @Query(SELECT_SUMMARY +
+            "where s.userId = :userId order by s.lastActivityAt desc, s.conversationId desc")
+    List<ConversationSummaryResponse> findFirstPage(Long userId, Pageable pageable);
+
+    // Keyset: (last_activity_at, conversation_id) index'i üzerinden, OFFSET yok
+    @Query(SELECT_SUMMARY +
+            "where s.userId = :userId and (s.lastActivityAt < :beforeActivity " +
+            "or (s.lastActivityAt = :beforeActivity and s.conversationId < :beforeId)) " +
+            "order by s.lastActivityAt desc, s.conversationId desc")
+    List<ConversationSummaryResponse> findPageBefore(Long userId, Instant beforeActivity, Long beforeId, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import java.time.Instant;
+
+public record ConversationSummaryResponse(
+        Long conversationId,
+        Long otherUserId,
+        String otherUserName,
+        String otherUserPictureUrl,
+        Long lastMessageId,
+        Long lastMessageSeq,
+        String lastMessageSnippet,
+        Long lastSenderId,
+        Instant lastActivityAt,
+        Integer unreadCount
+) {}
@@ -0,0 +1,154 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// conversation_summaries satırlarını mesaj yazma yolunda günceller (çağıranın transaction'ında).
+// Bir batch'teki mesajlar (kullanıcı, sohbet) başına tek satıra indirgenir: son mesaj + okunmamış artışı.
+@Component
+public class ConversationSummaryWriter {
+
+    public record MessageWrite(
+            long conversationId,
+            long senderId,
+            long recipientId,
+            long messageId,
+            long seq,
+            String content,
+            Instant createdAt
+    ) {}
+
+    private static final int SNIPPET_LENGTH = 200;
+    // Medya mesajlarında URL yerine sadece tür ("IMAGE::") saklanır
+    private static final Pattern MEDIA_PREFIX = Pattern.compile("^[A-Z]+::");
+
+    private static final String NEWER = "(conversation_summaries.last_message_seq IS NULL " +
+            "OR conversation_summaries.last_message_seq < EXCLUDED.last_message_seq)";
+
+    private static final String UPSERT_PREFIX =
+            "INSERT INTO conversation_summaries (user_id, conversation_id, other_user_id, last_message_id, last_message_seq, " +
+            "last_message_snippet, last_sender_id, last_activity_at, unread_count) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Okunmamış her zaman artar; son mesaj alanları sadece daha yeni seq geldiyse değişir (sıra dışı commit'lere karşı)
+    private static final String UPSERT_SUFFIX =
+            " ON CONFLICT (user_id, conversation_id) DO UPDATE SET " +
+            "unread_count = conversation_summaries.unread_count + EXCLUDED.unread_count, " +
+            "last_message_id = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_id ELSE conversation_summaries.last_message_id END, " +
+            "last_message_snippet = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_snippet ELSE conversation_summaries.last_message_snippet END, " +
+            "last_sender_id = CASE WHEN " + NEWER + " THEN EXCLUDED.last_sender_id ELSE conversation_summaries.last_sender_id END, " +
+            "last_activity_at = CASE WHEN " + NEWER + " THEN EXCLUDED.last_activity_at ELSE conversation_summaries.last_activity_at END, " +
+            "last_message_seq = CASE WHEN " + NEWER + " THEN EXCLUDED.last_message_seq ELSE conversation_summaries.last_message_seq END";
+
+    private static final String MARK_READ_SQL = """
+            UPDATE conversation_summaries
+            SET unread_count = (SELECT count(*) FROM messages m
+                                WHERE m.conversation_id = ? AND m.sender_id <> ? AND m.seq > ?)
+            WHERE user_id = ? AND conversation_id = ?
+            """;
+
+    private record Key(long userId, long conversationId) {}
+
+    private static final class Row {
+        private final long otherUserId;
+        private MessageWrite last;
+        private int unreadDelta;
+
+        private Row(long otherUserId) {
+            this.otherUserId = otherUserId;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ConversationSummaryWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void onMessages(List<MessageWrite> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        // Sabit kilit sırası: eşzamanlı batch'ler aynı satırları farklı sırada kilitleyip deadlock olmasın
+        Map<Key, Row> rows = new TreeMap<>(Comparator.comparingLong(Key::userId).thenComparingLong(Key::conversationId));
+        for (MessageWrite w : writes) {
+            apply(rows, w.senderId(), w.recipientId(), w, 0);
+            if (w.recipientId() != w.senderId()) {
+                apply(rows, w.recipientId(), w.senderId(), w, 1);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + UPSERT_SUFFIX.length()
+                + rows.size() * (UPSERT_ROW.length() + 2));
+        sql.append(UPSERT_PREFIX);
+        Object[] args = new Object[rows.size() * 9];
+        int i = 0;
+        for (Map.Entry<Key, Row> entry : rows.entrySet()) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPSERT_ROW);
+            Row row = entry.getValue();
+            args[i++] = entry.getKey().userId();
+            args[i++] = entry.getKey().conversationId();
+            args[i++] = row.otherUserId;
+            args[i++] = row.last.messageId();
+            args[i++] = row.last.seq();
+            args[i++] = snippet(row.last.content());
+            args[i++] = row.last.senderId();
+            args[i++] = Timestamp.from(row.last.createdAt());
+            args[i++] = row.unreadDelta;
+        }
+        sql.append(UPSERT_SUFFIX);
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    // Okuma imleci ilerledi: okunmamış sayısı imleçten sonraki karşı taraf mesajları kadar
+    public void markRead(Long userId, Long conversationId, long upToSeq) {
+        jdbcTemplate.update(MARK_READ_SQL, conversationId, userId, upToSeq, userId, conversationId);
+    }
+
+    // Son mesaj düzenlendi/silindi ise önizleme de güncellenir
+    public void messageChanged(Long conversationId, Long messageId, String content) {
+        jdbcTemplate.update("UPDATE conversation_summaries SET last_message_snippet = ? " +
+                "WHERE conversation_id = ? AND last_message_id = ?", snippet(content), conversationId, messageId);
+    }
+
+    // Yeni sohbet mesaj olmadan da listede görünsün
+    public void conversationCreated(ConversationParticipants conversation, Instant createdAt) {
+        Long user1 = conversation.user1Id();
+        Long user2 = conversation.user2Id();
+        Timestamp activityAt = Timestamp.from(createdAt != null ? createdAt : Instant.now());
+        jdbcTemplate.update("INSERT INTO conversation_summaries (user_id, conversation_id, other_user_id, last_activity_at, unread_count) " +
+                        "VALUES (?, ?, ?, ?, 0), (?, ?, ?, ?, 0) ON CONFLICT (user_id, conversation_id) DO NOTHING",
+                user1, conversation.conversationId(), user2, activityAt,
+                user2, conversation.conversationId(), user1, activityAt);
+    }
+
+    public static String snippet(String content) {
+        if (content == null) {
+            return null;
+        }
+        Matcher media = MEDIA_PREFIX.matcher(content);
+        if (media.find()) {
+            return media.group();
+        }
+        return content.length() > SNIPPET_LENGTH ? content.substring(0, SNIPPET_LENGTH) : content;
+    }
+
+    private static void apply(Map<Key, Row> rows, long userId, long otherUserId, MessageWrite w, int unread) {
+        Row row = rows.computeIfAbsent(new Key(userId, w.conversationId()), k -> new Row(otherUserId));
+        if (row.last == null || row.last.seq() < w.seq()) {
+            row.last = w;
+        }
+        row.unreadDelta += unread;
+    }
+}
@@ -13,7 +13,8 @@ public record ChatMessageResponse(
         Instant updatedAt,
         MessageStatus status,
         List<ReactionSummary> reactions,
-        boolean deletedForEveryone
+        boolean deletedForEveryone,
+        Long seq        // Sohbet içi sıra numarası (keyset sayfalama imleci)
 ) {}
 record ReactionSummary(
         String emoji,
@@ -1,112 +1,468 @@
 package com.yigitkagan.realtime_chat_backend.message;
 
-import com.yigitkagan.realtime_chat_backend.conversation.Conversation;
+import com.yigitkagan.realtime_chat_backend.archive.ArchivedMessage;
+import com.yigitkagan.realtime_chat_backend.archive.MessageArchive;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationParticipants;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationParticipantsCache;
 import com.yigitkagan.realtime_chat_backend.conversation.ConversationRepository;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationSummaryWriter;
+import com.yigitkagan.realtime_chat_backend.search.MessageSearchIndex;
 import com.yigitkagan.realtime_chat_backend.user.User;
 import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import com.yigitkagan.realtime_chat_backend.websocket.BroadcastPayload;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class ChatService {
 
+    private static final int MAX_SLICE_SIZE = 200;
+
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
     private final MessageReactionRepository messageReactionRepository;
+    private final MessageReactionCountRepository reactionCountRepository;
     private final MessageDeletionsRepository messageDeletionsRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MessageWritePipeline writePipeline;
+    private final MessageIdAllocator idAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageSequencer sequencer;
+    private final MessageTailCache tailCache;
+    private final ReadCursorRepository readCursorRepository;
+    private final MessageSearchIndex searchIndex;
+    private final ConversationSummaryWriter summaryWriter;
+    private final MessageArchive archive;
+    private final ConversationParticipantsCache participantsCache;
 
     public ChatService(MessageRepository messageRepository,
                        ConversationRepository conversationRepository,
                        UserRepository userRepository,
                        MessageReactionRepository messageReactionRepository,
+                       MessageReactionCountRepository reactionCountRepository,
                        MessageDeletionsRepository messageDeletionsRepository,
-                       SimpMessagingTemplate messagingTemplate) {
+                       SimpMessagingTemplate messagingTemplate,
+                       MessageWritePipeline writePipeline,
+                       MessageIdAllocator idAllocator,
+                       TransactionTemplate transactionTemplate,
+                       MessageSequencer sequencer,
+                       MessageTailCache tailCache,
+                       ReadCursorRepository readCursorRepository,
+                       MessageSearchIndex searchIndex,
+                       ConversationSummaryWriter summaryWriter,
+                       MessageArchive archive,
+                       ConversationParticipantsCache participantsCache) {
         this.messageRepository = messageRepository;
         this.conversationRepository = conversationRepository;
         this.userRepository = userRepository;
         this.messageReactionRepository = messageReactionRepository;
+        this.reactionCountRepository = reactionCountRepository;
         this.messageDeletionsRepository = messageDeletionsRepository;
         this.messagingTemplate = messagingTemplate;
+        this.writePipeline = writePipeline;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.sequencer = sequencer;
+        this.tailCache = tailCache;
+        this.readCursorRepository = readCursorRepository;
+        this.searchIndex = searchIndex;
+        this.summaryWriter = summaryWriter;
+        this.archive = archive;
+        this.participantsCache = participantsCache;
     }
 
-    @Transactional
     public ChatMessageResponse handleIncomingMessage(ChatMessageRequest request) {
-        Conversation conversation = conversationRepository.findById(request.conversationId())
-                .orElseThrow(() -> new RuntimeException("Conversation not found"));
-        User sender = userRepository.findById(request.senderId())
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
+        if (writePipeline.isEnabled()) {
+            return handleIncomingMessageWriteBehind(request);
+        }
+        ChatMessageResponse response = transactionTemplate.execute(status -> persistIncomingMessage(request));
+        tailCache.onNewMessage(toCached(response));
+        return response;
+    }
+
+    // Pipeline modu: id hemen atanır, mesaj anında yayınlanır, kalıcı yazma toplu yapılır
+    private ChatMessageResponse handleIncomingMessageWriteBehind(ChatMessageRequest request) {
+        ConversationParticipants participants = participants(request.conversationId());
+        if (request.senderId() == null || !participants.includes(request.senderId())) {
+            throw new RuntimeException("Sender not found");
+        }
+
+        long id = idAllocator.nextId();
+        long seq = sequencer.next(participants.conversationId());
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Long recipientId = participants.otherParticipant(request.senderId());
+        writePipeline.enqueue(new MessageWritePipeline.PendingMessage(
+                id, participants.conversationId(), seq, request.senderId(), recipientId, request.content(), createdAt));
+
+        ChatMessageResponse response = new ChatMessageResponse(
+                id,
+                participants.conversationId(),
+                request.senderId(),
+                request.content(),
+                createdAt,
+                null,
+                MessageStatus.SENT,
+                new ArrayList<>(),
+                false,
+                seq
+        );
+        tailCache.onNewMessage(toCached(response));
+        broadcastNewMessage(response, recipientId);
+        return response;
+    }
+
+    private ChatMessageResponse persistIncomingMessage(ChatMessageRequest request) {
+        // Katılımcı kontrolü önbellekten; sohbet ve gönderen satırları yüklenmez, sadece referans verilir
+        ConversationParticipants participants = participants(request.conversationId());
+        if (request.senderId() == null || !participants.includes(request.senderId())) {
+            throw new RuntimeException("Sender not found");
+        }
+        Long conversationId = participants.conversationId();
+        Long senderId = request.senderId();
 
         Message message = new Message();
-        message.setConversation(conversation);
-        message.setSender(sender);
+        message.setConversation(conversationRepository.getReferenceById(conversationId));
+        message.setSender(userRepository.getReferenceById(senderId));
+        message.setSeq(sequencer.next(conversationId));
+        message.setChangeSeq(message.getSeq());
         message.setContent(request.content());
         message.setReactions(new ArrayList<>());
 
         Message saved = messageRepository.save(message);
+        searchIndex.index(saved.getId(), conversationId, saved.getSeq(), saved.getContent());
+
+        Long recipientId = participants.otherParticipant(senderId);
+        summaryWriter.onMessages(List.of(new ConversationSummaryWriter.MessageWrite(conversationId,
+                senderId, recipientId, saved.getId(), saved.getSeq(), saved.getContent(), saved.getCreatedAt())));
 
         ChatMessageResponse response = new ChatMessageResponse(
                 saved.getId(),
-                conversation.getId(),
-                sender.getId(),
+                conversationId,
+                senderId,
                 saved.getContent(),
                 saved.getCreatedAt(),
                 null,
                 saved.getStatus(),
                 new ArrayList<>(),
-                false
+                false,
+                saved.getSeq()
         );
+        broadcastNewMessage(response, recipientId);
 
-        // 1. Sohbet odasındaki herkes (aktif sohbet ekranı için - ANLIK İLETİŞİM)
-        messagingTemplate.convertAndSend("/topic/conversations/" + conversation.getId(), response);
+        return response;
+    }
 
-        // 2. Alıcıya özel bildirim gönder (Topic Notification Yöntemi)
-        Long recipientId = conversation.getUser1().getId().equals(sender.getId())
-                ? conversation.getUser2().getId()
-                : conversation.getUser1().getId();
-        messagingTemplate.convertAndSend("/topic/notifications/" + recipientId, response);
+    private ConversationParticipants participants(Long conversationId) {
+        return participantsCache.require(conversationId);
+    }
 
-        return response;
+    private void broadcastNewMessage(ChatMessageResponse response, Long recipientId) {
+        // İki hedef aynı yükü paylaşır: mesaj format başına bir kez kodlanır
+        BroadcastPayload payload = BroadcastPayload.of(response);
+
+        // 1. Sohbet odasındaki herkes (aktif sohbet ekranı için - ANLIK İLETİŞİM)
+        messagingTemplate.convertAndSend("/topic/conversations/" + response.conversationId(), payload);
+
+        // 2. Alıcının kendi oturumlarına bildirim (/user/queue/notifications); kullanıcı başına topic tutulmaz
+        messagingTemplate.convertAndSendToUser(String.valueOf(recipientId), "/queue/notifications", payload);
     }
 
     @Transactional(readOnly = true)
     public Page<ChatMessageResponse> getMessages(Long conversationId, int page, int size, Long viewerId) {
-        Page<Message> pageResult = messageRepository
-                .findByConversationIdOrderByCreatedAtDesc(conversationId, PageRequest.of(page, size));
+        if (page == 0 && tailCache.isEnabled() && size <= tailCache.tailSize()) {
+            MessageTailCache.TailSnapshot tail = firstPageFromTail(conversationId, size, true);
+            long total = tail.totalCount() != null ? tail.totalCount() : messageRepository.countByConversationId(conversationId);
+            // Eski istemciler için: gizlenen mesajlar sayfada null olarak kalır
+            List<ChatMessageResponse> content = buildResponsesFromTail(tail.newestFirst(), viewerId, true);
+            return withArchivedPage(conversationId, 0, size, content, total, tail.oldestSeq(), viewerId);
+        }
 
-        return pageResult.map(msg -> {
-            if (messageDeletionsRepository.existsByMessageIdAndUserId(msg.getId(), viewerId)) {
-                return null;
+        Page<MessageRow> pageResult = messageRepository
+                .findRowsByConversationId(conversationId, PageRequest.of(page, size));
+
+        List<MessageRow> rows = pageResult.getContent();
+        List<ChatMessageResponse> content = buildResponses(rows, viewerId, true);
+        Long oldestHot = !pageResult.hasNext() && !rows.isEmpty() ? rows.get(rows.size() - 1).seq() : null;
+        return withArchivedPage(conversationId, page, size, content, pageResult.getTotalElements(), oldestHot, viewerId);
+    }
+
+    // Sıcak tablodaki mesajlar sayfayı doldurmuyorsa kalan kısım arşiv segmentlerinden okunur.
+    // oldestHot: sayfa sıcak tablonun sonuna ulaştıysa en eski seq, yoksa null
+    private Page<ChatMessageResponse> withArchivedPage(Long conversationId, int page, int size,
+                                                       List<ChatMessageResponse> content, long hotTotal,
+                                                       Long oldestHot, Long viewerId) {
+        if (!archive.hasArchiveBefore(conversationId, oldestHot)) {
+            return new PageImpl<>(content, PageRequest.of(page, size), hotTotal);
+        }
+        long total = hotTotal + archive.archivedCount(conversationId);
+        if (content.size() < size) {
+            int skip = (int) Math.max(0, (long) page * size - hotTotal);
+            MessageArchive.ArchivePage archived = archive.readBefore(conversationId, Long.MAX_VALUE, skip, size - content.size());
+            content = new ArrayList<>(content);
+            content.addAll(buildArchivedResponses(archived.newestFirst(), viewerId, true));
+        }
+        return new PageImpl<>(content, PageRequest.of(page, size), total);
+    }
+
+    // Cursor tabanlı geçmiş: before verilmezse en yeni mesajlardan başlar
+    @Transactional(readOnly = true)
+    public MessageSlice getMessagesBefore(Long conversationId, Long beforeSeq, int limit, Long viewerId) {
+        int size = Math.max(1, Math.min(limit, MAX_SLICE_SIZE));
+        if (beforeSeq == null && tailCache.isEnabled() && size <= tailCache.tailSize()) {
+            MessageTailCache.TailSnapshot tail = firstPageFromTail(conversationId, size, false);
+            List<MessageTailCache.CachedMessage> messages = tail.newestFirst();
+            Long nextBefore = tail.hasMore() && !messages.isEmpty() ? messages.get(messages.size() - 1).seq() : null;
+            List<ChatMessageResponse> responses = buildResponsesFromTail(messages, viewerId, false);
+            if (tail.hasMore()) {
+                return new MessageSlice(responses, true, nextBefore);
+            }
+            Long oldest = messages.isEmpty() ? null : messages.get(messages.size() - 1).seq();
+            return withArchivedSlice(conversationId, oldest, Long.MAX_VALUE, messages.size(), size, responses, viewerId);
+        }
+
+        long before = beforeSeq != null ? beforeSeq : Long.MAX_VALUE;
+        Slice<MessageRow> slice = messageRepository.findRowsBefore(conversationId, before, PageRequest.of(0, size));
+
+        List<MessageRow> rows = slice.getContent();
+        List<ChatMessageResponse> responses = buildResponses(rows, viewerId, false);
+        if (slice.hasNext()) {
+            return new MessageSlice(responses, true, rows.get(rows.size() - 1).seq());
+        }
+        Long oldest = rows.isEmpty() ? null : rows.get(rows.size() - 1).seq();
+        return withArchivedSlice(conversationId, oldest, before, rows.size(), size, responses, viewerId);
+    }
+
+    // Sıcak tablo bitti: aynı imleçle arşivden devam edilir (arşivdeki seq'ler her zaman daha küçük)
+    private MessageSlice withArchivedSlice(Long conversationId, Long oldestHotSeq, long beforeSeq, int hotRows,
+                                           int size, List<ChatMessageResponse> responses, Long viewerId) {
+        if (!archive.hasArchiveBefore(conversationId, oldestHotSeq)) {
+            return new MessageSlice(responses, false, null);
+        }
+        long before = oldestHotSeq != null ? oldestHotSeq : beforeSeq;
+        if (hotRows >= size) {
+            return new MessageSlice(responses, true, before);
+        }
+        MessageArchive.ArchivePage archived = archive.readBefore(conversationId, before, 0, size - hotRows);
+        List<ArchivedMessage> older = archived.newestFirst();
+        List<ChatMessageResponse> combined = new ArrayList<>(responses);
+        combined.addAll(buildArchivedResponses(older, viewerId, false));
+        Long nextBefore = archived.hasMore() && !older.isEmpty() ? older.get(older.size() - 1).seq() : null;
+        return new MessageSlice(combined, archived.hasMore(), nextBefore);
+    }
+
+    // İlk sayfa: cache'te varsa oradan, yoksa son N mesaj DB'den okunup cache'e yerleştirilir
+    // withTotal: eski Page endpoint'i toplam sayıya ihtiyaç duyar, cursor endpoint'i COUNT çalıştırmaz
+    private MessageTailCache.TailSnapshot firstPageFromTail(Long conversationId, int limit, boolean withTotal) {
+        Optional<MessageTailCache.TailSnapshot> cached = tailCache.firstPage(conversationId, limit);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long stamp = tailCache.stamp(conversationId);
+        PageRequest tailRequest = PageRequest.of(0, tailCache.tailSize());
+        Slice<MessageRow> rows = withTotal
+                ? messageRepository.findRowsByConversationId(conversationId, tailRequest)
+                : messageRepository.findRowsBefore(conversationId, Long.MAX_VALUE, tailRequest);
+        Long total = rows instanceof Page<MessageRow> page ? page.getTotalElements()
+                : (rows.hasNext() ? null : (long) rows.getNumberOfElements());
+        List<Long> ids = rows.getContent().stream().map(MessageRow::id).toList();
+
+        Map<Long, List<MessageTailCache.CachedReaction>> reactions = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (ReactionRow r : messageReactionRepository.findRowsByMessageIds(ids)) {
+                reactions.computeIfAbsent(r.messageId(), id -> new ArrayList<>())
+                        .add(new MessageTailCache.CachedReaction(r.userId(), r.emoji()));
             }
+        }
 
-            List<ReactionSummary> summaries = getReactionSummaries(msg, viewerId);
-            return new ChatMessageResponse(
-                    msg.getId(),
-                    msg.getConversation().getId(),
-                    msg.getSender().getId(),
-                    msg.getContent(),
-                    msg.getCreatedAt(),
-                    msg.getUpdatedAt(),
-                    msg.getStatus(),
+        List<MessageTailCache.CachedMessage> newestFirst = new ArrayList<>(ids.size());
+        for (MessageRow row : rows) {
+            List<MessageTailCache.CachedReaction> messageReactions = List.copyOf(reactions.getOrDefault(row.id(), List.of()));
+            newestFirst.add(new MessageTailCache.CachedMessage(
+                    row.id(), row.conversationId(), row.senderId(), row.seq(), row.content(),
+                    row.createdAt(), row.updatedAt(), row.status(), row.deletedForEveryone(),
+                    messageReactions, MessageTailCache.countReactions(messageReactions)));
+        }
+        tailCache.fill(conversationId, stamp, newestFirst, !rows.hasNext(), total);
+
+        boolean hasMore = rows.hasNext() || newestFirst.size() > limit;
+        List<MessageTailCache.CachedMessage> firstPage = newestFirst.size() > limit ? newestFirst.subList(0, limit) : newestFirst;
+        Long oldestSeq = !rows.hasNext() && !newestFirst.isEmpty() ? newestFirst.get(newestFirst.size() - 1).seq() : null;
+        return new MessageTailCache.TailSnapshot(firstPage, hasMore, total, oldestSeq);
+    }
+
+    // Cache'teki görüntüleyenden bağımsız kayıtlara sadece kişiye özel filtre uygulanır
+    private List<ChatMessageResponse> buildResponsesFromTail(List<MessageTailCache.CachedMessage> messages,
+                                                             Long viewerId, boolean keepHiddenAsNull) {
+        if (messages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = messages.stream().map(MessageTailCache.CachedMessage::id).toList();
+        Set<Long> hidden = new HashSet<>(messageDeletionsRepository.findHiddenMessageIds(viewerId, ids));
+
+        List<ChatMessageResponse> responses = new ArrayList<>(messages.size());
+        for (MessageTailCache.CachedMessage m : messages) {
+            if (hidden.contains(m.id())) {
+                if (keepHiddenAsNull) {
+                    responses.add(null);
+                }
+                continue;
+            }
+            // Sayaçlar hazır; sadece görüntüleyenin kendi tepkisi aranır
+            String mine = null;
+            for (MessageTailCache.CachedReaction r : m.reactions()) {
+                if (r.userId().equals(viewerId)) {
+                    mine = r.emoji();
+                    break;
+                }
+            }
+            List<ReactionSummary> summaries = new ArrayList<>(m.reactionCounts().size());
+            for (MessageTailCache.CachedReactionCount c : m.reactionCounts()) {
+                summaries.add(new ReactionSummary(c.emoji(), c.count(), c.emoji().equals(mine)));
+            }
+            responses.add(new ChatMessageResponse(
+                    m.id(),
+                    m.conversationId(),
+                    m.senderId(),
+                    m.content(),
+                    m.createdAt(),
+                    m.updatedAt(),
+                    m.status(),
                     summaries,
-                    msg.isDeletedForEveryone()
-            );
-        });
+                    m.deletedForEveryone(),
+                    m.seq()
+            ));
+        }
+        return responses;
+    }
+
+    // Arşivdeki mesaj kendi tepkilerini ve gizleyenlerini taşır; ek sorgu yok
+    private List<ChatMessageResponse> buildArchivedResponses(List<ArchivedMessage> messages, Long viewerId,
+                                                             boolean keepHiddenAsNull) {
+        List<ChatMessageResponse> responses = new ArrayList<>(messages.size());
+        for (ArchivedMessage m : messages) {
+            if (m.hiddenFor().contains(viewerId)) {
+                if (keepHiddenAsNull) {
+                    responses.add(null);
+                }
+                continue;
+            }
+            List<ReactionSummary> summaries = new ArrayList<>();
+            for (ArchivedMessage.Reaction r : m.reactions()) {
+                int index = -1;
+                for (int i = 0; i < summaries.size(); i++) {
+                    if (summaries.get(i).emoji().equals(r.emoji())) {
+                        index = i;
+                        break;
+                    }
+                }
+                boolean mine = r.userId().equals(viewerId);
+                if (index < 0) {
+                    summaries.add(new ReactionSummary(r.emoji(), 1, mine));
+                } else {
+                    ReactionSummary s = summaries.get(index);
+                    summaries.set(index, new ReactionSummary(s.emoji(), s.count() + 1, s.isMe() || mine));
+                }
+            }
+            responses.add(new ChatMessageResponse(
+                    m.id(),
+                    m.conversationId(),
+                    m.senderId(),
+                    m.content(),
+                    m.createdAt(),
+                    m.updatedAt(),
+                    m.status(),
+                    summaries,
+                    m.deletedForEveryone(),
+                    m.seq()
+            ));
+        }
+        return responses;
+    }
+
+    private static MessageTailCache.CachedMessage toCached(ChatMessageResponse response) {
+        return new MessageTailCache.CachedMessage(
+                response.id(), response.conversationId(), response.senderId(), response.seq(),
+                response.content(), response.createdAt(), response.updatedAt(), response.status(),
+                response.deletedForEveryone(), List.of(), List.of());
+    }
+
+    // Sayfa boyutundan bağımsız sabit sorgu sayısı: gizlenenler için 1, tepki sayaçları için 1
+    private List<ChatMessageResponse> buildResponses(List<MessageRow> rows, Long viewerId, boolean keepHiddenAsNull) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = rows.stream().map(MessageRow::id).toList();
+        Set<Long> hidden = new HashSet<>(messageDeletionsRepository.findHiddenMessageIds(viewerId, ids));
+
+        Map<Long, List<ReactionSummary>> reactions = reactionSummaries(ids, viewerId);
+
+        List<ChatMessageResponse> responses = new ArrayList<>(rows.size());
+        for (MessageRow row : rows) {
+            if (hidden.contains(row.id())) {
+                if (keepHiddenAsNull) {
+                    responses.add(null);
+                }
+                continue;
+            }
+            responses.add(new ChatMessageResponse(
+                    row.id(),
+                    row.conversationId(),
+                    row.senderId(),
+                    row.content(),
+                    row.createdAt(),
+                    row.updatedAt(),
+                    row.status(),
+                    reactions.getOrDefault(row.id(), new ArrayList<>()),
+                    row.deletedForEveryone(),
+                    row.seq()
+            ));
+        }
+        return responses;
+    }
+
+    private ChatMessageResponse toResponse(Message msg, Long viewerId) {
+        Long conversationId = msg.getConversation().getId();
+        Long recipientId = participants(conversationId).otherParticipant(msg.getSender().getId());
+        ConversationReadCursor cursor = readCursorRepository.findCursor(conversationId, recipientId).orElse(null);
+        return new ChatMessageResponse(
+                msg.getId(),
+                conversationId,
+                msg.getSender().getId(),
+                msg.getContent(),
+                msg.getCreatedAt(),
+                msg.getUpdatedAt(),
+                cursor != null
+                        ? MessageStatus.derive(msg.getStatus(), msg.getSeq(), cursor.getSeenSeq(), cursor.getDeliveredSeq())
+                        : msg.getStatus(),
+                reactionSummaries(List.of(msg.getId()), viewerId).getOrDefault(msg.getId(), new ArrayList<>()),
+                msg.isDeletedForEveryone(),
+                msg.getSeq()
+        );
     }
 
     @Transactional
     public void editMessage(Long messageId, Long userId, String newContent) {
+        writePipeline.awaitPersisted(messageId);
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Mesaj bulunamadı"));
 
@@ -124,25 +480,22 @@ public class ChatService {
 
         message.setContent(newContent);
         message.setUpdatedAt(Instant.now());
+        message.setChangeSeq(sequencer.next(message.getConversation().getId()));
         Message saved = messageRepository.save(message);
+        searchIndex.index(saved.getId(), saved.getConversation().getId(), saved.getSeq(), saved.getContent());
+        summaryWriter.messageChanged(saved.getConversation().getId(), saved.getId(), saved.getContent());
 
-        List<ReactionSummary> summaries = getReactionSummaries(saved, userId);
-        ChatMessageResponse response = new ChatMessageResponse(
-                saved.getId(),
-                saved.getConversation().getId(),
-                saved.getSender().getId(),
-                saved.getContent(),
-                saved.getCreatedAt(),
-                saved.getUpdatedAt(),
-                saved.getStatus(),
-                summaries,
-                saved.isDeletedForEveryone()
-        );
+        ChatMessageResponse response = toResponse(saved, userId);
         messagingTemplate.convertAndSend("/topic/conversations/" + saved.getConversation().getId(), response);
+        afterCommit(() -> tailCache.onMessageUpdated(response.conversationId(), response.id(), m ->
+                new MessageTailCache.CachedMessage(m.id(), m.conversationId(), m.senderId(), m.seq(),
+                        response.content(), m.createdAt(), response.updatedAt(), m.status(), false,
+                        m.reactions(), m.reactionCounts())));
     }
 
     @Transactional
     public void deleteMessageForEveryone(Long messageId, Long userId) {
+        writePipeline.awaitPersisted(messageId);
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Mesaj bulunamadı"));
 
@@ -153,61 +506,111 @@ public class ChatService {
         message.setContent("Bu mesaj silindi");
         message.setDeletedForEveryone(true);
         message.setUpdatedAt(null);
+        message.setChangeSeq(sequencer.next(message.getConversation().getId()));
 
         Message saved = messageRepository.save(message);
+        searchIndex.remove(saved.getId());
+        summaryWriter.messageChanged(saved.getConversation().getId(), saved.getId(), saved.getContent());
 
-        List<ReactionSummary> summaries = getReactionSummaries(saved, userId);
-        ChatMessageResponse response = new ChatMessageResponse(
-                saved.getId(),
-                saved.getConversation().getId(),
-                saved.getSender().getId(),
-                saved.getContent(),
-                saved.getCreatedAt(),
-                saved.getUpdatedAt(),
-                saved.getStatus(),
-                summaries,
-                true
-        );
+        ChatMessageResponse response = toResponse(saved, userId);
         messagingTemplate.convertAndSend("/topic/conversations/" + saved.getConversation().getId(), response);
+        afterCommit(() -> tailCache.onMessageUpdated(response.conversationId(), response.id(), m ->
+                new MessageTailCache.CachedMessage(m.id(), m.conversationId(), m.senderId(), m.seq(),
+                        response.content(), m.createdAt(), null, m.status(), true,
+                        m.reactions(), m.reactionCounts())));
     }
 
     @Transactional
     public void deleteMessageForMe(Long messageId, Long userId) {
+        writePipeline.awaitPersisted(messageId);
         if (!messageDeletionsRepository.existsByMessageIdAndUserId(messageId, userId)) {
             messageDeletionsRepository.insertDeletion(messageId, userId);
         }
     }
 
-    private List<ReactionSummary> getReactionSummaries(Message message, Long viewerId) {
-        if (message.getReactions() == null) return new ArrayList<>();
-        Map<String, List<MessageReaction>> grouped = message.getReactions().stream()
-                .collect(Collectors.groupingBy(MessageReaction::getContent));
-        List<ReactionSummary> summaries = new ArrayList<>();
-        for (Map.Entry<String, List<MessageReaction>> entry : grouped.entrySet()) {
-            boolean isMe = entry.getValue().stream().anyMatch(r -> r.getUser() != null && r.getUser().getId().equals(viewerId));
-            summaries.add(new ReactionSummary(entry.getKey(), entry.getValue().size(), isMe));
+    private Map<Long, List<ReactionSummary>> reactionSummaries(List<Long> messageIds, Long viewerId) {
+        Map<Long, List<ReactionSummary>> reactions = new HashMap<>();
+        for (ReactionCountRow r : reactionCountRepository.findByMessageIds(messageIds, viewerId)) {
+            reactions.computeIfAbsent(r.messageId(), id -> new ArrayList<>())
+                    .add(new ReactionSummary(r.emoji(), r.count().intValue(), r.mine() != null && r.mine() > 0));
         }
-        return summaries;
+        return reactions;
     }
 
     @Transactional
     public void toggleReaction(Long messageId, Long userId, String emoji) {
+        writePipeline.awaitPersisted(messageId);
         Message message = messageRepository.findById(messageId).orElseThrow();
         User user = userRepository.findById(userId).orElseThrow();
         Optional<MessageReaction> existingOpt = messageReactionRepository.findByMessageIdAndUserId(messageId, userId);
+        String previous = existingOpt.map(MessageReaction::getContent).orElse(null);
+        String current;
         if (existingOpt.isPresent()) {
-            if (existingOpt.get().getContent().equals(emoji)) messageReactionRepository.delete(existingOpt.get());
-            else { existingOpt.get().setContent(emoji); messageReactionRepository.save(existingOpt.get()); }
+            if (existingOpt.get().getContent().equals(emoji)) { messageReactionRepository.delete(existingOpt.get()); current = null; }
+            else { existingOpt.get().setContent(emoji); messageReactionRepository.save(existingOpt.get()); current = emoji; }
         } else {
             messageReactionRepository.save(new MessageReaction(message, user, emoji));
+            current = emoji;
+        }
+        // Yeniden bağlanan istemcinin senkronunda tepki değişikliği de görünsün
+        message.setChangeSeq(sequencer.next(message.getConversation().getId()));
+        // Sayaçlar aynı transaction'da delta ile güncellenir, okurken yeniden sayılmaz
+        if (previous != null) {
+            reactionCountRepository.adjust(messageId, previous, -1);
         }
+        if (current != null) {
+            reactionCountRepository.adjust(messageId, current, 1);
+        }
+        Long conversationId = message.getConversation().getId();
+        afterCommit(() -> {
+            tailCache.onReactionChanged(conversationId, messageId, userId, previous, current);
+            String destination = "/topic/conversations/" + conversationId;
+            if (previous != null) {
+                messagingTemplate.convertAndSend(destination, ReactionDelta.of(messageId, userId, previous, -1));
+            }
+            if (current != null) {
+                messagingTemplate.convertAndSend(destination, ReactionDelta.of(messageId, userId, current, 1));
+            }
+        });
     }
 
+    // Cache güncellemeleri sadece commit başarılı olursa uygulanır
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Tüm geçmişi dolaşmak yerine okuma imlecini O(1) ilerletir; SEEN okurken imleçten türetilir
     @Transactional
-    public void markConversationAsSeen(Long conversationId, Long viewerId) {
-        var msgs = messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
-        msgs.stream().filter(m -> !m.getSender().getId().equals(viewerId) && m.getStatus() != MessageStatus.SEEN)
-                .forEach(m -> m.setStatus(MessageStatus.SEEN));
-        messageRepository.saveAll(msgs);
+    public void markConversationAsSeen(Long conversationId, Long viewerId, Long upToSeq) {
+        ConversationParticipants participants = participants(conversationId);
+        if (viewerId == null || !participants.includes(viewerId)) {
+            throw new RuntimeException("Yetkisiz işlem.");
+        }
+        Long latest = tailCache.latestSeq(conversationId)
+                .orElseGet(() -> messageRepository.findMaxSeq(conversationId));
+        if (latest == null) {
+            return;
+        }
+        long upTo = upToSeq != null ? Math.min(upToSeq, latest) : latest;
+        if (upTo <= 0 || readCursorRepository.advanceSeen(conversationId, viewerId, upTo) == 0) {
+            return;
+        }
+        summaryWriter.markRead(viewerId, conversationId, upTo);
+        Long senderId = participants.otherParticipant(viewerId);
+        afterCommit(() -> {
+            tailCache.onSeen(conversationId, viewerId, upTo);
+            // Okundu bilgisi sadece mesajların sahibini ilgilendirir
+            messagingTemplate.convertAndSendToUser(String.valueOf(senderId), "/queue/receipts",
+                    ReceiptEvent.seen(conversationId, viewerId, upTo));
+        });
     }
 }
\ No newline at end of file
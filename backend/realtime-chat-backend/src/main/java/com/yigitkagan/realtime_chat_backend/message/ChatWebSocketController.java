@@ -1,36 +1,52 @@
 package com.yigitkagan.realtime_chat_backend.message;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Controller
 public class ChatWebSocketController {
 
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final DeliveryReceiptBatcher deliveryReceiptBatcher;
+    private final TypingTracker typingTracker;
 
     public ChatWebSocketController(ChatService chatService,
-                                   SimpMessagingTemplate messagingTemplate) {
+                                   DeliveryReceiptBatcher deliveryReceiptBatcher,
+                                   TypingTracker typingTracker) {
         this.chatService = chatService;
-        this.messagingTemplate = messagingTemplate;
+        this.deliveryReceiptBatcher = deliveryReceiptBatcher;
+        this.typingTracker = typingTracker;
     }
 
+    // Gönderen her zaman oturumun kullanıcısıdır; gövdedeki senderId dikkate alınmaz
     @MessageMapping("/chat.sendMessage")
-    public void sendMessage(ChatMessageRequest request) {
-        chatService.handleIncomingMessage(request);
+    public void sendMessage(ChatMessageRequest request, Principal principal) {
+        Long senderId = userId(principal);
+        chatService.handleIncomingMessage(new ChatMessageRequest(request.conversationId(), senderId, request.content()));
+        typingTracker.stopped(request.conversationId(), senderId);
+    }
+
+    // İletildi onayı: DB'ye hemen yazılmaz, toplu olarak flush edilir
+    @MessageMapping("/chat.ack")
+    public void ack(@Payload DeliveryAck ack, Principal principal) {
+        deliveryReceiptBatcher.acknowledge(ack.conversationId(), userId(principal), ack.seq());
     }
 
     // ✅ YAZIYOR (typing) EVENT'I
     @MessageMapping("/chat.typing")
-    public void typing(@Payload TypingNotification notification) {
-
-        System.out.println("TYPING EVENT: " + notification);
-
-        String destination =
-                "/topic/conversations/" + notification.conversationId() + "/typing";
+    public void typing(@Payload TypingNotification notification, Principal principal) {
+        // Her frame yayınlanmaz; tracker sadece başladı/durdu geçişlerini iletir
+        typingTracker.typing(notification.conversationId(), userId(principal));
+    }
 
-        messagingTemplate.convertAndSend(destination, notification);
+    private static Long userId(Principal principal) {
+        if (!(principal instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("User not found");
+        }
+        return user.id();
     }
 }
@@ -0,0 +1,58 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// (sohbet, kullanıcı) başına okuma imleci: kullanıcı delivered_seq'e kadar olan mesajları aldı,
+// seen_seq'e kadar olanları gördü. DELIVERED/SEEN durumu mesaj satırlarına yazılmaz, bu imleçten türetilir.
+@Entity
+@Table(name = "conversation_read_cursors")
+@IdClass(ConversationReadCursor.Key.class)
+public class ConversationReadCursor {
+
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "seen_seq", columnDefinition = "bigint not null default 0")
+    private Long seenSeq;
+
+    @Column(name = "delivered_seq", columnDefinition = "bigint not null default 0")
+    private Long deliveredSeq;
+
+    public Long getConversationId() { return conversationId; }
+    public Long getUserId() { return userId; }
+    public Long getSeenSeq() { return seenSeq; }
+    public Long getDeliveredSeq() { return deliveredSeq; }
+
+    public static class Key implements Serializable {
+        private Long conversationId;
+        private Long userId;
+
+        public Key() {
+        }
+
+        public Key(Long conversationId, Long userId) {
+            this.conversationId = conversationId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(conversationId, key.conversationId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(conversationId, userId);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Alıcının istemcisi: "bu sohbette seq'e kadar olan mesajlar bana ulaştı" (alıcı oturumun kullanıcısıdır)
+public record DeliveryAck(
+        Long conversationId,
+        Long seq
+) {}
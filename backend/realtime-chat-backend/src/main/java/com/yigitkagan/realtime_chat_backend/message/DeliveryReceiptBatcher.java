@@ -0,0 +1,182 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// DELIVERED bildirimleri: istemci ack'leri (sohbet, kullanıcı) başına en büyük seq'e indirgenir,
+// periyodik olarak tek bir çok satırlı upsert ile iletim imlecine yazılır.
+@Component
+public class DeliveryReceiptBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryReceiptBatcher.class);
+
+    private static final String ACK_UPSERT_PREFIX =
+            "INSERT INTO conversation_read_cursors (conversation_id, user_id, seen_seq, delivered_seq) " +
+            "SELECT c.id, v.user_id, 0, LEAST(v.seq, c.last_message_seq) FROM (VALUES ";
+    // Sadece sohbetin katılımcısı, var olan son seq'e kadar ack verebilir
+    private static final String ACK_UPSERT_SUFFIX =
+            ") AS v(conversation_id, user_id, seq) " +
+            "JOIN conversations c ON c.id = v.conversation_id AND (c.user1_id = v.user_id OR c.user2_id = v.user_id) " +
+            "ON CONFLICT (conversation_id, user_id) DO UPDATE SET delivered_seq = EXCLUDED.delivered_seq " +
+            "WHERE conversation_read_cursors.delivered_seq < EXCLUDED.delivered_seq " +
+            "RETURNING conversation_id, user_id, delivered_seq";
+    private static final String ACK_ROW = "(CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint))";
+    private static final int MAX_ACK_ROWS = 1000;
+
+    // Bağlanan kullanıcıların tüm sohbetlerinde karşı tarafın son mesajına kadar iletildi say
+    private static final String CONNECT_UPSERT =
+            "INSERT INTO conversation_read_cursors (conversation_id, user_id, seen_seq, delivered_seq) " +
+            "SELECT c.id, u.user_id, 0, m.max_seq " +
+            "FROM unnest(?) AS u(user_id) " +
+            "JOIN conversations c ON c.user1_id = u.user_id OR c.user2_id = u.user_id " +
+            "CROSS JOIN LATERAL (SELECT max(seq) AS max_seq FROM messages " +
+            "WHERE conversation_id = c.id AND sender_id <> u.user_id) m " +
+            "WHERE m.max_seq IS NOT NULL " +
+            "ON CONFLICT (conversation_id, user_id) DO UPDATE SET delivered_seq = EXCLUDED.delivered_seq " +
+            "WHERE conversation_read_cursors.delivered_seq < EXCLUDED.delivered_seq " +
+            "RETURNING conversation_id, user_id, delivered_seq";
+
+    // Upsert'ü sarar: ilerleyen her imleç için bildirimin gideceği karşı taraf da döner
+    private static final String WITH_SENDER_PREFIX = "WITH advanced AS (";
+    private static final String WITH_SENDER_SUFFIX = ") SELECT a.conversation_id, a.user_id, a.delivered_seq, " +
+            "CASE WHEN c.user1_id = a.user_id THEN c.user2_id ELSE c.user1_id END AS sender_id " +
+            "FROM advanced a JOIN conversations c ON c.id = a.conversation_id";
+
+    private static final RowMapper<Delivered> DELIVERED_ROW = (rs, i) -> new Delivered(
+            ReceiptEvent.delivered(rs.getLong("conversation_id"), rs.getLong("user_id"), rs.getLong("delivered_seq")),
+            rs.getLong("sender_id"));
+
+    private record AckKey(Long conversationId, Long userId) {}
+
+    private record Delivered(ReceiptEvent event, Long senderId) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageTailCache tailCache;
+
+    private final ConcurrentHashMap<AckKey, Long> pendingAcks = new ConcurrentHashMap<>();
+    private final Set<Long> connectedUsers = ConcurrentHashMap.newKeySet();
+
+    public DeliveryReceiptBatcher(JdbcTemplate jdbcTemplate,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  MessageTailCache tailCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.tailCache = tailCache;
+    }
+
+    public void acknowledge(Long conversationId, Long userId, Long seq) {
+        if (conversationId == null || userId == null || seq == null || seq <= 0) {
+            return;
+        }
+        // Aynı sohbet için art arda gelen ack'ler tek bir imleç güncellemesine iner
+        pendingAcks.merge(new AckKey(conversationId, userId), seq, Math::max);
+    }
+
+    public void userConnected(Long userId) {
+        if (userId != null) {
+            connectedUsers.add(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.receipts.flush-interval-ms:250}")
+    public void flush() {
+        List<Delivered> advanced = new ArrayList<>();
+        try {
+            flushConnectedUsers(advanced);
+            flushAcks(advanced);
+        } catch (RuntimeException e) {
+            // Yazılamayanlar geri kuyruğa alındı; bir sonraki flush'ta tekrar denenir
+            log.error("Delivery receipt flush failed", e);
+        }
+        for (Delivered delivered : advanced) {
+            ReceiptEvent event = delivered.event();
+            tailCache.onDelivered(event.conversationId(), event.userId(), event.seq());
+            messagingTemplate.convertAndSendToUser(String.valueOf(delivered.senderId()), "/queue/receipts", event);
+        }
+    }
+
+    private void flushConnectedUsers(List<Delivered> advanced) {
+        if (connectedUsers.isEmpty()) {
+            return;
+        }
+        Set<Long> users = new HashSet<>(connectedUsers);
+        connectedUsers.removeAll(users);
+        try {
+            advanced.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(WITH_SENDER_PREFIX + CONNECT_UPSERT + WITH_SENDER_SUFFIX);
+                Array ids = con.createArrayOf("bigint", users.toArray());
+                ps.setArray(1, ids);
+                return ps;
+            }, DELIVERED_ROW));
+        } catch (RuntimeException e) {
+            connectedUsers.addAll(users);
+            throw e;
+        }
+    }
+
+    // Başarılı batch'lerin bildirimleri sonraki batch hata verse de gönderilir
+    private void flushAcks(List<Delivered> advanced) {
+        Map<AckKey, Long> batch = new HashMap<>();
+        for (AckKey key : pendingAcks.keySet()) {
+            // remove() sonrası gelen ack'ler bir sonraki flush'a kalır, kaybolmaz
+            Long seq = pendingAcks.remove(key);
+            if (seq != null) {
+                batch.put(key, seq);
+            }
+            if (batch.size() == MAX_ACK_ROWS) {
+                advanced.addAll(upsertAcks(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            advanced.addAll(upsertAcks(batch));
+        }
+    }
+
+    private List<Delivered> upsertAcks(Map<AckKey, Long> batch) {
+        StringBuilder sql = new StringBuilder(WITH_SENDER_PREFIX.length() + ACK_UPSERT_PREFIX.length()
+                + ACK_UPSERT_SUFFIX.length() + WITH_SENDER_SUFFIX.length() + batch.size() * (ACK_ROW.length() + 2));
+        sql.append(WITH_SENDER_PREFIX).append(ACK_UPSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 3];
+        int i = 0;
+        for (Map.Entry<AckKey, Long> ack : batch.entrySet()) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ACK_ROW);
+            args[i++] = ack.getKey().conversationId();
+            args[i++] = ack.getKey().userId();
+            args[i++] = ack.getValue();
+        }
+        sql.append(ACK_UPSERT_SUFFIX).append(WITH_SENDER_SUFFIX);
+        try {
+            return jdbcTemplate.query(sql.toString(), DELIVERED_ROW, args);
+        } catch (RuntimeException e) {
+            // Bu arada gelen daha büyük ack ezilmez
+            batch.forEach((key, seq) -> pendingAcks.merge(key, seq, Math::max));
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -6,11 +6,17 @@ import jakarta.persistence.*;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Sohbet içi sıra numarası: keyset sayfalama için (conversation_id, seq)
+        @Index(name = "ux_messages_conversation_seq", columnList = "conversation_id, seq", unique = true),
+        // Yeniden bağlanma senkronu: bir pozisyondan sonra değişen mesajlar
+        @Index(name = "ix_messages_conversation_change_seq", columnList = "conversation_id, change_seq")
+})
 public class Message {
 
     @Id
@@ -23,6 +29,14 @@ public class Message {
     @ManyToOne(optional = false)
     private User sender;
 
+    // Sohbet başına monoton artan sıra numarası (bkz. MessageSequencer)
+    @Column(name = "seq")
+    private Long seq;
+
+    // Son değişikliğin sıra numarası: oluşturulurken seq, düzenleme/silme/tepki ile aynı sayaçtan yenisi
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @Column(nullable = false, columnDefinition = "text")
     private String content;
 
@@ -39,10 +53,12 @@ public class Message {
 
     @PrePersist
     void onCreate() {
-        createdAt = Instant.now();
+        // Postgres mikro saniye saklar; bellekteki kopyalar (cache, yayın) DB ile aynı olsun
+        createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 
-    @OneToMany(mappedBy = "message", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // Geçmiş okuması projection kullanır; tepkiler sadece tek mesaj işlemlerinde yüklenir
+    @OneToMany(mappedBy = "message", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<MessageReaction> reactions = new ArrayList<>();
 
     @Column(name = "deleted_for_everyone")
@@ -71,6 +87,22 @@ public class Message {
         this.sender = sender;
     }
 
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public String getContent() {
         return content;
     }
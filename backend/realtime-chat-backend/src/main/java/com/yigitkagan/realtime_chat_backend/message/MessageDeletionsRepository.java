@@ -6,11 +6,18 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MessageDeletionsRepository extends JpaRepository<Message, Long> {
     @Query(value = "SELECT COUNT(*) > 0 FROM message_deletions WHERE message_id = :messageId AND user_id = :userId", nativeQuery = true)
     boolean existsByMessageIdAndUserId(Long messageId, Long userId);
 
+    // Sayfadaki mesajlardan görüntüleyenin "benden sil" dediği id'ler (tek sorgu)
+    @Query(value = "SELECT message_id FROM message_deletions WHERE user_id = :userId AND message_id IN (:messageIds)", nativeQuery = true)
+    List<Long> findHiddenMessageIds(Long userId, Collection<Long> messageIds);
+
     @Modifying
     @Transactional
     @Query(value = "INSERT INTO message_deletions (message_id, user_id) VALUES (:messageId, :userId)", nativeQuery = true)
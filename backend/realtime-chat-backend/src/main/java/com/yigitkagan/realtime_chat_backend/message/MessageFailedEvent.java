@@ -0,0 +1,13 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Write-behind modunda yayınlanmış ama DB'ye yazılamamış mesaj: istemciler listeden kaldırır
+public record MessageFailedEvent(
+        String type,
+        Long conversationId,
+        Long messageId,
+        Long seq
+) {
+    public static MessageFailedEvent of(Long conversationId, Long messageId, Long seq) {
+        return new MessageFailedEvent("FAILED", conversationId, messageId, seq);
+    }
+}
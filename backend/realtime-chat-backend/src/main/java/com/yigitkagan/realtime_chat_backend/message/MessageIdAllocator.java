@@ -0,0 +1,34 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// messages.id identity sequence'ından blok halinde id ayırır.
+// Böylece mesaj DB'ye yazılmadan önce kalıcı id'sini alır ve IDENTITY insert'leriyle çakışmaz.
+@Component
+public class MessageIdAllocator {
+
+    private static final String RESERVE_SQL =
+            "SELECT nextval(pg_get_serial_sequence('messages', 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Deque<Long> reserved = new ArrayDeque<>();
+
+    public MessageIdAllocator(JdbcTemplate jdbcTemplate,
+                              @Value("${app.chat.pipeline.id-block-size:100}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public synchronized long nextId() {
+        if (reserved.isEmpty()) {
+            reserved.addAll(jdbcTemplate.queryForList(RESERVE_SQL, Long.class, blockSize));
+        }
+        return reserved.pollFirst();
+    }
+}
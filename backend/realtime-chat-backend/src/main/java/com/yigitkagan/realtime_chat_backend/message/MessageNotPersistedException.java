@@ -0,0 +1,17 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Pipeline modunda beklenen mesaj DB'ye ulaşmadı.
+// failed: yazılamayıp message_write_failures'a park edildi; false ise beklerken süre doldu.
+public class MessageNotPersistedException extends RuntimeException {
+
+    private final boolean failed;
+
+    public MessageNotPersistedException(Long messageId, boolean failed) {
+        super(failed ? "Mesaj kaydedilemedi: " + messageId : "Mesaj henüz kaydedilmedi: " + messageId);
+        this.failed = failed;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
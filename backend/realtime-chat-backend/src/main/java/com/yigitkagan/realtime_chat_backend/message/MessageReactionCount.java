@@ -0,0 +1,54 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// Mesaj + emoji başına tutulan tepki sayacı; tepki değiştikçe artırılıp azaltılır.
+// Okurken ham message_reactions satırları gruplanmaz.
+@Entity
+@Table(name = "message_reaction_counts")
+@IdClass(MessageReactionCount.Key.class)
+public class MessageReactionCount {
+
+    @Id
+    @Column(name = "message_id")
+    private Long messageId;
+
+    @Id
+    @Column(name = "emoji")
+    private String emoji;
+
+    @Column(name = "reaction_count", nullable = false)
+    private Long total;
+
+    public Long getMessageId() { return messageId; }
+    public String getEmoji() { return emoji; }
+    public Long getTotal() { return total; }
+
+    public static class Key implements Serializable {
+        private Long messageId;
+        private String emoji;
+
+        public Key() {
+        }
+
+        public Key(Long messageId, String emoji) {
+            this.messageId = messageId;
+            this.emoji = emoji;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(messageId, key.messageId) && Objects.equals(emoji, key.emoji);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(messageId, emoji);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Sayaç tablosundan önce verilmiş tepkiler için message_reaction_counts'u doldurur.
+// Her tepkinin bir sayaç satırı varsa hiçbir şey yapmaz.
+@Component
+public class MessageReactionCountBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageReactionCountBackfill.class);
+
+    private static final String MISSING_COUNTS_SQL = """
+            SELECT EXISTS (SELECT 1 FROM message_reactions r
+                           WHERE NOT EXISTS (SELECT 1 FROM message_reaction_counts c
+                                             WHERE c.message_id = r.message_id AND c.emoji = r.reaction_content))
+            """;
+
+    private static final String RECOUNT_SQL = """
+            INSERT INTO message_reaction_counts (message_id, emoji, reaction_count)
+            SELECT message_id, reaction_content, count(*) FROM message_reactions
+            GROUP BY message_id, reaction_content
+            ON CONFLICT (message_id, emoji) DO UPDATE SET reaction_count = EXCLUDED.reaction_count
+            """;
+
+    private static final String CLEAR_STALE_SQL = """
+            UPDATE message_reaction_counts c SET reaction_count = 0
+            WHERE c.reaction_count <> 0
+              AND NOT EXISTS (SELECT 1 FROM message_reactions r
+                              WHERE r.message_id = c.message_id AND r.reaction_content = c.emoji)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MessageReactionCountBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(MISSING_COUNTS_SQL, Boolean.class))) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // Sayım sırasında gelen tepkiler beklesin, sonra sayaçlar üzerine delta uygular
+            jdbcTemplate.execute("LOCK TABLE message_reactions IN SHARE MODE");
+            int counted = jdbcTemplate.update(RECOUNT_SQL);
+            jdbcTemplate.update(CLEAR_STALE_SQL);
+            log.info("Rebuilt {} reaction counters", counted);
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MessageReactionCountRepository extends JpaRepository<MessageReactionCount, MessageReactionCount.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO message_reaction_counts (message_id, emoji, reaction_count) " +
+            "VALUES (:messageId, :emoji, :delta) " +
+            "ON CONFLICT (message_id, emoji) DO UPDATE " +
+            "SET reaction_count = message_reaction_counts.reaction_count + EXCLUDED.reaction_count", nativeQuery = true)
+    int adjust(Long messageId, String emoji, long delta);
+
+    // Bir sayfadaki tüm mesajların sayaçları tek sorguda; mine görüntüleyenin kendi tepkisi (en fazla 1 satır)
+    @Query("select new com.yigitkagan.realtime_chat_backend.message.ReactionCountRow(" +
+            "c.messageId, c.emoji, c.total, case when r.id is null then 0L else 1L end) " +
+            "from MessageReactionCount c left join MessageReaction r " +
+            "on r.message.id = c.messageId and r.user.id = :viewerId and r.content = c.emoji " +
+            "where c.messageId in :messageIds and c.total > 0")
+    List<ReactionCountRow> findByMessageIds(Collection<Long> messageIds, Long viewerId);
+}
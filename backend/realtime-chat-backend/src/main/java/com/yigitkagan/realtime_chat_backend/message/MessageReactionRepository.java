@@ -1,8 +1,16 @@
 package com.yigitkagan.realtime_chat_backend.message;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MessageReactionRepository extends JpaRepository<MessageReaction, Long> {
     Optional<MessageReaction> findByMessageIdAndUserId(Long messageId, Long viewerId);
-}
\ No newline at end of file
+
+    @Query("select new com.yigitkagan.realtime_chat_backend.message.ReactionRow(r.message.id, r.user.id, r.content) " +
+            "from MessageReaction r where r.message.id in :messageIds")
+    List<ReactionRow> findRowsByMessageIds(Collection<Long> messageIds);
+}
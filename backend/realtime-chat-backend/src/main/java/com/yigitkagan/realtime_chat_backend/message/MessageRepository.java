@@ -2,12 +2,32 @@ package com.yigitkagan.realtime_chat_backend.message;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.List;
+import org.springframework.data.jpa.repository.Query;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    Page<Message> findByConversationIdOrderByCreatedAtDesc(Long conversationId, Pageable pageable);
+    long countByConversationId(Long conversationId);
 
-    List<Message> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
-}
\ No newline at end of file
+    @Query("select max(m.seq) from Message m where m.conversation.id = :conversationId")
+    Long findMaxSeq(Long conversationId);
+
+    // Okuma imleci alıcınınki olmalı (gönderen dışındaki katılımcı); başka imleç satırı varsa bile satır çoğalmaz
+    @Query(value = "select new com.yigitkagan.realtime_chat_backend.message.MessageRow(" +
+            "m.id, m.conversation.id, m.sender.id, m.seq, m.content, m.createdAt, m.updatedAt, m.status, m.deletedForEveryone, rc.seenSeq, rc.deliveredSeq) " +
+            "from Message m join m.conversation c left join ConversationReadCursor rc " +
+            "on rc.conversationId = c.id and rc.userId = (case when c.user1.id = m.sender.id then c.user2.id else c.user1.id end) " +
+            "where m.conversation.id = :conversationId order by m.seq desc",
+            countQuery = "select count(m) from Message m where m.conversation.id = :conversationId")
+    Page<MessageRow> findRowsByConversationId(Long conversationId, Pageable pageable);
+
+    // Keyset: OFFSET ve COUNT yok, (conversation_id, seq) index'i üzerinden geriye doğru okur.
+    // İmleç join'i findRowsByConversationId ile aynı (alıcının imleci)
+    @Query("select new com.yigitkagan.realtime_chat_backend.message.MessageRow(" +
+            "m.id, m.conversation.id, m.sender.id, m.seq, m.content, m.createdAt, m.updatedAt, m.status, m.deletedForEveryone, rc.seenSeq, rc.deliveredSeq) " +
+            "from Message m join m.conversation c left join ConversationReadCursor rc " +
+            "on rc.conversationId = c.id and rc.userId = (case when c.user1.id = m.sender.id then c.user2.id else c.user1.id end) " +
+            "where m.conversation.id = :conversationId and m.seq < :beforeSeq order by m.seq desc")
+    Slice<MessageRow> findRowsBefore(Long conversationId, Long beforeSeq, Pageable pageable);
+}
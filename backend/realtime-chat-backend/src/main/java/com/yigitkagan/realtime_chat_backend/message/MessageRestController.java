@@ -1,6 +1,8 @@
 package com.yigitkagan.realtime_chat_backend.message;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
 import org.springframework.data.domain.Page;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -23,9 +25,23 @@ public class MessageRestController {
         return chatService.getMessages(conversationId, page, size, viewerId);
     }
 
+    // Keyset sayfalama: ?limit=50[&before=<seq>] (COUNT sorgusu yok)
+    @GetMapping(value = "/{conversationId}/messages", params = "limit")
+    public MessageSlice getMessagesBefore(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam int limit,
+            @RequestParam Long viewerId
+    ) {
+        return chatService.getMessagesBefore(conversationId, before, limit, viewerId);
+    }
+
+    // Okuma imleci sadece oturumdaki kullanıcı adına ilerletilir
     @PostMapping("/{conversationId}/seen")
-    public void markSeen(@PathVariable Long conversationId, @RequestParam Long viewerId) {
-        chatService.markConversationAsSeen(conversationId, viewerId);
+    public void markSeen(@PathVariable Long conversationId,
+                         @RequestParam(required = false) Long upTo,
+                         Authentication authentication) {
+        chatService.markConversationAsSeen(conversationId, AuthenticatedUser.from(authentication).id(), upTo);
     }
 
     @PostMapping("/{messageId}/reaction")
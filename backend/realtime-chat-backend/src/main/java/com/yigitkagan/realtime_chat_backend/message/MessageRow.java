@@ -0,0 +1,24 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import java.time.Instant;
+
+// Geçmiş okuması için projection: Message entity'si, reactions, sender ve conversation yüklenmez
+public record MessageRow(
+        Long id,
+        Long conversationId,
+        Long senderId,
+        Long seq,
+        String content,
+        Instant createdAt,
+        Instant updatedAt,
+        MessageStatus status,
+        boolean deletedForEveryone
+) {
+    // Sorgu, alıcının imleçlerini de getirir; DELIVERED/SEEN durumu buradan türetilir
+    public MessageRow(Long id, Long conversationId, Long senderId, Long seq, String content, Instant createdAt,
+                      Instant updatedAt, MessageStatus status, boolean deletedForEveryone,
+                      Long recipientSeenSeq, Long recipientDeliveredSeq) {
+        this(id, conversationId, senderId, seq, content, createdAt, updatedAt,
+                MessageStatus.derive(status, seq, recipientSeenSeq, recipientDeliveredSeq), deletedForEveryone);
+    }
+}
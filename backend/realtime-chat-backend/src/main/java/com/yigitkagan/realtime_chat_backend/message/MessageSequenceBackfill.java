@@ -0,0 +1,61 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// seq kolonundan önce yazılmış mesajlara createdAt sırasıyla numara verir (tek seferlik)
+@Component
+public class MessageSequenceBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSequenceBackfill.class);
+
+    private static final String NUMBER_LEGACY_ROWS_SQL = """
+            UPDATE messages m
+            SET seq = c.last_message_seq + numbered.rn
+            FROM (SELECT id, conversation_id,
+                         row_number() OVER (PARTITION BY conversation_id ORDER BY created_at, id) AS rn
+                  FROM messages
+                  WHERE seq IS NULL) numbered
+            JOIN conversations c ON c.id = numbered.conversation_id
+            WHERE m.id = numbered.id
+            """;
+
+    private static final String ADVANCE_COUNTERS_SQL = """
+            UPDATE conversations c
+            SET last_message_seq = s.max_seq
+            FROM (SELECT conversation_id, max(seq) AS max_seq FROM messages GROUP BY conversation_id) s
+            WHERE c.id = s.conversation_id AND c.last_message_seq < s.max_seq
+            """;
+
+    // change_seq kolonundan önceki mesajlar: son değişiklik = oluşturulma
+    private static final String INIT_CHANGE_SEQ_SQL =
+            "UPDATE messages SET change_seq = seq WHERE change_seq IS NULL AND seq IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MessageSequenceBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Boolean missing = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM messages WHERE seq IS NULL OR change_seq IS NULL)", Boolean.class);
+        if (!Boolean.TRUE.equals(missing)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int numbered = jdbcTemplate.update(NUMBER_LEGACY_ROWS_SQL);
+            jdbcTemplate.update(ADVANCE_COUNTERS_SQL);
+            int initialized = jdbcTemplate.update(INIT_CHANGE_SEQ_SQL);
+            log.info("Assigned sequence numbers to {} legacy messages, change numbers to {}", numbered, initialized);
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterFanout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Sohbet başına monoton sıra numarası dağıtır (conversations.last_message_seq sayacından).
+// block-size 1 ise numara çağıranın transaction'ında ayrılır: sohbet satırı commit'e kadar kilitli kalır,
+// geri alınırsa numara da geri alınır. block-size > 1 ise numaralar ayrı transaction'da blok halinde
+// ayrılır ve bellekten verilir; aradaki boşluklar sorun değildir ama bloklar düğüme özel olduğu için
+// cluster modunda kullanılamaz.
+// Verilen ama henüz DB'ye yazılmamış numaralar "uçuşta" sayılır; senkron imleci bunları atlamamak için
+// en eskisinin altında tutulur. Transaction içinde alınan numara transaction bitince, dışında alınan
+// (write-behind pipeline) numara release() ile bırakılır. Uçuş listesi düğüme özeldir; transaction içinde
+// satır kilidi diğer düğümleri de bekletir, pipeline ise bu yüzden cluster modunda reddedilir.
+@Component
+public class MessageSequencer {
+
+    private static final String RESERVE_SQL =
+            "UPDATE conversations SET last_message_seq = last_message_seq + ? WHERE id = ? RETURNING last_message_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate blockTransaction;
+    private final int blockSize;
+    private final Map<Long, Block> blocks = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> inFlight = new ConcurrentHashMap<>();
+    // Transaction dışı ayırmada numara ile kaydı arasına başka bir ayırma girmesin
+    private final Object[] reserveLocks = new Object[64];
+
+    public MessageSequencer(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ClusterFanout clusterFanout,
+                            @Value("${app.chat.sequence.block-size:1}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = Math.max(1, blockSize);
+        if (this.blockSize > 1 && clusterFanout.isClustered()) {
+            // Her düğüm kendi bloğundan verirse sohbetteki sıra commit sırasıyla uyuşmaz
+            throw new IllegalStateException("app.chat.sequence.block-size > 1 cluster modunda desteklenmiyor");
+        }
+        // Blok başka isteklere de dağıtılacağı için çağıranın transaction'ı geri alınsa bile kalıcı olmalı
+        this.blockTransaction = new TransactionTemplate(transactionManager);
+        this.blockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < reserveLocks.length; i++) {
+            reserveLocks[i] = new Object();
+        }
+    }
+
+    public long next(Long conversationId) {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        long seq;
+        if (blockSize == 1 && inTransaction) {
+            // Satır kilidi commit'e kadar tutulur: daha büyük numara bu kayıttan önce verilemez
+            seq = reserve(conversationId, 1);
+            track(conversationId, seq);
+        } else if (blockSize == 1) {
+            synchronized (reserveLocks[Math.floorMod(conversationId.hashCode(), reserveLocks.length)]) {
+                seq = reserve(conversationId, 1);
+                track(conversationId, seq);
+            }
+        } else {
+            Block block = blocks.computeIfAbsent(conversationId, id -> new Block());
+            synchronized (block) {
+                if (block.next > block.last) {
+                    long last = blockTransaction.execute(status -> reserve(conversationId, blockSize));
+                    block.next = last - blockSize + 1;
+                    block.last = last;
+                }
+                seq = block.next++;
+                track(conversationId, seq);
+            }
+        }
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(conversationId, seq);
+                }
+            });
+        }
+        return seq;
+    }
+
+    public void release(Long conversationId, long seq) {
+        inFlight.computeIfPresent(conversationId, (id, seqs) -> {
+            seqs.remove(seq);
+            return seqs.isEmpty() ? null : seqs;
+        });
+    }
+
+    // Sohbet başına uçuştaki en küçük numara; sadece uçuşta numarası olan sohbetler döner
+    public Map<Long, Long> oldestInFlight() {
+        Map<Long, Long> oldest = new HashMap<>();
+        inFlight.forEach((conversationId, seqs) -> {
+            Long first = seqs.ceiling(Long.MIN_VALUE);
+            if (first != null) {
+                oldest.put(conversationId, first);
+            }
+        });
+        return oldest;
+    }
+
+    private void track(Long conversationId, long seq) {
+        inFlight.compute(conversationId, (id, seqs) -> {
+            NavigableSet<Long> set = seqs != null ? seqs : new ConcurrentSkipListSet<>();
+            set.add(seq);
+            return set;
+        });
+    }
+
+    private long reserve(Long conversationId, int count) {
+        try {
+            return jdbcTemplate.queryForObject(RESERVE_SQL, Long.class, count, conversationId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new RuntimeException("Conversation not found");
+        }
+    }
+
+    private static final class Block {
+        private long next = 1;
+        private long last = 0;
+    }
+}
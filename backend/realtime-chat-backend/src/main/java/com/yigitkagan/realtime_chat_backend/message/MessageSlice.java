@@ -0,0 +1,10 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import java.util.List;
+
+// Keyset sayfalama cevabı: toplam sayı yok, sadece bir sonraki imleç
+public record MessageSlice(
+        List<ChatMessageResponse> messages,
+        boolean hasMore,
+        Long nextBefore
+) {}
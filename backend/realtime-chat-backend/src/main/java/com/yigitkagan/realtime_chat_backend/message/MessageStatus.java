@@ -3,5 +3,19 @@ package com.yigitkagan.realtime_chat_backend.message;
 public enum MessageStatus {
     SENT,       // Gönderildi (tek tik)
     DELIVERED,  // Karşı tarafa ulaştı (çift tik)
-    SEEN        // Karşı taraf sohbeti gördü (mor çift tik)
+    SEEN;       // Karşı taraf sohbeti gördü (mor çift tik)
+
+    // Kayıtlı durum ile alıcının imleçlerinden hangisi daha ilerideyse o
+    public static MessageStatus derive(MessageStatus stored, Long seq, Long recipientSeenSeq, Long recipientDeliveredSeq) {
+        if (seq == null) {
+            return stored;
+        }
+        if (recipientSeenSeq != null && seq <= recipientSeenSeq) {
+            return SEEN;
+        }
+        if (recipientDeliveredSeq != null && seq <= recipientDeliveredSeq && stored == SENT) {
+            return DELIVERED;
+        }
+        return stored;
+    }
 }
@@ -0,0 +1,31 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+public class MessageSyncController {
+
+    private final MessageSyncService syncService;
+
+    public MessageSyncController(MessageSyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    // Yeniden bağlanınca tek istekle tüm sohbetlerin değişiklikleri (satır satır JSON)
+    @PostMapping(value = "/api/messages/sync", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> sync(@RequestBody SyncRequest request, Authentication authentication) {
+        // Görüntüleyen istek gövdesinden değil, doğrulanmış token'dan gelir
+        Long viewerId = AuthenticatedUser.from(authentication).id();
+        StreamingResponseBody body = out -> syncService.stream(viewerId, request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
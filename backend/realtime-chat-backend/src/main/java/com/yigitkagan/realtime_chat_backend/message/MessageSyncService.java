@@ -0,0 +1,279 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Yeniden bağlanan istemci için tüm sohbetlerdeki değişiklikleri tek bir NDJSON akışında gönderir.
+// Satırlar DB cursor'ı ile (fetch size) okunur ve parça parça yazılır; bellek kullanımı geçmişin boyundan bağımsız.
+// Dönen pozisyon, henüz commit edilmemiş (uçuştaki) en eski change_seq'in altında tutulur; yoksa o değişiklik
+// daha sonra commit edildiğinde istemcinin pozisyonunun gerisinde kalır ve hiç gönderilmezdi.
+@Service
+public class MessageSyncService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int CHUNK_SIZE = 200;
+    private static final int DEFAULT_LIMIT_PER_CONVERSATION = 500;
+    private static final int MAX_LIMIT_PER_CONVERSATION = 5000;
+
+    // Her sohbet için pozisyondan sonra değişen mesajlar (conversation_id, change_seq) index'i ile;
+    // limit + 1 satır okunur, fazlası varsa sohbet TRUNCATED olarak işaretlenir.
+    // Pozisyon arşive taşınmış değişikliklerin gerisindeyse mesaj okunmaz, sohbet yine TRUNCATED olur.
+    private static final String CHANGES_SQL = """
+            WITH pos AS (
+                SELECT * FROM unnest(?, ?) AS p(conversation_id, position)
+            ), convs AS (
+                SELECT c.id, c.user1_id, c.user2_id, COALESCE(pos.position, 0) AS position,
+                       COALESCE((SELECT max(s.max_change_seq) FROM message_archive_segments s
+                                 WHERE s.conversation_id = c.id), 0) AS archived_change_seq,
+                       COALESCE((SELECT max(change_seq) FROM messages WHERE conversation_id = c.id), 0) AS hot_change_seq
+                FROM conversations c LEFT JOIN pos ON pos.conversation_id = c.id
+                WHERE c.user1_id = ? OR c.user2_id = ?
+            )
+            SELECT convs.id AS conv_id, convs.position AS conv_position, convs.archived_change_seq,
+                   GREATEST(convs.archived_change_seq, convs.hot_change_seq) AS max_change_seq,
+                   m.id, m.sender_id, m.seq, m.change_seq, m.content, m.created_at, m.updated_at, m.status,
+                   m.deleted_for_everyone, rc.seen_seq, rc.delivered_seq,
+                   EXISTS (SELECT 1 FROM message_deletions d WHERE d.message_id = m.id AND d.user_id = ?) AS hidden
+            FROM convs
+            LEFT JOIN LATERAL (
+                SELECT * FROM messages
+                WHERE conversation_id = convs.id AND change_seq > convs.position
+                  AND convs.position >= convs.archived_change_seq
+                ORDER BY change_seq LIMIT ?
+            ) m ON true
+            LEFT JOIN conversation_read_cursors rc
+                   ON rc.conversation_id = m.conversation_id
+                  AND rc.user_id = CASE WHEN convs.user1_id = m.sender_id THEN convs.user2_id ELSE convs.user1_id END
+            WHERE m.id IS NOT NULL OR convs.position < convs.archived_change_seq
+            ORDER BY convs.id, m.change_seq
+            """;
+
+    private static final String CURSORS_SQL = """
+            SELECT rc.conversation_id, rc.user_id, rc.seen_seq, rc.delivered_seq
+            FROM conversation_read_cursors rc
+            JOIN conversations c ON c.id = rc.conversation_id
+            WHERE c.user1_id = ? OR c.user2_id = ?
+            ORDER BY rc.conversation_id, rc.user_id
+            """;
+
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate readTransaction;
+    private final MessageReactionCountRepository reactionCountRepository;
+    private final MessageWritePipeline writePipeline;
+    private final MessageSequencer sequencer;
+    private final JsonMapper jsonMapper;
+
+    public MessageSyncService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MessageReactionCountRepository reactionCountRepository,
+                              MessageWritePipeline writePipeline,
+                              MessageSequencer sequencer,
+                              JsonMapper jsonMapper) {
+        // Postgres sadece transaction içinde ve fetch size verilince satırları parça parça getirir
+        this.streamingJdbc = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbc.setFetchSize(FETCH_SIZE);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.reactionCountRepository = reactionCountRepository;
+        this.writePipeline = writePipeline;
+        this.sequencer = sequencer;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public void stream(Long viewerId, SyncRequest request, OutputStream out) {
+        int limit = request.limitPerConversation() != null
+                ? Math.max(1, Math.min(request.limitPerConversation(), MAX_LIMIT_PER_CONVERSATION))
+                : DEFAULT_LIMIT_PER_CONVERSATION;
+        Map<Long, Long> positions = request.positions() != null ? request.positions() : Map.of();
+        Long[] conversationIds = positions.keySet().toArray(new Long[0]);
+        Long[] conversationPositions = new Long[conversationIds.length];
+        for (int i = 0; i < conversationIds.length; i++) {
+            Long position = positions.get(conversationIds[i]);
+            conversationPositions[i] = position != null ? position : 0L;
+        }
+
+        // Kuyruktaki mesajlar da senkrona girsin
+        if (writePipeline.isEnabled()) {
+            writePipeline.flushNow();
+        }
+        // Sorgudan önce alınmalı: sorgu sırasında commit edilen numara bu listeden düşmüş olabilir
+        Map<Long, Long> inFlight = sequencer.oldestInFlight();
+
+        readTransaction.executeWithoutResult(status -> {
+            ChangeWriter writer = new ChangeWriter(viewerId, limit, inFlight, out);
+            streamingJdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(CHANGES_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", conversationIds));
+                ps.setArray(2, con.createArrayOf("bigint", conversationPositions));
+                ps.setLong(3, viewerId);
+                ps.setLong(4, viewerId);
+                ps.setLong(5, viewerId);
+                ps.setInt(6, limit + 1);
+                return ps;
+            }, writer);
+            writer.finish();
+
+            streamingJdbc.query(CURSORS_SQL, (RowCallbackHandler) rs -> write(out, SyncEvent.cursor(
+                    rs.getLong("conversation_id"), rs.getLong("user_id"),
+                    rs.getLong("seen_seq"), rs.getLong("delivered_seq"))), viewerId, viewerId);
+        });
+        flush(out);
+    }
+
+    private final class ChangeWriter implements RowCallbackHandler {
+
+        private record Change(ChatMessageResponse message, long changeSeq) {}
+
+        private final Long viewerId;
+        private final int limit;
+        private final Map<Long, Long> inFlight;
+        private final OutputStream out;
+        private final List<Change> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        private Long conversationId;
+        private long requestedPosition;
+        private long maxChangeSeq;
+        private boolean behindArchive;
+        private long position;
+        private int rowsInConversation;
+
+        private ChangeWriter(Long viewerId, int limit, Map<Long, Long> inFlight, OutputStream out) {
+            this.viewerId = viewerId;
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowConversationId = rs.getLong("conv_id");
+            if (conversationId == null || conversationId != rowConversationId) {
+                endConversation();
+                conversationId = rowConversationId;
+                requestedPosition = rs.getLong("conv_position");
+                maxChangeSeq = rs.getLong("max_change_seq");
+                behindArchive = requestedPosition < rs.getLong("archived_change_seq");
+                position = requestedPosition;
+                rowsInConversation = 0;
+            }
+            if (behindArchive) {
+                return;
+            }
+            long changeSeq = rs.getLong("change_seq");
+            if (changeSeq >= safeLimit()) {
+                // Öncesinde commit edilmemiş bir değişiklik var; bu ve sonrakiler bir sonraki senkrona kalır
+                return;
+            }
+            rowsInConversation++;
+            if (rowsInConversation > limit) {
+                return;
+            }
+            position = changeSeq;
+            if (rs.getBoolean("hidden")) {
+                // "Benden sil" denmiş mesaj gönderilmez ama pozisyon ilerler
+                return;
+            }
+            Long seq = (Long) rs.getObject("seq");
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            String status = rs.getString("status");
+            chunk.add(new Change(new ChatMessageResponse(
+                    rs.getLong("id"),
+                    rowConversationId,
+                    rs.getLong("sender_id"),
+                    rs.getString("content"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    updatedAt != null ? updatedAt.toInstant() : null,
+                    MessageStatus.derive(status != null ? MessageStatus.valueOf(status) : MessageStatus.SENT, seq,
+                            (Long) rs.getObject("seen_seq"), (Long) rs.getObject("delivered_seq")),
+                    List.of(),
+                    rs.getBoolean("deleted_for_everyone"),
+                    seq
+            ), changeSeq));
+            if (chunk.size() >= CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        private void finish() {
+            endConversation();
+        }
+
+        private void endConversation() {
+            if (conversationId == null) {
+                return;
+            }
+            flushChunk();
+            if (behindArchive || rowsInConversation > limit) {
+                // İstemci geçmişi baştan yükleyecek; sohbetin o anki son değişikliği yeni pozisyon olur
+                long truncatedAt = Math.max(requestedPosition, Math.min(maxChangeSeq, safeLimit() - 1));
+                write(out, SyncEvent.truncated(conversationId, truncatedAt));
+            } else {
+                write(out, SyncEvent.end(conversationId, position));
+            }
+            flush(out);
+        }
+
+        // Bu sohbette gönderilebilecek en büyük change_seq'in bir fazlası
+        private long safeLimit() {
+            Long oldest = inFlight.get(conversationId);
+            return oldest != null ? oldest : Long.MAX_VALUE;
+        }
+
+        // Parça başına tek tepki sorgusu
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(chunk.size());
+            for (Change change : chunk) {
+                ids.add(change.message().id());
+            }
+            Map<Long, List<ReactionSummary>> reactions = new HashMap<>();
+            for (ReactionCountRow r : reactionCountRepository.findByMessageIds(ids, viewerId)) {
+                reactions.computeIfAbsent(r.messageId(), id -> new ArrayList<>())
+                        .add(new ReactionSummary(r.emoji(), r.count().intValue(), r.mine() != null && r.mine() > 0));
+            }
+            for (Change change : chunk) {
+                ChatMessageResponse m = change.message();
+                write(out, SyncEvent.message(new ChatMessageResponse(m.id(), m.conversationId(), m.senderId(),
+                        m.content(), m.createdAt(), m.updatedAt(), m.status(),
+                        reactions.getOrDefault(m.id(), List.of()), m.deletedForEveryone(), m.seq()),
+                        change.changeSeq()));
+            }
+            chunk.clear();
+        }
+    }
+
+    private void write(OutputStream out, SyncEvent event) {
+        try {
+            out.write(jsonMapper.writeValueAsBytes(event));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+// Her sohbetin son N mesajını (görüntüleyenden bağımsız halde) bellekte tutar.
+// Toplam bellek sınırı aşılınca en uzun süredir okunmayan sohbet tamamen atılır (LRU).
+// Cache düğüm başınadır: yerel her değişiklik sohbet id'siyle dinleyicilere bildirilir, cluster modunda
+// diğer düğümler o sohbetin tail'ini düşürüp bir sonraki okumada DB'den yükler (ClusterCacheRelay).
+@Component
+public class MessageTailCache {
+
+    private static final int STAMP_STRIPES = 1024;
+
+    public record CachedReaction(Long userId, String emoji) {}
+
+    public record CachedReactionCount(String emoji, int count) {}
+
+    public record CachedMessage(
+            Long id,
+            Long conversationId,
+            Long senderId,
+            Long seq,
+            String content,
+            Instant createdAt,
+            Instant updatedAt,
+            MessageStatus status,
+            boolean deletedForEveryone,
+            // Kim hangi emojiyi verdi (isMe için) ve emoji başına hazır sayaçlar
+            List<CachedReaction> reactions,
+            List<CachedReactionCount> reactionCounts
+    ) {
+        long estimatedBytes() {
+            // Nesne başlıkları + alanlar için kaba tahmin; içerik UTF-16 varsayılır
+            long bytes = 160 + (content != null ? 40L + content.length() * 2L : 0);
+            for (CachedReaction r : reactions) {
+                bytes += 64 + (r.emoji() != null ? r.emoji().length() * 2L : 0);
+            }
+            for (CachedReactionCount c : reactionCounts) {
+                bytes += 48 + (c.emoji() != null ? c.emoji().length() * 2L : 0);
+            }
+            return bytes;
+        }
+    }
+
+    public record TailSnapshot(
+            List<CachedMessage> newestFirst,
+            boolean hasMore,
+            Long totalCount,
+            // Tail sohbetin tüm sıcak mesajlarını tutuyorsa en eski seq, yoksa null
+            Long oldestSeq
+    ) {}
+
+    private static final class Tail {
+        // seq'e göre artan sırada; en yeni mesaj sonda
+        private final ArrayDeque<CachedMessage> messages = new ArrayDeque<>();
+        // DB'den taban yüklendi mi? false ise sadece yeni gelen mesajları içerir
+        private boolean loaded;
+        // Sohbetteki tüm mesajlar tail içinde mi?
+        private boolean complete;
+        private Long totalCount;
+        private long bytes;
+    }
+
+    private final boolean enabled;
+    private final int tailSize;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, Tail> tails = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private long totalBytes;
+    private final List<Consumer<Long>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public MessageTailCache(MeterRegistry meterRegistry,
+                            @Value("${app.chat.tail-cache.enabled:true}") boolean enabled,
+                            @Value("${app.chat.tail-cache.size:50}") int tailSize,
+                            @Value("${app.chat.tail-cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.tailSize = Math.max(1, tailSize);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.hits = meterRegistry.counter("chat.tail_cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("chat.tail_cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("chat.tail_cache.evictions");
+        Gauge.builder("chat.tail_cache.bytes", this, MessageTailCache::totalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chat.tail_cache.conversations", this, MessageTailCache::conversationCount)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int tailSize() {
+        return tailSize;
+    }
+
+    public void addChangeListener(Consumer<Long> listener) {
+        changeListeners.add(listener);
+    }
+
+    // DB'den doldurmadan önce alınır; arada güncelleme olursa doldurma iptal edilir
+    public long stamp(Long conversationId) {
+        return stamps.get(stripe(conversationId));
+    }
+
+    public synchronized Optional<TailSnapshot> firstPage(Long conversationId, int limit) {
+        if (!enabled || limit > tailSize) {
+            return Optional.empty();
+        }
+        Tail tail = tails.get(conversationId);
+        if (tail == null || !tail.loaded || (tail.messages.size() < limit && !tail.complete)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        List<CachedMessage> newestFirst = new ArrayList<>(Math.min(limit, tail.messages.size()));
+        Iterator<CachedMessage> it = tail.messages.descendingIterator();
+        while (it.hasNext() && newestFirst.size() < limit) {
+            newestFirst.add(it.next());
+        }
+        boolean hasMore = tail.messages.size() > limit || !tail.complete;
+        Long oldestSeq = tail.complete && !tail.messages.isEmpty() ? tail.messages.peekFirst().seq() : null;
+        return Optional.of(new TailSnapshot(newestFirst, hasMore, tail.totalCount, oldestSeq));
+    }
+
+    // DB'den okunan son mesajları, o arada yazma yoluyla gelmiş mesajlarla birleştirerek yerleştirir
+    public synchronized void fill(Long conversationId, long stamp, List<CachedMessage> newestFirst,
+                                  boolean complete, Long totalCount) {
+        if (!enabled || stamps.get(stripe(conversationId)) != stamp) {
+            return;
+        }
+        Tail tail = tails.get(conversationId);
+        if (tail != null && tail.loaded) {
+            return;
+        }
+        TreeMap<Long, CachedMessage> merged = new TreeMap<>();
+        for (CachedMessage m : newestFirst) {
+            merged.put(m.seq(), m);
+        }
+        long maxLoadedSeq = newestFirst.isEmpty() ? Long.MIN_VALUE : newestFirst.get(0).seq();
+        int arrivedMeanwhile = 0;
+        if (tail != null) {
+            // Yazma yolunda eklenenler DB satırlarından daha güncel
+            for (CachedMessage m : tail.messages) {
+                if (merged.put(m.seq(), m) == null && m.seq() > maxLoadedSeq) {
+                    arrivedMeanwhile++;
+                }
+            }
+        } else {
+            tail = new Tail();
+            tails.put(conversationId, tail);
+        }
+        replaceMessages(tail, merged);
+        tail.loaded = true;
+        tail.complete = complete;
+        tail.totalCount = totalCount != null ? totalCount + arrivedMeanwhile : (complete ? (long) merged.size() : null);
+        trim(tail);
+        enforceMemoryCap();
+    }
+
+    public void onNewMessage(CachedMessage message) {
+        if (!enabled) {
+            return;
+        }
+        addMessage(message);
+        changed(message.conversationId());
+    }
+
+    private synchronized void addMessage(CachedMessage message) {
+        Tail tail = tails.get(message.conversationId());
+        if (tail == null) {
+            // Taban yüklenmemiş kısmi tail: henüz DB'ye yazılmamış mesajlar da kaybolmasın
+            tail = new Tail();
+            tails.put(message.conversationId(), tail);
+        }
+        CachedMessage newest = tail.messages.peekLast();
+        if (newest == null || newest.seq() < message.seq()) {
+            tail.messages.addLast(message);
+            tail.bytes += message.estimatedBytes();
+            totalBytes += message.estimatedBytes();
+        } else {
+            // Seq'ler farklı thread'lerde ayrılıp sırasız gelebilir; aynı seq ikinci kez eklenmez
+            TreeMap<Long, CachedMessage> merged = new TreeMap<>();
+            for (CachedMessage m : tail.messages) {
+                merged.put(m.seq(), m);
+            }
+            if (merged.putIfAbsent(message.seq(), message) != null) {
+                return;
+            }
+            replaceMessages(tail, merged);
+        }
+        if (tail.totalCount != null) {
+            tail.totalCount++;
+        }
+        trim(tail);
+        enforceMemoryCap();
+    }
+
+    public void onMessageUpdated(Long conversationId, Long messageId, UnaryOperator<CachedMessage> update) {
+        onMessagesUpdated(conversationId, m -> m.id().equals(messageId), update);
+    }
+
+    private void onMessagesUpdated(Long conversationId, Predicate<CachedMessage> matches,
+                                   UnaryOperator<CachedMessage> update) {
+        if (!enabled) {
+            return;
+        }
+        updateMessages(conversationId, matches, update);
+        changed(conversationId);
+    }
+
+    private synchronized void updateMessages(Long conversationId, Predicate<CachedMessage> matches,
+                                             UnaryOperator<CachedMessage> update) {
+        stamps.incrementAndGet(stripe(conversationId));
+        Tail tail = tails.get(conversationId);
+        if (tail == null) {
+            return;
+        }
+        List<CachedMessage> rebuilt = new ArrayList<>(tail.messages.size());
+        for (CachedMessage m : tail.messages) {
+            if (matches.test(m)) {
+                CachedMessage updated = update.apply(m);
+                tail.bytes += updated.estimatedBytes() - m.estimatedBytes();
+                totalBytes += updated.estimatedBytes() - m.estimatedBytes();
+                rebuilt.add(updated);
+            } else {
+                rebuilt.add(m);
+            }
+        }
+        tail.messages.clear();
+        tail.messages.addAll(rebuilt);
+    }
+
+    // Okuma imleci ilerledi: viewer'a gelen ve upToSeq'e kadar olan mesajlar SEEN
+    public void onSeen(Long conversationId, Long viewerId, Long upToSeq) {
+        onMessagesUpdated(conversationId,
+                m -> !m.senderId().equals(viewerId) && m.seq() <= upToSeq && m.status() != MessageStatus.SEEN,
+                m -> withStatus(m, MessageStatus.SEEN));
+    }
+
+    // İletim imleci ilerledi: viewer'a gelen ve upToSeq'e kadar olan SENT mesajlar DELIVERED
+    public void onDelivered(Long conversationId, Long viewerId, Long upToSeq) {
+        onMessagesUpdated(conversationId,
+                m -> !m.senderId().equals(viewerId) && m.seq() <= upToSeq && m.status() == MessageStatus.SENT,
+                m -> withStatus(m, MessageStatus.DELIVERED));
+    }
+
+    // Mesajlar arşive taşındı ya da yazılamadı: sohbetin tail'i bir sonraki okumada DB'den yeniden yüklenir
+    public void evict(Long conversationId) {
+        discard(conversationId);
+        if (enabled) {
+            changed(conversationId);
+        }
+    }
+
+    // Başka düğümde değişen sohbet; tekrar bildirilmez
+    public synchronized void discard(Long conversationId) {
+        stamps.incrementAndGet(stripe(conversationId));
+        Tail tail = tails.remove(conversationId);
+        if (tail != null) {
+            totalBytes -= tail.bytes;
+        }
+    }
+
+    public synchronized Optional<Long> latestSeq(Long conversationId) {
+        Tail tail = enabled ? tails.get(conversationId) : null;
+        if (tail == null || tail.messages.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(tail.messages.peekLast().seq());
+    }
+
+    public void onReactionChanged(Long conversationId, Long messageId, Long userId,
+                                  String previousOrNull, String currentOrNull) {
+        onMessageUpdated(conversationId, messageId, m -> {
+            List<CachedReaction> reactions = new ArrayList<>(m.reactions().size() + 1);
+            for (CachedReaction r : m.reactions()) {
+                if (!r.userId().equals(userId)) {
+                    reactions.add(r);
+                }
+            }
+            if (currentOrNull != null) {
+                reactions.add(new CachedReaction(userId, currentOrNull));
+            }
+            List<CachedReactionCount> counts = m.reactionCounts();
+            if (previousOrNull != null) {
+                counts = applyDelta(counts, previousOrNull, -1);
+            }
+            if (currentOrNull != null) {
+                counts = applyDelta(counts, currentOrNull, 1);
+            }
+            return new CachedMessage(m.id(), m.conversationId(), m.senderId(), m.seq(), m.content(),
+                    m.createdAt(), m.updatedAt(), m.status(), m.deletedForEveryone(),
+                    List.copyOf(reactions), counts);
+        });
+    }
+
+    // Cache'e ilk yüklemede bir kez sayılır; sonrasında sayaçlar delta ile güncellenir
+    public static List<CachedReactionCount> countReactions(List<CachedReaction> reactions) {
+        List<CachedReactionCount> counts = List.of();
+        for (CachedReaction r : reactions) {
+            counts = applyDelta(counts, r.emoji(), 1);
+        }
+        return counts;
+    }
+
+    private static List<CachedReactionCount> applyDelta(List<CachedReactionCount> counts, String emoji, int delta) {
+        List<CachedReactionCount> updated = new ArrayList<>(counts.size() + 1);
+        boolean found = false;
+        for (CachedReactionCount c : counts) {
+            if (c.emoji().equals(emoji)) {
+                found = true;
+                if (c.count() + delta > 0) {
+                    updated.add(new CachedReactionCount(emoji, c.count() + delta));
+                }
+            } else {
+                updated.add(c);
+            }
+        }
+        if (!found && delta > 0) {
+            updated.add(new CachedReactionCount(emoji, delta));
+        }
+        return List.copyOf(updated);
+    }
+
+    private static CachedMessage withStatus(CachedMessage m, MessageStatus status) {
+        return new CachedMessage(m.id(), m.conversationId(), m.senderId(), m.seq(), m.content(),
+                m.createdAt(), m.updatedAt(), status, m.deletedForEveryone(), m.reactions(), m.reactionCounts());
+    }
+
+    // Tail içeriğini seq sırasındaki mesajlarla değiştirir; bayt sayaçları birlikte güncellenir
+    private void replaceMessages(Tail tail, TreeMap<Long, CachedMessage> bySeq) {
+        totalBytes -= tail.bytes;
+        tail.messages.clear();
+        tail.bytes = 0;
+        for (CachedMessage m : bySeq.values()) {
+            tail.messages.addLast(m);
+            tail.bytes += m.estimatedBytes();
+        }
+        totalBytes += tail.bytes;
+    }
+
+    private void changed(Long conversationId) {
+        for (Consumer<Long> listener : changeListeners) {
+            listener.accept(conversationId);
+        }
+    }
+
+    private void trim(Tail tail) {
+        while (tail.messages.size() > tailSize) {
+            CachedMessage dropped = tail.messages.pollFirst();
+            tail.bytes -= dropped.estimatedBytes();
+            totalBytes -= dropped.estimatedBytes();
+            tail.complete = false;
+        }
+    }
+
+    private void enforceMemoryCap() {
+        Iterator<Map.Entry<Long, Tail>> it = tails.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Tail eldest = it.next().getValue();
+            totalBytes -= eldest.bytes;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized int conversationCount() {
+        return tails.size();
+    }
+
+    private static int stripe(Long conversationId) {
+        return Long.hashCode(conversationId) & (STAMP_STRIPES - 1);
+    }
+}
@@ -0,0 +1,353 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterFanout;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationSummaryWriter;
+import com.yigitkagan.realtime_chat_backend.search.MessageSearchIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind: gelen mesajlar kuyruğa alınır, tek bir writer thread
+// bunları çok satırlı INSERT'lerle toplu olarak (group commit) yazar.
+// Satır satır denemede de yazılamayan mesaj zaten yayınlanmıştır: message_write_failures tablosuna
+// park edilir, tail cache'ten düşürülür ve sohbete FAILED olayı gönderilir.
+// Seq yazma transaction'ı dışında ayrılır ve uçuştaki numaralar düğüme özeldir; başka düğümdeki senkron
+// kuyrukta bekleyen numarayı göremeyeceği için pipeline cluster modunda kullanılamaz.
+@Component
+public class MessageWritePipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageWritePipeline.class);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO messages (id, conversation_id, seq, change_seq, sender_id, content, created_at, status, read_flag, deleted_for_everyone) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?, false, false)";
+    private static final int MAX_FLUSH_SIZE = 1000;
+    private static final long AWAIT_TIMEOUT_SECONDS = 5;
+    private static final String DEAD_LETTER_SQL =
+            "INSERT INTO message_write_failures (message_id, conversation_id, seq, sender_id, recipient_id, content, created_at, error) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (message_id) DO NOTHING";
+
+    public record PendingMessage(
+            long id,
+            long conversationId,
+            long seq,
+            long senderId,
+            long recipientId,
+            String content,
+            Instant createdAt
+    ) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageSequencer sequencer;
+    private final MessageSearchIndex searchIndex;
+    private final ConversationSummaryWriter summaryWriter;
+    private final MessageTailCache tailCache;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final int flushSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<PendingMessage> queue;
+    // Kuyruktaki mesajlar; batch bitince kalıcı yazıldıysa true, park edildiyse false ile tamamlanır
+    private final Map<Long, CompletableFuture<Boolean>> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean running = false;
+    private Thread writer;
+
+    public MessageWritePipeline(JdbcTemplate jdbcTemplate,
+                                MessageSequencer sequencer,
+                                MessageSearchIndex searchIndex,
+                                ConversationSummaryWriter summaryWriter,
+                                MessageTailCache tailCache,
+                                SimpMessagingTemplate messagingTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ClusterFanout clusterFanout,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.chat.pipeline.enabled:false}") boolean enabled,
+                                @Value("${app.chat.pipeline.flush-size:200}") int flushSize,
+                                @Value("${app.chat.pipeline.flush-interval-ms:20}") long flushIntervalMs,
+                                @Value("${app.chat.pipeline.queue-capacity:10000}") int queueCapacity) {
+        if (enabled && clusterFanout.isClustered()) {
+            throw new IllegalStateException("app.chat.pipeline.enabled cluster modunda desteklenmiyor");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequencer = sequencer;
+        this.searchIndex = searchIndex;
+        this.summaryWriter = summaryWriter;
+        this.tailCache = tailCache;
+        this.messagingTemplate = messagingTemplate;
+        // awaitPersisted() çağıranın transaction'ı geri alınsa bile batch kalıcı olmalı
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.flushSize = Math.max(1, Math.min(flushSize, MAX_FLUSH_SIZE));
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.flushSize, queueCapacity));
+        this.batchSizes = DistributionSummary.builder("chat.pipeline.batch.size").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void ensureSchema() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS message_write_failures (
+                    message_id bigint PRIMARY KEY,
+                    conversation_id bigint NOT NULL,
+                    seq bigint,
+                    sender_id bigint NOT NULL,
+                    recipient_id bigint,
+                    content text,
+                    created_at timestamptz NOT NULL,
+                    error text,
+                    failed_at timestamptz NOT NULL DEFAULT now()
+                )""");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(PendingMessage message) {
+        pending.put(message.id(), new CompletableFuture<>());
+        if (!running) {
+            // Kapanış sırasında gelen mesajı beklemeden yaz
+            writeBatch(List.of(message));
+            return;
+        }
+        try {
+            // Kuyruk doluysa DB yetişene kadar gönderen tarafı beklet (backpressure)
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeBatch(List.of(message));
+        }
+    }
+
+    public boolean isPending(Long messageId) {
+        return messageId != null && pending.containsKey(messageId);
+    }
+
+    // Düzenleme/silme/tepki gibi işlemler mesajın DB'de olmasını bekler; writer batch'i bitirince uyanır
+    public void awaitPersisted(Long messageId) {
+        CompletableFuture<Boolean> written = messageId != null ? pending.get(messageId) : null;
+        if (written == null) {
+            return;
+        }
+        boolean persisted;
+        try {
+            persisted = written.get(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageNotPersistedException(messageId, false);
+        } catch (TimeoutException e) {
+            throw new MessageNotPersistedException(messageId, false);
+        } catch (ExecutionException e) {
+            persisted = false;
+        }
+        if (!persisted) {
+            throw new MessageNotPersistedException(messageId, true);
+        }
+    }
+
+    public void flushNow() {
+        writeLock.lock();
+        try {
+            List<PendingMessage> batch = new ArrayList<>(flushSize);
+            while (queue.drainTo(batch, flushSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                writeLock.lock();
+                try {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    // Grup commit: flush-size dolana ya da flush-interval bitene kadar topla
+                    while (batch.size() < flushSize) {
+                        queue.drainTo(batch, flushSize - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= flushSize || remaining <= 0) {
+                            break;
+                        }
+                        PendingMessage next;
+                        try {
+                            next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        } catch (InterruptedException e) {
+                            running = false;
+                            break;
+                        }
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    writeBatch(batch);
+                } finally {
+                    batch.clear();
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                // stop() sırasında kesilirse kalanları boşaltıp çık
+                running = false;
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        Set<Long> persisted = new HashSet<>();
+        try {
+            insertRows(batch);
+            batch.forEach(message -> persisted.add(message.id()));
+        } catch (RuntimeException e) {
+            log.error("Batch insert of {} messages failed, retrying row by row", batch.size(), e);
+            for (PendingMessage message : batch) {
+                try {
+                    insertRows(List.of(message));
+                    persisted.add(message.id());
+                } catch (RuntimeException rowError) {
+                    log.error("Message {} could not be persisted", message.id(), rowError);
+                    deadLetter(message, rowError);
+                }
+            }
+        } finally {
+            for (PendingMessage message : batch) {
+                CompletableFuture<Boolean> written = pending.remove(message.id());
+                if (written != null) {
+                    written.complete(persisted.contains(message.id()));
+                }
+                // Seq transaction dışında ayrıldı; yazma bitince senkron imleci ilerleyebilir
+                sequencer.release(message.conversationId(), message.seq());
+            }
+        }
+    }
+
+    private void deadLetter(PendingMessage message, RuntimeException error) {
+        try {
+            jdbcTemplate.update(DEAD_LETTER_SQL, message.id(), message.conversationId(), message.seq(),
+                    message.senderId(), message.recipientId(), message.content(),
+                    Timestamp.from(message.createdAt()), String.valueOf(error.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Message {} could not be parked for retry", message.id(), e);
+        }
+        // Yayınlanmış kopyalar geri alınır: tail bir sonraki okumada DB'den yüklenir, istemciler mesajı kaldırır
+        tailCache.evict(message.conversationId());
+        messagingTemplate.convertAndSend("/topic/conversations/" + message.conversationId(),
+                MessageFailedEvent.of(message.conversationId(), message.id(), message.seq()));
+    }
+
+    private void insertRows(List<PendingMessage> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW_PLACEHOLDER.length() + 2));
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[rows.size() * 8];
+        List<MessageSearchIndex.Entry> searchEntries = new ArrayList<>(rows.size());
+        List<ConversationSummaryWriter.MessageWrite> summaryWrites = new ArrayList<>(rows.size());
+        int i = 0;
+        for (PendingMessage row : rows) {
+            searchEntries.add(new MessageSearchIndex.Entry(row.id(), row.conversationId(), row.seq(), row.content()));
+            summaryWrites.add(new ConversationSummaryWriter.MessageWrite(row.conversationId(), row.senderId(),
+                    row.recipientId(), row.id(), row.seq(), row.content(), row.createdAt()));
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+            args[i++] = row.id();
+            args[i++] = row.conversationId();
+            args[i++] = row.seq();
+            args[i++] = row.seq();
+            args[i++] = row.senderId();
+            args[i++] = row.content();
+            args[i++] = Timestamp.from(row.createdAt());
+            args[i++] = MessageStatus.SENT.name();
+        }
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(sql.toString(), args);
+            // Arama index'i ve sohbet özetleri de aynı batch transaction'ında güncellenir
+            searchIndex.indexAll(searchEntries);
+            summaryWriter.onMessages(summaryWrites);
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "message-write-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Writer thread zamanında bitmediyse kalanları burada yaz
+        flushNow();
+        log.info("Message write pipeline stopped, {} messages still pending", pending.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Web sunucusu ve broker durduktan sonra dursun, DataSource kapanmadan önce
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
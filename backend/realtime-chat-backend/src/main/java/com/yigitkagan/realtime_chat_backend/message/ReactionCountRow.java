@@ -0,0 +1,9 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Mesaj + emoji bazında tepki sayacı; mine > 0 ise görüntüleyen kişi de tepki vermiş
+public record ReactionCountRow(
+        Long messageId,
+        String emoji,
+        Long count,
+        Long mine
+) {}
@@ -0,0 +1,14 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Tepki değişikliği: istemci mesajı yeniden çekmeden sayacı delta kadar günceller
+public record ReactionDelta(
+        String type,
+        Long messageId,
+        Long userId,
+        String emoji,
+        int delta
+) {
+    public static ReactionDelta of(Long messageId, Long userId, String emoji, int delta) {
+        return new ReactionDelta("REACTION", messageId, userId, emoji, delta);
+    }
+}
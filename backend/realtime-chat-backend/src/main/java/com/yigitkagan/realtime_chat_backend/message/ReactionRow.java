@@ -0,0 +1,8 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Ham tepki satırı (mesaj, kullanıcı, emoji); tail cache'i doldurmak için
+public record ReactionRow(
+        Long messageId,
+        Long userId,
+        String emoji
+) {}
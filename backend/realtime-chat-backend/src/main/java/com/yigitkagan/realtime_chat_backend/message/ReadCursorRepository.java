@@ -0,0 +1,24 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface ReadCursorRepository extends JpaRepository<ConversationReadCursor, ConversationReadCursor.Key> {
+
+    // O(1) ilerletme: imleç sadece ileri gider; 0 dönerse zaten o noktadaydı. Görülen mesaj iletilmiş de sayılır.
+    // Sohbete katılmayan kullanıcı için satır oluşmaz (conversations join'i)
+    @Modifying
+    @Query(value = "INSERT INTO conversation_read_cursors (conversation_id, user_id, seen_seq, delivered_seq) " +
+            "SELECT c.id, :userId, :seq, :seq FROM conversations c " +
+            "WHERE c.id = :conversationId AND (c.user1_id = :userId OR c.user2_id = :userId) " +
+            "ON CONFLICT (conversation_id, user_id) DO UPDATE SET seen_seq = EXCLUDED.seen_seq, " +
+            "delivered_seq = GREATEST(conversation_read_cursors.delivered_seq, EXCLUDED.delivered_seq) " +
+            "WHERE conversation_read_cursors.seen_seq < EXCLUDED.seen_seq", nativeQuery = true)
+    int advanceSeen(Long conversationId, Long userId, Long seq);
+
+    @Query("select c from ConversationReadCursor c where c.conversationId = :conversationId and c.userId = :userId")
+    Optional<ConversationReadCursor> findCursor(Long conversationId, Long userId);
+}
@@ -0,0 +1,18 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// "userId, bu sohbette seq'e kadar olan mesajları aldı/gördü" — sadece mesajların gönderenine,
+// /user/queue/receipts üzerinden gönderilir
+public record ReceiptEvent(
+        String type,
+        Long conversationId,
+        Long userId,
+        Long seq
+) {
+    public static ReceiptEvent seen(Long conversationId, Long userId, Long seq) {
+        return new ReceiptEvent("SEEN", conversationId, userId, seq);
+    }
+
+    public static ReceiptEvent delivered(Long conversationId, Long userId, Long seq) {
+        return new ReceiptEvent("DELIVERED", conversationId, userId, seq);
+    }
+}
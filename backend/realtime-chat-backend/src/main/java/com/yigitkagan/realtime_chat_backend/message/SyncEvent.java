@@ -0,0 +1,35 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Senkron akışındaki tek satır (NDJSON):
+// MESSAGE  yeni/düzenlenmiş/silinmiş ya da tepkisi değişmiş mesajın güncel hali
+// CURSOR   katılımcının okuma/iletim imleçleri
+// END      sohbetin yeni pozisyonu (bir sonraki senkronda gönderilir)
+// TRUNCATED çok fazla değişiklik var; istemci bu sohbetin geçmişini sayfalarla yeniden yüklemeli
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SyncEvent(
+        String type,
+        Long conversationId,
+        Long position,
+        ChatMessageResponse message,
+        Long userId,
+        Long seenSeq,
+        Long deliveredSeq
+) {
+    public static SyncEvent message(ChatMessageResponse message, long changeSeq) {
+        return new SyncEvent("MESSAGE", message.conversationId(), changeSeq, message, null, null, null);
+    }
+
+    public static SyncEvent cursor(Long conversationId, Long userId, Long seenSeq, Long deliveredSeq) {
+        return new SyncEvent("CURSOR", conversationId, null, null, userId, seenSeq, deliveredSeq);
+    }
+
+    public static SyncEvent end(Long conversationId, long position) {
+        return new SyncEvent("END", conversationId, position, null, null, null, null);
+    }
+
+    public static SyncEvent truncated(Long conversationId, long position) {
+        return new SyncEvent("TRUNCATED", conversationId, position, null, null, null, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import java.util.Map;
+
+// positions: sohbet id -> istemcinin bildiği son değişiklik numarası (bilinmeyen sohbetler 0'dan başlar)
+public record SyncRequest(
+        Map<Long, Long> positions,
+        Integer limitPerConversation
+) {}
@@ -0,0 +1,8 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+// Sadece durum değişince yayınlanır: typing=true başladı (ya da sürüyor), false durdu
+public record TypingEvent(
+        Long conversationId,
+        Long senderId,
+        boolean typing
+) {}
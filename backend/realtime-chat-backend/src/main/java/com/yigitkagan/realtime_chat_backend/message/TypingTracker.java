@@ -0,0 +1,96 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// (sohbet, gönderen) başına yazıyor durumu. Her tuş vuruşu yayınlanmaz:
+// başladı/durdu geçişleri ve pencere başına en fazla bir "sürüyor" yenilemesi gider.
+@Component
+public class TypingTracker {
+
+    private record Key(Long conversationId, Long senderId) {}
+
+    private static final class State {
+        // Son frame ve son yayın zamanları (System.nanoTime)
+        private volatile long lastFrameNanos;
+        private volatile long lastBroadcastNanos;
+
+        private State(long now) {
+            this.lastFrameNanos = now;
+            this.lastBroadcastNanos = now;
+        }
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long repeatWindowNanos;
+    private final long expireNanos;
+    private final Map<Key, State> states = new ConcurrentHashMap<>();
+
+    public TypingTracker(SimpMessagingTemplate messagingTemplate,
+                         @Value("${app.chat.typing.repeat-window-ms:1500}") long repeatWindowMs,
+                         @Value("${app.chat.typing.expire-ms:3000}") long expireMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.repeatWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, repeatWindowMs));
+        this.expireNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, expireMs));
+    }
+
+    public void typing(Long conversationId, Long senderId) {
+        if (conversationId == null || senderId == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        Key key = new Key(conversationId, senderId);
+        State state = states.get(key);
+        if (state == null) {
+            State created = new State(now);
+            if (states.putIfAbsent(key, created) == null) {
+                broadcast(key, true);
+                return;
+            }
+            state = states.get(key);
+            if (state == null) {
+                return;
+            }
+        }
+        state.lastFrameNanos = now;
+        // Pencere içindeki tekrarlar yutulur; istemcideki zamanlayıcı için ara sıra yenilenir
+        if (now - state.lastBroadcastNanos >= repeatWindowNanos) {
+            state.lastBroadcastNanos = now;
+            broadcast(key, true);
+        }
+    }
+
+    // Mesaj gönderildiğinde yazma bitmiş sayılır
+    public void stopped(Long conversationId, Long senderId) {
+        if (conversationId == null || senderId == null) {
+            return;
+        }
+        Key key = new Key(conversationId, senderId);
+        if (states.remove(key) != null) {
+            broadcast(key, false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.typing.sweep-interval-ms:500}")
+    public void expireIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<Key, State> entry : states.entrySet()) {
+            State state = entry.getValue();
+            // remove(key, value): bu arada yeniden başlamışsa aynı nesne olmadığından silinmez
+            if (now - state.lastFrameNanos >= expireNanos && states.remove(entry.getKey(), state)) {
+                broadcast(entry.getKey(), false);
+            }
+        }
+    }
+
+    private void broadcast(Key key, boolean typing) {
+        messagingTemplate.convertAndSend("/topic/conversations/" + key.conversationId() + "/typing",
+                new TypingEvent(key.conversationId(), key.senderId(), typing));
+    }
+}
@@ -1,28 +1,132 @@
 package com.yigitkagan.realtime_chat_backend.presence;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
 
+// HTTP nabızlarıyla çevrimiçi takibi. userId -> son kullanma tick'i primitive bir tabloda,
+// süreler hashed timing wheel'de tutulur: her tick sadece o slottaki kullanıcılara bakılır.
+// Slotta eski nabızlardan kalan kayıtlar olabilir; tablodaki tick eşleşmiyorsa atlanır.
+// Çevrimiçi kümesi burada tutulmaz: nabız PresenceService'te bir oturum gibi sayılır.
 @Service
 public class HeartbeatPresenceService {
 
-    // userId -> lastSeen
-    private final ConcurrentHashMap<Long, Instant> lastSeenMap = new ConcurrentHashMap<>();
+    // Slot içeriği: büyüyen long dizisi
+    private static final class Bucket {
+        private long[] ids = new long[16];
+        private int size;
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    private final PresenceService presenceService;
+    private final PresenceNotifier presenceNotifier;
+    private final LastSeenTracker lastSeenTracker;
+    private final LongSupplier clock;
+    private final long tickMillis;
+    private final long ttlTicks;
+    private final Bucket[] wheel;
+    private final int wheelMask;
+
+    // userId -> son kullanma tick'i
+    private final LongLongHashMap expiries = new LongLongHashMap(1024);
+    private long currentTick;
+
+    @Autowired
+    public HeartbeatPresenceService(PresenceService presenceService,
+                                    PresenceNotifier presenceNotifier,
+                                    LastSeenTracker lastSeenTracker,
+                                    @Value("${app.chat.presence.heartbeat-tick-ms:250}") long tickMillis,
+                                    @Value("${app.chat.presence.heartbeat-ttl-ms:10000}") long ttlMillis) {
+        this(presenceService, presenceNotifier, lastSeenTracker, System::currentTimeMillis, tickMillis, ttlMillis);
+    }
+
+    HeartbeatPresenceService(PresenceService presenceService, PresenceNotifier presenceNotifier,
+                             LastSeenTracker lastSeenTracker, LongSupplier clock, long tickMillis, long ttlMillis) {
+        this.presenceService = presenceService;
+        this.presenceNotifier = presenceNotifier;
+        this.lastSeenTracker = lastSeenTracker;
+        this.clock = clock;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.ttlTicks = Math.max(1, (ttlMillis + this.tickMillis - 1) / this.tickMillis);
+        int slots = Integer.highestOneBit((int) Math.min(1 << 20, ttlTicks * 2)) << 1;
+        this.wheel = new Bucket[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.wheelMask = slots - 1;
+        this.currentTick = clock.getAsLong() / this.tickMillis;
+    }
 
     public void heartbeat(Long userId) {
-        lastSeenMap.put(userId, Instant.now());
+        lastSeenTracker.touch(userId);
+        boolean started;
+        synchronized (this) {
+            long expiry = Math.max(currentTick, clock.getAsLong() / tickMillis) + ttlTicks;
+            long previous = expiries.put(userId, expiry);
+            if (previous != expiry) {
+                wheel[(int) (expiry & wheelMask)].add(userId);
+            }
+            started = previous == LongLongHashMap.MISSING;
+        }
+        if (started) {
+            boolean elsewhere = presenceService.isOnlineRemotely(userId);
+            if (presenceService.heartbeatStarted(userId)) {
+                presenceNotifier.online(userId, elsewhere);
+            }
+        }
+    }
+
+    // Geçen her tick için tek slot işlenir; başka oturumu olmayanlar çevrimdışı olur
+    @Scheduled(fixedRateString = "${app.chat.presence.heartbeat-tick-ms:250}")
+    public void advance() {
+        List<Long> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = clock.getAsLong() / tickMillis;
+            while (currentTick < target) {
+                currentTick++;
+                expireSlot(currentTick, expired);
+            }
+        }
+        for (Long userId : expired) {
+            if (presenceService.heartbeatLapsed(userId)) {
+                presenceNotifier.offline(userId);
+            }
+        }
     }
 
-    public Set<Long> getOnlineUsers(Duration maxAge) {
-        Instant now = Instant.now();
-        return lastSeenMap.entrySet().stream()
-                .filter(entry -> Duration.between(entry.getValue(), now).compareTo(maxAge) <= 0)
-                .map(entry -> entry.getKey())
-                .collect(Collectors.toSet());
+    private void expireSlot(long tick, List<Long> expired) {
+        Bucket bucket = wheel[(int) (tick & wheelMask)];
+        int kept = 0;
+        for (int i = 0; i < bucket.size; i++) {
+            long id = bucket.ids[i];
+            long expiry = expiries.get(id);
+            if (expiry == LongLongHashMap.MISSING || expiry > tick && (expiry & wheelMask) != (tick & wheelMask)) {
+                // Kullanıcı yeniden nabız göndermiş, kaydı başka slotta
+                continue;
+            }
+            if (expiry <= tick) {
+                expiries.remove(id);
+                expired.add(id);
+            } else {
+                // Tur atlamış (gecikmeli tick): aynı slotta sonraki tura kalır
+                bucket.ids[kept++] = id;
+            }
+        }
+        bucket.size = kept;
+        if (bucket.ids.length > 1024 && kept < bucket.ids.length / 4) {
+            bucket.ids = Arrays.copyOf(bucket.ids, Math.max(16, kept * 2));
+        }
     }
 }
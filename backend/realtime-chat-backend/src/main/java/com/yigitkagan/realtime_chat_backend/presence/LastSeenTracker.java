@@ -0,0 +1,191 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Son görülme zamanı bellekte tutulur (userId -> epoch ms); her nabızda DB'ye yazılmaz.
+// Değişenler periyodik olarak tek bir toplu UPDATE ile users.last_seen_at'e yazılır.
+// Yazılmış ve bu düğüme bağlı olmayan kullanıcılar her flush sonunda bellekten atılır.
+@Component
+public class LastSeenTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(LastSeenTracker.class);
+    private static final int FLUSH_CHUNK = 1000;
+
+    // Sadece ileri gider; yeniden başlatma sonrası aynı değerin tekrar yazılması zarar vermez
+    private static final String FLUSH_SQL = """
+            UPDATE users u SET last_seen_at = v.seen_at
+            FROM unnest(?, ?) AS v(id, seen_at)
+            WHERE u.id = v.id AND (u.last_seen_at IS NULL OR u.last_seen_at < v.seen_at)
+            """;
+    private static final String LOAD_SQL = "SELECT id, last_seen_at FROM users WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PresenceService presenceService;
+
+    // userId -> son görülme (DB'den okunanlar da burada önbellekte)
+    private final LongLongHashMap lastSeen = new LongLongHashMap(1024);
+    // Henüz yazılmamış değişiklikler
+    private LongLongHashMap dirty = new LongLongHashMap(256);
+
+    public LastSeenTracker(JdbcTemplate jdbcTemplate, PresenceService presenceService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.presenceService = presenceService;
+    }
+
+    public void touch(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            long previous = lastSeen.get(userId);
+            if (previous == LongLongHashMap.MISSING || previous < now) {
+                lastSeen.put(userId, now);
+                dirty.put(userId, now);
+            }
+        }
+    }
+
+    // Çok kullanıcı için tek çağrı: bellekte olmayanlar tek sorguyla DB'den okunur.
+    // Hiç görülmemiş kullanıcılar sonuçta yer almaz.
+    public Map<Long, Instant> lastSeen(Collection<Long> userIds) {
+        Map<Long, Instant> result = new HashMap<>(userIds.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        synchronized (this) {
+            for (Long userId : userIds) {
+                long millis = lastSeen.get(userId);
+                if (millis != LongLongHashMap.MISSING) {
+                    result.put(userId, Instant.ofEpochMilli(millis));
+                } else {
+                    misses.add(userId);
+                }
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<Long, Instant> loaded = new HashMap<>();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(LOAD_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", misses.toArray()));
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                Timestamp seenAt = rs.getTimestamp("last_seen_at");
+                if (seenAt != null) {
+                    loaded.put(rs.getLong("id"), seenAt.toInstant());
+                }
+            });
+            synchronized (this) {
+                loaded.forEach((userId, seenAt) -> {
+                    // Sorgu sırasında gelen daha yeni bir touch ezilmez
+                    if (lastSeen.get(userId) == LongLongHashMap.MISSING) {
+                        lastSeen.put(userId, seenAt.toEpochMilli());
+                    }
+                });
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    // Entity zaten yüklüyse: bellekteki değer daha yeniyse o döner
+    public Instant lastSeenOr(Long userId, Instant persisted) {
+        long millis;
+        synchronized (this) {
+            millis = lastSeen.get(userId);
+        }
+        if (millis == LongLongHashMap.MISSING || persisted != null && persisted.toEpochMilli() >= millis) {
+            return persisted;
+        }
+        return Instant.ofEpochMilli(millis);
+    }
+
+    // Bağlı kalanlar da her flush'ta "şimdi görüldü" sayılır
+    @Scheduled(fixedDelayString = "${app.chat.presence.last-seen-flush-ms:30000}")
+    public void flush() {
+        Set<Long> online = presenceService.getLocalOnlineUsers();
+        for (Long userId : online) {
+            touch(userId);
+        }
+        try {
+            write();
+        } finally {
+            evictOffline(online);
+        }
+    }
+
+    private void write() {
+        LongLongHashMap pending;
+        synchronized (this) {
+            if (dirty.size() == 0) {
+                return;
+            }
+            pending = dirty;
+            dirty = new LongLongHashMap(Math.max(256, pending.size()));
+        }
+        Long[] ids = new Long[pending.size()];
+        Timestamp[] times = new Timestamp[pending.size()];
+        int[] n = {0};
+        pending.forEachKey(id -> {
+            ids[n[0]] = id;
+            times[n[0]] = new Timestamp(pending.get(id));
+            n[0]++;
+        });
+        try {
+            for (int from = 0; from < ids.length; from += FLUSH_CHUNK) {
+                int to = Math.min(ids.length, from + FLUSH_CHUNK);
+                Object[] chunkIds = Arrays.copyOfRange(ids, from, to);
+                Object[] chunkTimes = Arrays.copyOfRange(times, from, to);
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(FLUSH_SQL);
+                    ps.setArray(1, con.createArrayOf("bigint", chunkIds));
+                    ps.setArray(2, con.createArrayOf("timestamptz", chunkTimes));
+                    return ps;
+                });
+            }
+        } catch (RuntimeException e) {
+            // Yazılamayanlar bir sonraki flush'a kalır
+            synchronized (this) {
+                pending.forEachKey(id -> {
+                    long value = pending.get(id);
+                    long newer = dirty.get(id);
+                    if (newer == LongLongHashMap.MISSING || newer < value) {
+                        dirty.put(id, value);
+                    }
+                });
+            }
+            log.warn("Last-seen flush failed for {} users", ids.length, e);
+        }
+    }
+
+    // Yazılmayı bekleyenler tutulur; atılanlar gerekirse lastSeen() ile DB'den tekrar okunur
+    private synchronized void evictOffline(Set<Long> online) {
+        long[] evicted = new long[lastSeen.size()];
+        int[] n = {0};
+        lastSeen.forEachKey(id -> {
+            if (dirty.get(id) == LongLongHashMap.MISSING && !online.contains(id)) {
+                evicted[n[0]++] = id;
+            }
+        });
+        for (int i = 0; i < n[0]; i++) {
+            lastSeen.remove(evicted[i]);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -2,30 +2,59 @@ package com.yigitkagan.realtime_chat_backend.presence;
 
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RestController
 @RequestMapping("/api/presence")
 public class PresenceController {
 
-    private final HeartbeatPresenceService presenceService;
+    private static final int MAX_LAST_SEEN_IDS = 500;
 
-    public PresenceController(HeartbeatPresenceService presenceService) {
+    private final HeartbeatPresenceService heartbeatPresenceService;
+    private final PresenceService presenceService;
+    private final LastSeenTracker lastSeenTracker;
+
+    public PresenceController(HeartbeatPresenceService heartbeatPresenceService,
+                              PresenceService presenceService,
+                              LastSeenTracker lastSeenTracker) {
+        this.heartbeatPresenceService = heartbeatPresenceService;
         this.presenceService = presenceService;
+        this.lastSeenTracker = lastSeenTracker;
     }
 
     public record HeartbeatRequest(Long userId) {}
 
+    public record LastSeenItem(Long userId, boolean online, Instant lastSeenAt) {}
+
     @PostMapping("/heartbeat")
     public void heartbeat(@RequestBody HeartbeatRequest request) {
         if (request.userId() != null) {
-            presenceService.heartbeat(request.userId());
+            heartbeatPresenceService.heartbeat(request.userId());
         }
     }
     @GetMapping("/online")
     public Set<Long> onlineUsers() {
-        // Son 10 saniyede nabız gönderenleri online say
-        return presenceService.getOnlineUsers(Duration.ofSeconds(10));
+        // WebSocket oturumu ya da son heartbeat-ttl-ms içinde nabzı olanlar (tüm düğümler)
+        return presenceService.getOnlineUsers();
+    }
+
+    // Birden çok kullanıcının son görülmesi tek istekte: /api/presence/last-seen?userIds=1,2,3
+    @GetMapping("/last-seen")
+    public List<LastSeenItem> lastSeen(@RequestParam List<Long> userIds) {
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        if (ids.size() > MAX_LAST_SEEN_IDS) {
+            throw new RuntimeException("En fazla " + MAX_LAST_SEEN_IDS + " kullanıcı sorgulanabilir");
+        }
+        Map<Long, Instant> seen = lastSeenTracker.lastSeen(ids);
+        List<LastSeenItem> items = new ArrayList<>(ids.size());
+        for (Long userId : ids) {
+            items.add(new LastSeenItem(userId, presenceService.isOnline(userId), seen.get(userId)));
+        }
+        return items;
     }
 }
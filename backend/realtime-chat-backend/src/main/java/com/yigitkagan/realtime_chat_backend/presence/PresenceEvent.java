@@ -0,0 +1,20 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import java.util.Set;
+
+// /topic/online-users: sadece değişen kullanıcı gider (ONLINE/OFFLINE).
+// Tam liste (SNAPSHOT) abonelikte bir kez, /app/online-users üzerinden gönderilir.
+public record PresenceEvent(String type, Long userId, Set<Long> userIds) {
+
+    public static PresenceEvent online(Long userId) {
+        return new PresenceEvent("ONLINE", userId, null);
+    }
+
+    public static PresenceEvent offline(Long userId) {
+        return new PresenceEvent("OFFLINE", userId, null);
+    }
+
+    public static PresenceEvent snapshot(Set<Long> userIds) {
+        return new PresenceEvent("SNAPSHOT", null, userIds);
+    }
+}
@@ -1,42 +1,45 @@
 package com.yigitkagan.realtime_chat_backend.presence;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import com.yigitkagan.realtime_chat_backend.message.DeliveryReceiptBatcher;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.util.Set;
-
 @Component
 public class PresenceEventListener {
 
     private final PresenceService presenceService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceNotifier presenceNotifier;
+    private final DeliveryReceiptBatcher deliveryReceiptBatcher;
 
     public PresenceEventListener(PresenceService presenceService,
-                                 SimpMessagingTemplate messagingTemplate) {
+                                 PresenceNotifier presenceNotifier,
+                                 DeliveryReceiptBatcher deliveryReceiptBatcher) {
         this.presenceService = presenceService;
-        this.messagingTemplate = messagingTemplate;
+        this.presenceNotifier = presenceNotifier;
+        this.deliveryReceiptBatcher = deliveryReceiptBatcher;
     }
 
     @EventListener
     public void handleSessionConnected(SessionConnectEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = accessor.getSessionId();
-        String userIdHeader = accessor.getFirstNativeHeader("user-id");
 
-        if (sessionId == null || userIdHeader == null) {
+        // Kullanıcı CONNECT'te doğrulanan token'dan gelir; istemcinin gönderdiği id'ye güvenilmez
+        if (sessionId == null || !(event.getUser() instanceof AuthenticatedUser user)) {
             return;
         }
 
-        try {
-            Long userId = Long.parseLong(userIdHeader);
-            presenceService.userConnected(sessionId, userId);
-            broadcastOnlineUsers();
-        } catch (NumberFormatException ignored) {
+        Long userId = user.id();
+        boolean elsewhere = presenceService.isOnlineRemotely(userId);
+        if (presenceService.userConnected(sessionId, userId)) {
+            presenceNotifier.online(userId, elsewhere);
         }
+        // Çevrimdışıyken gelen mesajlar: satır satır değil, bir sonraki flush'ta toplu olarak iletildi
+        deliveryReceiptBatcher.userConnected(userId);
     }
 
     @EventListener
@@ -47,16 +50,10 @@ public class PresenceEventListener {
             return;
         }
 
-        presenceService.userDisconnected(sessionId);
-        broadcastOnlineUsers();
-    }
-
-    private void broadcastOnlineUsers() {
-        Set<Long> onlineUserIds = presenceService.getOnlineUsers();
-
-        System.out.println("ONLINE USERS: " + onlineUserIds);
-
-        messagingTemplate.convertAndSend("/topic/online-users", onlineUserIds);
+        Long offlineUserId = presenceService.userDisconnected(sessionId);
+        if (offlineUserId != null) {
+            presenceNotifier.offline(offlineUserId);
+        }
     }
 
 }
@@ -0,0 +1,44 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterPresenceRelay;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+// Yerel çevrimiçi/çevrimdışı geçişlerini (oturum ya da nabız) tek yerden duyurur:
+// diğer düğümlere, /topic/online-users abonelerine ve son görülme kaydına
+@Component
+public class PresenceNotifier {
+
+    private final PresenceService presenceService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterPresenceRelay clusterPresenceRelay;
+    private final LastSeenTracker lastSeenTracker;
+
+    public PresenceNotifier(PresenceService presenceService,
+                            SimpMessagingTemplate messagingTemplate,
+                            ClusterPresenceRelay clusterPresenceRelay,
+                            LastSeenTracker lastSeenTracker) {
+        this.presenceService = presenceService;
+        this.messagingTemplate = messagingTemplate;
+        this.clusterPresenceRelay = clusterPresenceRelay;
+        this.lastSeenTracker = lastSeenTracker;
+    }
+
+    // onlineElsewhere: geçişten önce başka düğümde zaten çevrimiçi miydi
+    public void online(Long userId, boolean onlineElsewhere) {
+        lastSeenTracker.touch(userId);
+        clusterPresenceRelay.announce(userId, true);
+        if (!onlineElsewhere) {
+            messagingTemplate.convertAndSend("/topic/online-users", PresenceEvent.online(userId));
+        }
+    }
+
+    public void offline(Long userId) {
+        lastSeenTracker.touch(userId);
+        clusterPresenceRelay.announce(userId, false);
+        // Başka bir düğümde hâlâ bağlıysa çevrimdışı sayılmaz
+        if (!presenceService.isOnlineRemotely(userId)) {
+            messagingTemplate.convertAndSend("/topic/online-users", PresenceEvent.offline(userId));
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.yigitkagan.realtime_chat_backend.presence;
 
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -9,27 +12,107 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class PresenceService {
 
+    // Diğer düğümlerdeki çevrimiçi kullanıcılar; snapshot gelmeyen düğüm süresi dolunca düşer
+    private static final class RemoteNode {
+        private final Set<Long> users = ConcurrentHashMap.newKeySet();
+        private volatile long lastHeardMillis = System.currentTimeMillis();
+    }
+
     // WebSocket sessionId -> userId
     private final Map<String, Long> sessionUserMap = new ConcurrentHashMap<>();
-    // o anda online olan kullanıcı id'leri
-    private final Set<Long> onlineUsers = ConcurrentHashMap.newKeySet();
+    // userId -> bu düğümdeki açık oturum sayısı; anahtarlar o anda online olan kullanıcılar
+    private final Map<Long, Integer> sessionCounts = new ConcurrentHashMap<>();
+    private final Set<Long> onlineUsers = Collections.unmodifiableSet(sessionCounts.keySet());
+    // nodeId -> o düğümün yerel kullanıcıları
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
 
-    public void userConnected(String sessionId, Long userId) {
-        sessionUserMap.put(sessionId, userId);
-        onlineUsers.add(userId);
+    // Kullanıcı bu düğümde yeni çevrimiçi olduysa (ilk oturumu) true
+    public boolean userConnected(String sessionId, Long userId) {
+        Long previous = sessionUserMap.put(sessionId, userId);
+        if (userId.equals(previous)) {
+            return false;
+        }
+        if (previous != null) {
+            release(previous);
+        }
+        return sessionCounts.merge(userId, 1, Integer::sum) == 1;
     }
 
-    public void userDisconnected(String sessionId) {
+    // Kullanıcının bu düğümdeki son oturumu kapandıysa userId, değilse null
+    public Long userDisconnected(String sessionId) {
         Long userId = sessionUserMap.remove(sessionId);
-        if (userId != null) {
-            boolean stillConnected = sessionUserMap.containsValue(userId);
-            if (!stillConnected) {
-                onlineUsers.remove(userId);
+        return userId != null && release(userId) ? userId : null;
+    }
+
+    // HTTP nabzı da bir oturum gibi sayılır; iki sinyal aynı sayaçta birleşir.
+    // Kullanıcı bu düğümde yeni çevrimiçi olduysa true
+    public boolean heartbeatStarted(Long userId) {
+        return sessionCounts.merge(userId, 1, Integer::sum) == 1;
+    }
+
+    // Nabız kesildi; başka oturumu da yoksa true
+    public boolean heartbeatLapsed(Long userId) {
+        return release(userId);
+    }
+
+    // Sayaç sıfıra inerse kullanıcı düşer; true döner
+    private boolean release(Long userId) {
+        return sessionCounts.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null) == null;
+    }
+
+    public boolean isOnline(Long userId) {
+        return sessionCounts.containsKey(userId) || isOnlineRemotely(userId);
+    }
+
+    public boolean isOnlineRemotely(Long userId) {
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.users.contains(userId)) {
+                return true;
             }
         }
+        return false;
     }
 
+    // Tüm cluster (oturum + nabız): tek düğümde yerel küme aynen döner
     public Set<Long> getOnlineUsers() {
+        if (remoteNodes.isEmpty()) {
+            return onlineUsers;
+        }
+        Set<Long> all = new HashSet<>(onlineUsers);
+        for (RemoteNode node : remoteNodes.values()) {
+            all.addAll(node.users);
+        }
+        return all;
+    }
+
+    public Set<Long> getLocalOnlineUsers() {
         return onlineUsers;
     }
+
+    public void remoteUserOnline(String nodeId, Long userId) {
+        RemoteNode node = remoteNodes.computeIfAbsent(nodeId, id -> new RemoteNode());
+        node.users.add(userId);
+        node.lastHeardMillis = System.currentTimeMillis();
+    }
+
+    public void remoteUserOffline(String nodeId, Long userId) {
+        RemoteNode node = remoteNodes.get(nodeId);
+        if (node != null) {
+            node.users.remove(userId);
+            node.lastHeardMillis = System.currentTimeMillis();
+        }
+    }
+
+    public void remoteSnapshot(String nodeId, Set<Long> userIds) {
+        RemoteNode node = remoteNodes.computeIfAbsent(nodeId, id -> new RemoteNode());
+        node.users.retainAll(userIds);
+        node.users.addAll(userIds);
+        node.lastHeardMillis = System.currentTimeMillis();
+    }
+
+    // Kapanan/çöken düğümlerin kullanıcıları; değişiklik olduysa true
+    public boolean expireRemoteNodes(Duration ttl) {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        return remoteNodes.values().removeIf(node -> node.lastHeardMillis < cutoff);
+    }
 }
@@ -0,0 +1,21 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+@Controller
+public class PresenceWebSocketController {
+
+    private final PresenceService presenceService;
+
+    public PresenceWebSocketController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    // Başlangıç listesi sadece abone olan oturuma gider; sonrası /topic/online-users delta'ları.
+    // İstemci önce topic'e, sonra buraya abone olmalı; delta'lar idempotent uygulanır.
+    @SubscribeMapping("/online-users")
+    public PresenceEvent onlineUsers() {
+        return PresenceEvent.snapshot(presenceService.getOnlineUsers());
+    }
+}
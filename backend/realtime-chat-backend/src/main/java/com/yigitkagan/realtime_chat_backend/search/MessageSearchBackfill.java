@@ -0,0 +1,62 @@
+package com.yigitkagan.realtime_chat_backend.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Arama index'i boşsa (ya da app.chat.search.rebuild=true ise) mevcut mesajları
+// id sırasıyla parça parça index'ler. Arka planda çalışır; bu sırada arama kısmi sonuç döner.
+@Component
+public class MessageSearchBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSearchBackfill.class);
+
+    private final MessageSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean rebuild;
+    private final int chunkSize;
+
+    public MessageSearchBackfill(MessageSearchIndex searchIndex,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${app.chat.search.rebuild:false}") boolean rebuild,
+                                 @Value("${app.chat.search.backfill-chunk-size:1000}") int chunkSize) {
+        this.searchIndex = searchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuild = rebuild;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuild) {
+            boolean hasMessages = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM messages)", Boolean.class));
+            if (!hasMessages || !searchIndex.isEmpty()) {
+                return;
+            }
+        }
+        Thread worker = new Thread(this::backfill, "message-search-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void backfill() {
+        long lastId = 0;
+        long chunks = 0;
+        try {
+            // Her parça ayrı bir statement (autocommit): uzun süren tek transaction yok
+            Long next;
+            while ((next = searchIndex.rebuildChunk(lastId, chunkSize)) != null) {
+                lastId = next;
+                chunks++;
+            }
+            log.info("Message search index rebuilt in {} chunks", chunks);
+        } catch (RuntimeException e) {
+            log.error("Message search backfill stopped after id {}", lastId, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.yigitkagan.realtime_chat_backend.search;
+
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/messages")
+public class MessageSearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final MessageSearchIndex searchIndex;
+
+    public MessageSearchController(MessageSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    // ?q=...[&conversationId=...][&limit=20]; sadece oturumdaki kullanıcının sohbetlerinde arar
+    @GetMapping("/search")
+    public List<MessageSearchHit> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Long conversationId,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication
+    ) {
+        Long viewerId = AuthenticatedUser.from(authentication).id();
+        return searchIndex.search(viewerId, q, conversationId, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,14 @@
+package com.yigitkagan.realtime_chat_backend.search;
+
+import java.time.Instant;
+
+// Arama sonucu: istemci seq ile sohbette ilgili mesaja atlayabilir
+public record MessageSearchHit(
+        Long messageId,
+        Long conversationId,
+        Long seq,
+        Long senderId,
+        String content,
+        Instant createdAt,
+        double rank
+) {}
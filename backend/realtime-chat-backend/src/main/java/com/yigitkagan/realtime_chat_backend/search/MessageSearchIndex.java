@@ -0,0 +1,153 @@
+package com.yigitkagan.realtime_chat_backend.search;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Mesajlar için tsvector + GIN index'li yan tablo. Arama maliyeti geçmişin boyuna değil eşleşme sayısına bağlı.
+// Mesaj yazma/düzenleme/silme yolları index'i aynı transaction içinde günceller.
+@Component
+public class MessageSearchIndex {
+
+    public record Entry(long messageId, long conversationId, Long seq, String content) {}
+
+    // AUDIO::, IMAGE::, VIDEO::, DOCUMENT:: gibi medya mesajları aranmaz
+    private static final Pattern MEDIA_CONTENT = Pattern.compile("^[A-Z]+::");
+    private static final String MEDIA_CONTENT_SQL = "'^[A-Z]+::'";
+
+    private static final String UPSERT_PREFIX =
+            "INSERT INTO message_search (message_id, conversation_id, seq, document) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, to_tsvector(CAST(? AS regconfig), ?))";
+    private static final String UPSERT_SUFFIX =
+            " ON CONFLICT (message_id) DO UPDATE SET document = EXCLUDED.document, seq = EXCLUDED.seq";
+
+    private static final String SEARCH_SQL = """
+            SELECT s.message_id, s.conversation_id, s.seq, m.sender_id, m.content, m.created_at,
+                   ts_rank_cd(s.document, q) AS rank
+            FROM message_search s
+            CROSS JOIN websearch_to_tsquery(CAST(? AS regconfig), ?) q
+            JOIN conversations c ON c.id = s.conversation_id
+            JOIN messages m ON m.id = s.message_id
+            WHERE s.document @@ q
+              AND (c.user1_id = ? OR c.user2_id = ?)
+              AND (CAST(? AS bigint) IS NULL OR s.conversation_id = ?)
+              AND m.deleted_for_everyone = false
+              AND NOT EXISTS (SELECT 1 FROM message_deletions d WHERE d.message_id = s.message_id AND d.user_id = ?)
+            ORDER BY rank DESC, s.message_id DESC
+            LIMIT ?
+            """;
+
+    // Bir parça mesajı index'e yazar, silinmişleri çıkarır ve parçanın son id'sini döner
+    private static final String REBUILD_CHUNK_SQL = """
+            WITH chunk AS (
+                SELECT id, conversation_id, seq, content, deleted_for_everyone
+                FROM messages WHERE id > ? ORDER BY id LIMIT ?
+            ), upserted AS (
+                INSERT INTO message_search (message_id, conversation_id, seq, document)
+                SELECT id, conversation_id, seq, to_tsvector(CAST(? AS regconfig), content) FROM chunk
+                WHERE NOT deleted_for_everyone AND content IS NOT NULL AND content !~ %s
+                ON CONFLICT (message_id) DO UPDATE SET document = EXCLUDED.document, seq = EXCLUDED.seq
+            ), removed AS (
+                DELETE FROM message_search
+                WHERE message_id IN (SELECT id FROM chunk WHERE deleted_for_everyone OR content ~ %s)
+            )
+            SELECT max(id) FROM chunk
+            """.formatted(MEDIA_CONTENT_SQL, MEDIA_CONTENT_SQL);
+
+    private static final RowMapper<MessageSearchHit> HIT_ROW = (rs, i) -> new MessageSearchHit(
+            rs.getLong("message_id"),
+            rs.getLong("conversation_id"),
+            (Long) rs.getObject("seq"),
+            rs.getLong("sender_id"),
+            rs.getString("content"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getDouble("rank"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String textSearchConfig;
+
+    public MessageSearchIndex(JdbcTemplate jdbcTemplate,
+                              @Value("${app.chat.search.config:simple}") String textSearchConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.textSearchConfig = textSearchConfig;
+    }
+
+    @PostConstruct
+    void ensureSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS message_search (
+                    message_id bigint PRIMARY KEY,
+                    conversation_id bigint NOT NULL,
+                    seq bigint,
+                    document tsvector NOT NULL
+                )""");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS ix_message_search_document ON message_search USING GIN (document)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS ix_message_search_conversation ON message_search (conversation_id)");
+    }
+
+    public void index(long messageId, long conversationId, Long seq, String content) {
+        indexAll(List.of(new Entry(messageId, conversationId, seq, content)));
+    }
+
+    public void indexAll(List<Entry> entries) {
+        List<Entry> searchable = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            if (isSearchable(e.content())) {
+                searchable.add(e);
+            }
+        }
+        if (searchable.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + UPSERT_SUFFIX.length()
+                + searchable.size() * (UPSERT_ROW.length() + 2));
+        sql.append(UPSERT_PREFIX);
+        Object[] args = new Object[searchable.size() * 5];
+        int i = 0;
+        for (Entry e : searchable) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPSERT_ROW);
+            args[i++] = e.messageId();
+            args[i++] = e.conversationId();
+            args[i++] = e.seq();
+            args[i++] = textSearchConfig;
+            args[i++] = e.content();
+        }
+        sql.append(UPSERT_SUFFIX);
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    public void remove(long messageId) {
+        jdbcTemplate.update("DELETE FROM message_search WHERE message_id = ?", messageId);
+    }
+
+    public List<MessageSearchHit> search(Long viewerId, String query, Long conversationId, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SEARCH_SQL, HIT_ROW,
+                textSearchConfig, query, viewerId, viewerId, conversationId, conversationId, viewerId, limit);
+    }
+
+    // Bir sonraki parçanın başlayacağı id; null ise tablo bitti
+    public Long rebuildChunk(long afterId, int chunkSize) {
+        return jdbcTemplate.queryForObject(REBUILD_CHUNK_SQL, Long.class, afterId, chunkSize, textSearchConfig);
+    }
+
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM message_search)", Boolean.class));
+    }
+
+    private static boolean isSearchable(String content) {
+        return content != null && !content.isBlank() && !MEDIA_CONTENT.matcher(content).find();
+    }
+}
@@ -1,10 +1,12 @@
 package com.yigitkagan.realtime_chat_backend.user;
 
+import com.yigitkagan.realtime_chat_backend.auth.UserCacheInvalidator;
 import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
 @Table(name = "users")
+@EntityListeners({UserCacheInvalidator.class, UserDirectoryListener.class})
 public class User {
 
     @Id
@@ -34,6 +36,9 @@ public class User {
 
     private Instant createdAt;
     private Instant lastLoginAt;
+    // Bellekte tutulur, LastSeenTracker toplu olarak yazar; entity kaydı bu değeri hiç yazmamalı
+    @Column(insertable = false, updatable = false)
+    private Instant lastSeenAt;
 
     @Enumerated(EnumType.STRING)
     private Role role = Role.USER;
@@ -58,6 +63,7 @@ public class User {
     public Instant getCreatedAt() { return createdAt; }
     public Instant getLastLoginAt() { return lastLoginAt; }
     public void setLastLoginAt(Instant lastLoginAt) { this.lastLoginAt = lastLoginAt; }
+    public Instant getLastSeenAt() { return lastSeenAt; }
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
     public String getProfilePictureUrl() { return profilePictureUrl; }
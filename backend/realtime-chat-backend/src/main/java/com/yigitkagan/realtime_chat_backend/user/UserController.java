@@ -1,7 +1,10 @@
 package com.yigitkagan.realtime_chat_backend.user;
 
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
 import com.yigitkagan.realtime_chat_backend.file.FileService;
+import com.yigitkagan.realtime_chat_backend.presence.LastSeenTracker;
 import com.yigitkagan.realtime_chat_backend.presence.PresenceService;
+import com.yigitkagan.realtime_chat_backend.user.UserDTOs.UserDirectoryPage;
 import com.yigitkagan.realtime_chat_backend.user.UserDTOs.UserListItem;
 import com.yigitkagan.realtime_chat_backend.user.UserDTOs.UserMeResponse;
 import org.springframework.http.ResponseEntity;
@@ -16,16 +19,27 @@ import java.util.Set;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_DIRECTORY_PAGE = 200;
+
     private final UserRepository userRepository;
     private final PresenceService presenceService;
     private final FileService fileService;
+    private final LastSeenTracker lastSeenTracker;
+    private final UserDirectory userDirectory;
+    private final UserSummaryCache userSummaryCache;
 
     public UserController(UserRepository userRepository,
                           PresenceService presenceService,
-                          FileService fileService) {
+                          FileService fileService,
+                          LastSeenTracker lastSeenTracker,
+                          UserDirectory userDirectory,
+                          UserSummaryCache userSummaryCache) {
         this.userRepository = userRepository;
         this.presenceService = presenceService;
         this.fileService = fileService;
+        this.lastSeenTracker = lastSeenTracker;
+        this.userDirectory = userDirectory;
+        this.userSummaryCache = userSummaryCache;
     }
 
     // Profil Resmi Yükleme
@@ -34,8 +48,7 @@ public class UserController {
             @RequestParam("file") MultipartFile file,
             Authentication authentication
     ) {
-        String email = (String) authentication.getPrincipal();
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findById(AuthenticatedUser.from(authentication).id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String imageUrl;
@@ -47,6 +60,7 @@ public class UserController {
 
         user.setProfilePictureUrl(imageUrl);
         userRepository.save(user);
+        userSummaryCache.invalidate(user.getId());
         return ResponseEntity.ok(new UserMeResponse(
                 user.getId(),
                 user.getEmail(),
@@ -60,28 +74,42 @@ public class UserController {
         ));
     }
     // Kullanıcı Listesi (Gizlilik Ayarına Göre Filtreli)
+    // Eski istemciler için tüm liste; DB yerine rehber index'inden okunur
     @GetMapping
     public List<UserListItem> listUsers(Authentication authentication) {
-        String currentEmail = (String) authentication.getPrincipal();
-
-        return userRepository.findAllByIsActivatedTrue()
-                .stream()
-                .filter(u -> !u.getEmail().equals(currentEmail))
-                .map(u -> {
-                    //  GİZLİLİK MANTIĞI:
-                    // Eğer kullanıcı numarasını gizlediyse, boş string veya "Gizli" dön.
-                    String phoneToSend = u.isPhoneNumberVisible() ? u.getPhoneNumber() : "";
-
-                    return new UserListItem(
-                            u.getId(),
-                            u.getEmail(),
-                            u.getDisplayName(),
-                            u.getProfilePictureUrl(),
-                            u.getAbout(),
-                            phoneToSend
-                    );
-                })
-                .toList();
+        Long currentUserId = AuthenticatedUser.from(authentication).id();
+        return toItems(userDirectory.page("", null, Integer.MAX_VALUE, currentUserId).entries());
+    }
+
+    // Sayfalı rehber: görünen ad ya da (görünürse) telefon numarası önekiyle arama
+    @GetMapping("/directory")
+    public UserDirectoryPage directory(
+            @RequestParam(required = false, defaultValue = "") String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication
+    ) {
+        Long currentUserId = AuthenticatedUser.from(authentication).id();
+        int size = Math.max(1, Math.min(limit, MAX_DIRECTORY_PAGE));
+        UserDirectory.DirectoryPage page = userDirectory.page(q, cursor, size, currentUserId);
+        return new UserDirectoryPage(toItems(page.entries()), page.nextCursor());
+    }
+
+    private List<UserListItem> toItems(List<UserSummary> entries) {
+        return entries.stream().map(this::toItem).toList();
+    }
+
+    //  GİZLİLİK MANTIĞI: numarasını gizleyen kullanıcı için özette zaten boş string tutulur
+    private UserListItem toItem(UserSummary u) {
+        return new UserListItem(
+                u.id(),
+                u.email(),
+                u.displayName(),
+                u.profilePictureUrl(),
+                u.about(),
+                u.visiblePhoneNumber(),
+                lastSeenTracker.lastSeenOr(u.id(), u.lastSeenAt())
+        );
     }
 
     // Profil güncelleme
@@ -90,8 +118,7 @@ public class UserController {
             @RequestBody UpdateProfileRequest request,
             Authentication authentication
     ) {
-        String email = (String) authentication.getPrincipal();
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findById(AuthenticatedUser.from(authentication).id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (request.getDisplayName() != null && !request.getDisplayName().isBlank()) {
@@ -111,6 +138,7 @@ public class UserController {
         }
 
         userRepository.save(user);
+        userSummaryCache.invalidate(user.getId());
 
         return new UserMeResponse(
                 user.getId(),
@@ -127,8 +155,7 @@ public class UserController {
 
     @GetMapping("/me")
     public UserMeResponse me(Authentication authentication) {
-        String email = (String) authentication.getPrincipal();
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findById(AuthenticatedUser.from(authentication).id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         return new UserMeResponse(
@@ -151,18 +178,6 @@ public class UserController {
 
     @GetMapping("/{userId}")
     public UserListItem getUserPublicInfo(@PathVariable Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Kullanıcı bulunamadı"));
-
-        String phoneToSend = user.isPhoneNumberVisible() ? user.getPhoneNumber() : "";
-
-        return new UserListItem(
-                user.getId(),
-                user.getEmail(),
-                user.getDisplayName(),
-                user.getProfilePictureUrl(),
-                user.getAbout(),
-                phoneToSend
-        );
+        return toItem(userSummaryCache.require(userId));
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.yigitkagan.realtime_chat_backend.user;
 
+import java.time.Instant;
+import java.util.List;
+
 public class UserDTOs {
 
     public record UserMeResponse(
@@ -34,6 +37,13 @@ public class UserDTOs {
             String displayName,
             String profilePictureUrl,
             String about,
-            String phoneNumber
+            String phoneNumber,
+            Instant lastSeen
+    ) {}
+
+    // Rehber sayfası; nextCursor null ise son sayfa
+    public record UserDirectoryPage(
+            List<UserListItem> items,
+            String nextCursor
     ) {}
 }
\ No newline at end of file
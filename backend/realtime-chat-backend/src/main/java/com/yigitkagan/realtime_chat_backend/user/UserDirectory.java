@@ -0,0 +1,154 @@
+package com.yigitkagan.realtime_chat_backend.user;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Aktif kullanıcı rehberi: görünen ad ve (görünürse) telefon numarası üzerinde sıralı bellek içi index.
+// Anahtar: tür + normalize edilmiş terim + id; önek araması tailMap ile yapılır.
+// İmleç son dönen anahtardır; araya ekleme/silme olsa da sayfalar kaymaz ve tekrar etmez.
+@Component
+public class UserDirectory {
+
+    public record DirectoryPage(List<UserSummary> entries, String nextCursor) {}
+
+    private record Indexed(UserSummary entry, String nameKey, String phoneKey) {}
+
+    private static final char NAME = 'n';
+    private static final char PHONE = 'p';
+    private static final char SEPARATOR = '\u0000';
+
+    private final UserRepository userRepository;
+    private final ConcurrentSkipListMap<String, Long> index = new ConcurrentSkipListMap<>();
+    private final Map<Long, Indexed> users = new ConcurrentHashMap<>();
+
+    public UserDirectory(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        Gauge.builder("chat.users.directory.size", users, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        for (User user : userRepository.findAllByIsActivatedTrue()) {
+            put(UserSummary.of(user));
+        }
+    }
+
+    // Profil güncellemesi ve aktivasyon UserDirectoryListener üzerinden gelir
+    synchronized void put(UserSummary entry) {
+        removeKeys(users.get(entry.id()));
+        String nameKey = key(NAME, fold(entry.displayName()), entry.id());
+        String phoneDigits = digits(entry.visiblePhoneNumber());
+        String phoneKey = phoneDigits.isEmpty() ? null : key(PHONE, phoneDigits, entry.id());
+        users.put(entry.id(), new Indexed(entry, nameKey, phoneKey));
+        index.put(nameKey, entry.id());
+        if (phoneKey != null) {
+            index.put(phoneKey, entry.id());
+        }
+    }
+
+    public synchronized void remove(Long userId) {
+        removeKeys(users.remove(userId));
+    }
+
+    // Başka düğümde değişen kullanıcı: güncel hali DB'den okunur
+    public void refresh(Long userId) {
+        userRepository.findById(userId)
+                .filter(User::isActivated)
+                .ifPresentOrElse(user -> put(UserSummary.of(user)), () -> remove(userId));
+    }
+
+    // Boş sorgu tüm rehberi ada göre listeler. Sadece rakamdan oluşan sorgu telefonla da eşleşir;
+    // adı zaten eşleşen kullanıcı telefon bölümünde tekrar dönmez.
+    public DirectoryPage page(String query, String cursor, int limit, Long excludeUserId) {
+        String folded = fold(query);
+        String phoneDigits = folded.isEmpty() || !folded.chars().allMatch(c -> Character.isDigit(c) || c == '+' || c == ' ')
+                ? "" : digits(folded);
+        String after = decodeCursor(cursor);
+
+        List<UserSummary> entries = new ArrayList<>(Math.min(limit, 256));
+        String last = null;
+        String[] prefixes = phoneDigits.isEmpty()
+                ? new String[]{NAME + folded}
+                : new String[]{NAME + folded, PHONE + phoneDigits};
+        for (String prefix : prefixes) {
+            boolean phoneSegment = prefix.charAt(0) == PHONE;
+            Map<String, Long> tail = after != null && after.compareTo(prefix) >= 0
+                    ? index.tailMap(after, false)
+                    : index.tailMap(prefix, true);
+            for (Map.Entry<String, Long> e : tail.entrySet()) {
+                String key = e.getKey();
+                if (!key.startsWith(prefix)) {
+                    break;
+                }
+                Indexed indexed = users.get(e.getValue());
+                // Okuma kilitsiz; o an güncellenen kullanıcının eski anahtarı atlanır
+                if (indexed == null || !key.equals(phoneSegment ? indexed.phoneKey() : indexed.nameKey())
+                        || indexed.entry().id().equals(excludeUserId)
+                        || phoneSegment && indexed.nameKey().startsWith(NAME + folded)) {
+                    continue;
+                }
+                if (entries.size() == limit) {
+                    return new DirectoryPage(entries, encodeCursor(last));
+                }
+                entries.add(indexed.entry());
+                last = key;
+            }
+        }
+        return new DirectoryPage(entries, null);
+    }
+
+    private void removeKeys(Indexed indexed) {
+        if (indexed == null) {
+            return;
+        }
+        index.remove(indexed.nameKey());
+        if (indexed.phoneKey() != null) {
+            index.remove(indexed.phoneKey());
+        }
+    }
+
+    // Id sıfırla doldurulur; aynı terimdeki kullanıcılar id sırasıyla gelir
+    private static String key(char type, String term, Long id) {
+        return type + term + SEPARATOR + String.format("%019d", id);
+    }
+
+    // Büyük/küçük harf ve aksan duyarsız: "Şule" -> "sule", "IŞIK" -> "isik"
+    static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.strip().toLowerCase(Locale.ROOT).replace('ı', 'i');
+        return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private static String digits(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Geçersiz imleç");
+        }
+    }
+}
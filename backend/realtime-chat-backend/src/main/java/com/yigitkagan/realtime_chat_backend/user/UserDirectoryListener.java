@@ -0,0 +1,66 @@
+package com.yigitkagan.realtime_chat_backend.user;
+
+import com.yigitkagan.realtime_chat_backend.cluster.ClusterCacheRelay;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// User entity listener'ı: rehber index'i commit sonrası güncellenir; geri alınan değişiklik rehbere girmez.
+// Değişiklik diğer düğümlere de duyurulur (ClusterCacheRelay).
+@Component
+public class UserDirectoryListener {
+
+    // Listener EntityManagerFactory kurulurken oluşturulur; UserDirectory ise UserRepository'ye,
+    // o da EntityManagerFactory'ye bağlı. Döngü olmasın diye rehber ilk olayda çözülür.
+    private final ObjectProvider<UserDirectory> directoryProvider;
+    private final ObjectProvider<ClusterCacheRelay> relayProvider;
+
+    public UserDirectoryListener(ObjectProvider<UserDirectory> directoryProvider,
+                                 ObjectProvider<ClusterCacheRelay> relayProvider) {
+        this.directoryProvider = directoryProvider;
+        this.relayProvider = relayProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void userSaved(User user) {
+        // Alanlar şimdi kopyalanır; commit'e kadar entity değişebilir
+        UserSummary entry = UserSummary.of(user);
+        boolean activated = user.isActivated();
+        afterCommit(() -> {
+            UserDirectory directory = directoryProvider.getObject();
+            if (activated) {
+                directory.put(entry);
+            } else {
+                directory.remove(entry.id());
+            }
+            relayProvider.getObject().userChanged(entry.id());
+        });
+    }
+
+    @PostRemove
+    void userRemoved(User user) {
+        Long userId = user.getId();
+        afterCommit(() -> {
+            directoryProvider.getObject().remove(userId);
+            relayProvider.getObject().userChanged(userId);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.yigitkagan.realtime_chat_backend.user;
+
+import java.time.Instant;
+
+// Kullanıcının herkese açık, değişmez görüntüsü (gizli telefon boş string). Rehber ve önbellek bunu tutar.
+public record UserSummary(
+        Long id,
+        String email,
+        String displayName,
+        String profilePictureUrl,
+        String about,
+        String visiblePhoneNumber,
+        Instant lastSeenAt
+) {
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getEmail(), user.getDisplayName(),
+                user.getProfilePictureUrl(), user.getAbout(),
+                user.isPhoneNumberVisible() ? user.getPhoneNumber() : "", user.getLastSeenAt());
+    }
+}
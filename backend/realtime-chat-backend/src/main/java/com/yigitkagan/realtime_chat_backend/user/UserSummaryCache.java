@@ -0,0 +1,39 @@
+package com.yigitkagan.realtime_chat_backend.user;
+
+import com.yigitkagan.realtime_chat_backend.cache.SnapshotCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Gönderim yolunda ve profil okumalarında User satırı yerine kullanılan özet önbelleği.
+// Profil yazan yerler invalidate çağırır, diğer düğümlerdeki kopyalar ClusterCacheRelay ile düşer;
+// kaçan bir değişiklik en geç ttl sonunda düzelir.
+@Component
+public class UserSummaryCache {
+
+    private final SnapshotCache<Long, UserSummary> cache;
+
+    public UserSummaryCache(UserRepository userRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.chat.cache.users.max-entries:50000}") int maxEntries,
+                            @Value("${app.chat.cache.users.ttl-ms:600000}") long ttlMillis) {
+        this.cache = new SnapshotCache<>("user_summary", maxEntries, ttlMillis, meterRegistry,
+                id -> userRepository.findById(id).map(UserSummary::of).orElse(null));
+    }
+
+    public UserSummary get(Long userId) {
+        return cache.get(userId);
+    }
+
+    public UserSummary require(Long userId) {
+        UserSummary summary = cache.get(userId);
+        if (summary == null) {
+            throw new RuntimeException("Kullanıcı bulunamadı");
+        }
+        return summary;
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Broker'dan geçen yayın: nesne bir kez oluşturulur, her format en fazla bir kez kodlanır.
+// Aynı nesne birden fazla hedefe gönderilirse (sohbet + bildirim) kodlama da paylaşılır;
+// aynı formattaki tüm abonelere aynı byte dizisi gider, bu yüzden dönen dizi değiştirilmemeli.
+public final class BroadcastPayload {
+
+    private final Object value;
+    private final Map<PayloadFormat, byte[]> encoded = new EnumMap<>(PayloadFormat.class);
+
+    public BroadcastPayload(Object value) {
+        this.value = value;
+    }
+
+    public static BroadcastPayload of(Object value) {
+        return value instanceof BroadcastPayload payload ? payload : new BroadcastPayload(value);
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    public byte[] bytes(PayloadFormat format, PayloadCodec codec) {
+        synchronized (encoded) {
+            return encoded.computeIfAbsent(format, f -> codec.encode(value, f));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastPayload[" + value.getClass().getSimpleName() + "]";
+    }
+}
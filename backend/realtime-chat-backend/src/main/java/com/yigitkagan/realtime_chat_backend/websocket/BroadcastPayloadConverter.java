@@ -0,0 +1,32 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+// convertAndSend ile gönderilen nesneleri hemen JSON'a çevirmez; kodlama aboneye giderken,
+// oturumun formatına göre yapılır (bkz. PayloadFormatInterceptor).
+// String ve byte[] yükleri varsayılan converter'lara bırakılır; gelen mesajların okunmasına karışmaz.
+public class BroadcastPayloadConverter implements MessageConverter {
+
+    @Override
+    public Object fromMessage(Message<?> message, Class<?> targetClass) {
+        return null;
+    }
+
+    @Override
+    public Message<?> toMessage(Object payload, MessageHeaders headers) {
+        if (payload instanceof String || payload instanceof byte[]) {
+            return null;
+        }
+        BroadcastPayload broadcast = BroadcastPayload.of(payload);
+        MessageHeaderAccessor accessor = headers != null
+                ? MessageHeaderAccessor.getAccessor(headers, MessageHeaderAccessor.class) : null;
+        if (accessor != null && accessor.isMutable()) {
+            return MessageBuilder.createMessage(broadcast, accessor.getMessageHeaders());
+        }
+        return MessageBuilder.withPayload(broadcast).copyHeaders(headers).build();
+    }
+}
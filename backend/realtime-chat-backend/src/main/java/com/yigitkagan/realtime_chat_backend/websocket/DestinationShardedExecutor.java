@@ -0,0 +1,88 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// brokerChannel executor'ı: yayınlar hedefe göre çekirdek sayısı kadar tek thread'li shard'a dağıtılır.
+// Aynı hedefe giden mesajlar hep aynı shard'da işlenir, yani hedef içi sıra korunur.
+@Component
+public class DestinationShardedExecutor implements TaskExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationShardedExecutor.class);
+
+    private final Thread[] threads;
+    private final BlockingQueue<Runnable>[] queues;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public DestinationShardedExecutor(MeterRegistry meterRegistry,
+                                      @Value("${app.chat.broker.shards:0}") int shards,
+                                      @Value("${app.chat.broker.shard-queue-capacity:10000}") int queueCapacity) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.threads = new Thread[count];
+        this.queues = new BlockingQueue[count];
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            queues[i] = queue;
+            threads[i] = new Thread(() -> runShard(queue), "broker-shard-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+            Gauge.builder("chat.broker.shard.queued", queue, BlockingQueue::size)
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    public int shardCount() {
+        return queues.length;
+    }
+
+    public static int shardOf(String destination, int shardCount) {
+        return destination != null ? Math.floorMod(destination.hashCode(), shardCount) : 0;
+    }
+
+    // Shard kuyruğu doluysa yayınlayan bekler; yük DB/istek thread'lerine geri yansır
+    @Override
+    public void execute(Runnable task) {
+        Message<?> message = task instanceof MessageHandlingRunnable runnable ? runnable.getMessage() : null;
+        String destination = message != null ? SimpMessageHeaderAccessor.getDestination(message.getHeaders()) : null;
+        try {
+            queues[shardOf(destination, queues.length)].put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Broker shard kuyruğuna eklenemedi", e);
+        }
+    }
+
+    private void runShard(BlockingQueue<Runnable> queue) {
+        while (running) {
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Broker dispatch failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+}
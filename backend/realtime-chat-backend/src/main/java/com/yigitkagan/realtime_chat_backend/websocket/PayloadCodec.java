@@ -0,0 +1,66 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Yayın nesnelerini istenen formata çevirir.
+// CBOR tarafında zamanlar ISO metin yerine epoch milisaniye olarak yazılır.
+// Her kodlamada üretilen bayt ve thread'in ayırdığı heap ölçülür; abone sayısıyla artmamalı.
+@Component
+public class PayloadCodec {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadAllocationBean();
+
+    private final JsonMapper jsonMapper;
+    private final CBORMapper cborMapper;
+    private final Map<PayloadFormat, Counter> encodings = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, DistributionSummary> encodedBytes = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, DistributionSummary> allocatedBytes = new EnumMap<>(PayloadFormat.class);
+
+    public PayloadCodec(JsonMapper jsonMapper, MeterRegistry meterRegistry) {
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = CBORMapper.builder()
+                .enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DateTimeFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build();
+        for (PayloadFormat format : PayloadFormat.values()) {
+            String tag = format.name().toLowerCase();
+            encodings.put(format, meterRegistry.counter("chat.broadcast.encodings", "format", tag));
+            encodedBytes.put(format, DistributionSummary.builder("chat.broadcast.encoded")
+                    .baseUnit("bytes").tag("format", tag).register(meterRegistry));
+            allocatedBytes.put(format, DistributionSummary.builder("chat.broadcast.encode.allocated")
+                    .baseUnit("bytes").tag("format", tag).register(meterRegistry));
+        }
+    }
+
+    public byte[] encode(Object value, PayloadFormat format) {
+        long before = THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+        byte[] bytes = switch (format) {
+            case JSON -> jsonMapper.writeValueAsBytes(value);
+            case CBOR -> cborMapper.writeValueAsBytes(value);
+        };
+        if (before >= 0) {
+            allocatedBytes.get(format).record(THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        encodings.get(format).increment();
+        encodedBytes.get(format).record(bytes.length);
+        return bytes;
+    }
+
+    private static com.sun.management.ThreadMXBean threadAllocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+}
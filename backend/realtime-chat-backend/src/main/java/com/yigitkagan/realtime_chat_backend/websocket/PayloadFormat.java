@@ -0,0 +1,33 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import org.springframework.util.MimeType;
+
+// İstemcinin CONNECT sırasında seçtiği yayın formatı; belirtilmezse JSON
+public enum PayloadFormat {
+    JSON(new MimeType("application", "json")),
+    CBOR(new MimeType("application", "cbor"));
+
+    // CONNECT frame'indeki native header: "accept-format: cbor"
+    public static final String HEADER = "accept-format";
+
+    private final MimeType contentType;
+
+    PayloadFormat(MimeType contentType) {
+        this.contentType = contentType;
+    }
+
+    public MimeType contentType() {
+        return contentType;
+    }
+
+    public static PayloadFormat fromHeader(String value) {
+        if (value != null) {
+            for (PayloadFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
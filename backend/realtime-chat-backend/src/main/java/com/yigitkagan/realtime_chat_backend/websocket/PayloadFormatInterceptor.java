@@ -0,0 +1,46 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+// clientOutboundChannel: yayın nesnesini abone oturumunun formatında byte'lara çevirir.
+// Kodlama yayın başına bir kez yapılır; abone başına sadece header'lar ayarlanır.
+@Component
+public class PayloadFormatInterceptor implements ChannelInterceptor {
+
+    private final PayloadFormatRegistry formatRegistry;
+    private final PayloadCodec codec;
+    private final Counter frames;
+    private final Counter frameBytes;
+
+    public PayloadFormatInterceptor(PayloadFormatRegistry formatRegistry, PayloadCodec codec,
+                                    MeterRegistry meterRegistry) {
+        this.formatRegistry = formatRegistry;
+        this.codec = codec;
+        this.frames = meterRegistry.counter("chat.broadcast.frames");
+        this.frameBytes = meterRegistry.counter("chat.broadcast.frame.bytes");
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!(message.getPayload() instanceof BroadcastPayload broadcast)) {
+            return message;
+        }
+        // Broker abone başına mesajı değiştirilebilir header'larla üretir; kopya sadece gerekirse alınır
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message) instanceof SimpMessageHeaderAccessor simp
+                ? simp : SimpMessageHeaderAccessor.wrap(message);
+        PayloadFormat format = formatRegistry.formatOf(accessor.getSessionId());
+        byte[] bytes = broadcast.bytes(format, codec);
+        accessor.setContentType(format.contentType());
+        frames.increment();
+        frameBytes.increment(bytes.length);
+        return MessageBuilder.createMessage(bytes, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,41 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Oturum başına yayın formatı; sadece JSON dışı seçenler tutulur
+@Component
+public class PayloadFormatRegistry {
+
+    private final Map<String, PayloadFormat> formats = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void handleSessionConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        if (sessionId != null) {
+            register(sessionId, PayloadFormat.fromHeader(accessor.getFirstNativeHeader(PayloadFormat.HEADER)));
+        }
+    }
+
+    void register(String sessionId, PayloadFormat format) {
+        if (format != PayloadFormat.JSON) {
+            formats.put(sessionId, format);
+        }
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        formats.remove(event.getSessionId());
+    }
+
+    public PayloadFormat formatOf(String sessionId) {
+        return sessionId != null ? formats.getOrDefault(sessionId, PayloadFormat.JSON) : PayloadFormat.JSON;
+    }
+}
@@ -0,0 +1,247 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// clientOutboundChannel executor'ı: her oturumun kendi sınırlı kuyruğu var ve sırası korunur.
+// Yavaş bir istemcinin frame'leri sadece kendi kuyruğunda birikir; ortak thread'ler oturumlar arasında dönüşümlü çalışır.
+@Component
+public class SessionOutboundExecutor implements TaskExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutboundExecutor.class);
+    private static final int DRAIN_BATCH = 64;
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+    private record Frame(Runnable task, boolean droppable) {}
+
+    private final class Outbox {
+        private final String sessionId;
+        private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closing;
+
+        private Outbox(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+
+    private final ExecutorService workers;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+    private final List<String> droppableDestinations;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    private final Counter droppedDroppable;
+    private final Counter droppedOverflow;
+    private final Counter droppedClosing;
+    private final Counter disconnects;
+
+    public SessionOutboundExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.chat.broker.outbound-threads:0}") int threads,
+                                   @Value("${app.chat.broker.outbound-queue-capacity:1000}") int capacity,
+                                   @Value("${app.chat.broker.slow-consumer-policy:DROP_THEN_DISCONNECT}") SlowConsumerPolicy policy,
+                                   @Value("${app.chat.broker.droppable-destinations:/topic/online-users,/topic/conversations/*/typing}")
+                                   List<String> droppableDestinations) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "ws-outbound-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.droppableDestinations = List.copyOf(droppableDestinations);
+        this.droppedDroppable = meterRegistry.counter("chat.broker.outbound.dropped", "reason", "droppable");
+        this.droppedOverflow = meterRegistry.counter("chat.broker.outbound.dropped", "reason", "overflow");
+        this.droppedClosing = meterRegistry.counter("chat.broker.outbound.dropped", "reason", "closing");
+        this.disconnects = meterRegistry.counter("chat.broker.slow_consumer.disconnects");
+        Gauge.builder("chat.broker.outbound.queued", this, SessionOutboundExecutor::queuedFrames).register(meterRegistry);
+        Gauge.builder("chat.broker.outbound.max_depth", this, SessionOutboundExecutor::maxDepth).register(meterRegistry);
+        Gauge.builder("chat.broker.outbound.sessions", outboxes, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Message<?> message = task instanceof MessageHandlingRunnable runnable ? runnable.getMessage() : null;
+        String sessionId = message != null ? SimpMessageHeaderAccessor.getSessionId(message.getHeaders()) : null;
+        if (sessionId == null) {
+            workers.execute(task);
+            return;
+        }
+        Outbox outbox = outboxes.get(sessionId);
+        if (outbox == null) {
+            // Kuyruk CONNECTED frame'iyle açılır; kapanmış oturumlara geç kalan frame'ler için yeniden açılmaz
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.CONNECT_ACK) {
+                workers.execute(task);
+                return;
+            }
+            outbox = outboxes.computeIfAbsent(sessionId, Outbox::new);
+        }
+        offer(outbox, new Frame(task, isDroppable(message)),
+                task instanceof MessageHandlingRunnable runnable ? runnable.getMessageHandler() : null);
+    }
+
+    private void offer(Outbox outbox, Frame frame, MessageHandler handler) {
+        synchronized (outbox) {
+            if (outbox.closing) {
+                droppedClosing.increment();
+                return;
+            }
+            if (outbox.queue.size() >= capacity && !makeRoom(outbox, frame, handler)) {
+                return;
+            }
+            outbox.queue.addLast(frame);
+            schedule(outbox);
+        }
+    }
+
+    // Kuyruk dolu: politikaya göre yer açar; frame kuyruğa girmeyecekse false döner
+    private boolean makeRoom(Outbox outbox, Frame frame, MessageHandler handler) {
+        if (policy == SlowConsumerPolicy.DROP_THEN_DISCONNECT || policy == SlowConsumerPolicy.DROP) {
+            if (frame.droppable()) {
+                droppedDroppable.increment();
+                return false;
+            }
+            for (Iterator<Frame> it = outbox.queue.iterator(); it.hasNext(); ) {
+                if (it.next().droppable()) {
+                    it.remove();
+                    droppedDroppable.increment();
+                    return true;
+                }
+            }
+            if (policy == SlowConsumerPolicy.DROP) {
+                droppedOverflow.increment();
+                return false;
+            }
+        }
+        // Oturum yetişemiyor: bekleyenler atılır, sadece kapatma frame'i gönderilir
+        droppedOverflow.increment(outbox.queue.size() + 1);
+        outbox.queue.clear();
+        outbox.closing = true;
+        disconnects.increment();
+        log.warn("Closing slow STOMP session {}: outbound queue exceeded {} frames", outbox.sessionId, capacity);
+        if (handler != null) {
+            Message<byte[]> disconnect = disconnectMessage(outbox.sessionId);
+            outbox.queue.addLast(new Frame(() -> handler.handleMessage(disconnect), false));
+            schedule(outbox);
+        }
+        return false;
+    }
+
+    private void schedule(Outbox outbox) {
+        if (!outbox.scheduled) {
+            outbox.scheduled = true;
+            workers.execute(() -> drain(outbox));
+        }
+    }
+
+    // Oturum başına tek seferde en fazla DRAIN_BATCH frame; kalan varsa diğer oturumlara sıra verilir
+    private void drain(Outbox outbox) {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Frame frame;
+            synchronized (outbox) {
+                frame = outbox.queue.pollFirst();
+                if (frame == null) {
+                    outbox.scheduled = false;
+                    return;
+                }
+            }
+            try {
+                frame.task().run();
+            } catch (RuntimeException e) {
+                log.debug("Failed to send frame to session {}", outbox.sessionId, e);
+            }
+        }
+        synchronized (outbox) {
+            if (outbox.queue.isEmpty()) {
+                outbox.scheduled = false;
+            } else {
+                workers.execute(() -> drain(outbox));
+            }
+        }
+    }
+
+    private boolean isDroppable(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : droppableDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // STOMP tarafında ERROR frame'ine çevrilir ve WebSocket oturumu kapatılır
+    private static Message<byte[]> disconnectMessage(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT_ACK);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        Outbox outbox = outboxes.remove(event.getSessionId());
+        if (outbox != null) {
+            synchronized (outbox) {
+                outbox.closing = true;
+                outbox.queue.clear();
+            }
+        }
+    }
+
+    private double queuedFrames() {
+        long total = 0;
+        for (Outbox outbox : outboxes.values()) {
+            synchronized (outbox) {
+                total += outbox.queue.size();
+            }
+        }
+        return total;
+    }
+
+    private double maxDepth() {
+        int max = 0;
+        for (Outbox outbox : outboxes.values()) {
+            synchronized (outbox) {
+                max = Math.max(max, outbox.queue.size());
+            }
+        }
+        return max;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
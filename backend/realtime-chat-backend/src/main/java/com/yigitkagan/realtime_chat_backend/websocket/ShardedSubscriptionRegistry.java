@@ -0,0 +1,113 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Abonelikler hedefe göre shard'lanır (DestinationShardedExecutor ile aynı dağılım).
+// Her hedefin abone listesi değişmez bir kopya olarak tutulur: okuma kilitsiz, yazma sadece o shard'ı kilitler.
+// Sadece birebir hedef eşleşmesi desteklenir; istemci joker karakterli abonelik kullanmıyor.
+public class ShardedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> EMPTY =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final Map<String, MultiValueMap<String, String>>[] shards;
+    // sessionId -> (subscriptionId -> hedef); oturum kapanınca tüm abonelikleri bulmak için
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public ShardedSubscriptionRegistry(int shardCount, MeterRegistry meterRegistry) {
+        this.shards = new Map[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        Gauge.builder("chat.broker.subscriptions", this, ShardedSubscriptionRegistry::subscriptionCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+                                           Message<?> message) {
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        Map<String, MultiValueMap<String, String>> shard = shardFor(destination);
+        synchronized (shard) {
+            MultiValueMap<String, String> copy = copyOf(shard.getOrDefault(destination, EMPTY));
+            copy.add(sessionId, subscriptionId);
+            shard.put(destination, CollectionUtils.unmodifiableMultiValueMap(copy));
+        }
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            remove(sessionId, subscriptionId, destination);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> remove(sessionId, subscriptionId, destination));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        return shardFor(destination).getOrDefault(destination, EMPTY);
+    }
+
+    private void remove(String sessionId, String subscriptionId, String destination) {
+        Map<String, MultiValueMap<String, String>> shard = shardFor(destination);
+        synchronized (shard) {
+            MultiValueMap<String, String> current = shard.get(destination);
+            if (current == null) {
+                return;
+            }
+            MultiValueMap<String, String> copy = copyOf(current);
+            List<String> ids = copy.get(sessionId);
+            if (ids != null) {
+                ids.remove(subscriptionId);
+                if (ids.isEmpty()) {
+                    copy.remove(sessionId);
+                }
+            }
+            if (copy.isEmpty()) {
+                shard.remove(destination);
+            } else {
+                shard.put(destination, CollectionUtils.unmodifiableMultiValueMap(copy));
+            }
+        }
+    }
+
+    // Değer listeleri de kopyalanır; yayınlanmış map hiç değişmemeli
+    private static MultiValueMap<String, String> copyOf(MultiValueMap<String, String> source) {
+        MultiValueMap<String, String> copy = new LinkedMultiValueMap<>(source.size() + 1);
+        source.forEach((sessionId, ids) -> copy.put(sessionId, new ArrayList<>(ids)));
+        return copy;
+    }
+
+    private Map<String, MultiValueMap<String, String>> shardFor(String destination) {
+        return shards[DestinationShardedExecutor.shardOf(destination, shards.length)];
+    }
+
+    private double subscriptionCount() {
+        long count = 0;
+        for (Map<String, String> subscriptions : sessions.values()) {
+            count += subscriptions.size();
+        }
+        return count;
+    }
+}
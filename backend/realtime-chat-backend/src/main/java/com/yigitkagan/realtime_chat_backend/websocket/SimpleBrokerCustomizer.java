@@ -0,0 +1,34 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.stereotype.Component;
+
+// Spring'in simple broker'ı CONNECT/DISCONNECT ve heartbeat işini yapmaya devam eder;
+// abonelik tablosu broker başlamadan önce shard'lı olanla değiştirilir
+@Component
+public class SimpleBrokerCustomizer implements SmartInitializingSingleton {
+
+    private final AbstractBrokerMessageHandler brokerMessageHandler;
+    private final DestinationShardedExecutor shardedExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public SimpleBrokerCustomizer(@Qualifier("simpleBrokerMessageHandler") AbstractBrokerMessageHandler brokerMessageHandler,
+                                  @Qualifier("destinationShardedExecutor") DestinationShardedExecutor shardedExecutor,
+                                  MeterRegistry meterRegistry) {
+        this.brokerMessageHandler = brokerMessageHandler;
+        this.shardedExecutor = shardedExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (brokerMessageHandler instanceof SimpleBrokerMessageHandler simpleBroker) {
+            simpleBroker.setSubscriptionRegistry(
+                    new ShardedSubscriptionRegistry(shardedExecutor.shardCount(), meterRegistry));
+        }
+    }
+}
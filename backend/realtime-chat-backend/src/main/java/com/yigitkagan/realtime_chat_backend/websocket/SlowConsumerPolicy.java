@@ -0,0 +1,11 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+// Oturumun giden kuyruğu dolunca ne yapılacağı
+public enum SlowConsumerPolicy {
+    // Önce yazıyor/çevrimiçi gibi atılabilir frame'ler düşürülür, yer açılmazsa oturum kapatılır
+    DROP_THEN_DISCONNECT,
+    // Kuyruk dolunca oturum kapatılır
+    DISCONNECT,
+    // Oturum açık kalır, yeni frame düşürülür
+    DROP
+}
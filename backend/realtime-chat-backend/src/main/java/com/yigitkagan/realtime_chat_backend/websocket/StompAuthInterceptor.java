@@ -0,0 +1,40 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import com.yigitkagan.realtime_chat_backend.auth.TokenAuthenticator;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+// clientInboundChannel interceptor'ı: JWT sadece CONNECT'te doğrulanır ve oturuma Principal olarak bağlanır.
+// Sonraki frame'ler bu kullanıcıyı taşır; /user/... hedefleri de bu Principal'ın adına (kullanıcı id) çözülür.
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private final TokenAuthenticator tokenAuthenticator;
+
+    public StompAuthInterceptor(TokenAuthenticator tokenAuthenticator) {
+        this.tokenAuthenticator = tokenAuthenticator;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT && accessor.getCommand() != StompCommand.STOMP) {
+            return message;
+        }
+        String token = TokenAuthenticator.bearerToken(accessor.getFirstNativeHeader("Authorization"));
+        AuthenticatedUser user = tokenAuthenticator.authenticate(token);
+        if (user == null) {
+            // İstemciye ERROR frame'i gider ve bağlantı kapanır
+            throw new MessageDeliveryException(message, "Unauthorized");
+        }
+        accessor.setUser(user);
+        return message;
+    }
+}
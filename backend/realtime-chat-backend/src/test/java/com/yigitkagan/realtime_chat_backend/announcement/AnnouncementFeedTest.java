@@ -0,0 +1,90 @@
+package com.yigitkagan.realtime_chat_backend.announcement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Akış en yeni önce sayfalanır; sayaçlar herkese aynı, myReactions görüntüleyene göre
+@SpringBootTest
+class AnnouncementFeedTest {
+
+    private static final long VIEWER = 900_001L;
+    private static final long OTHER = 900_002L;
+
+    @Autowired private AnnouncementFeed announcementFeed;
+    @Autowired private AnnouncementRepository announcementRepository;
+    @Autowired private ReactionRepository reactionRepository;
+
+    private final List<Announcement> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            Announcement announcement = new Announcement();
+            announcement.setContent("duyuru-" + i);
+            created.add(announcementRepository.save(announcement));
+            Thread.sleep(2);
+        }
+        announcementFeed.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        created.forEach(a -> announcementRepository.deleteById(a.getId()));
+        announcementFeed.invalidate();
+    }
+
+    @Test
+    void pagesNewestFirstWithCountsAndViewerReactions() {
+        Announcement newest = created.get(4);
+        react(newest, VIEWER, "👍");
+        react(newest, OTHER, "👍");
+        react(newest, OTHER, "❤️");
+        announcementFeed.invalidate();
+
+        AnnouncementPage first = announcementFeed.page(VIEWER, null, null, 2);
+        assertThat(first.items()).extracting(AnnouncementResponse::id)
+                .containsExactly(created.get(4).getId(), created.get(3).getId());
+        assertThat(first.hasMore()).isTrue();
+        assertThat(first.items().get(0).reactionCounts()).isEqualTo(Map.of("👍", 2L, "❤️", 1L));
+        assertThat(first.items().get(0).myReactions()).containsExactly("👍");
+        assertThat(first.items().get(1).reactionCounts()).isEmpty();
+
+        // Aynı önbellekli sayfa başka görüntüleyene kendi tepkileriyle döner
+        AnnouncementPage forOther = announcementFeed.page(OTHER, null, null, 2);
+        assertThat(forOther.items().get(0).myReactions()).containsExactlyInAnyOrder("👍", "❤️");
+
+        AnnouncementPage second = announcementFeed.page(VIEWER, first.nextBeforeCreatedAt(), first.nextBeforeId(), 2);
+        assertThat(second.items()).extracting(AnnouncementResponse::id)
+                .containsExactly(created.get(2).getId(), created.get(1).getId());
+    }
+
+    @Test
+    void cachedPageIsRefreshedAfterInvalidate() {
+        Announcement newest = created.get(4);
+        assertThat(announcementFeed.page(VIEWER, null, null, 1).items().get(0).reactionCounts()).isEmpty();
+
+        react(newest, OTHER, "😂");
+        assertThat(announcementFeed.page(VIEWER, null, null, 1).items().get(0).reactionCounts()).isEmpty();
+
+        announcementFeed.invalidate();
+        assertThat(announcementFeed.page(VIEWER, null, null, 1).items().get(0).reactionCounts())
+                .isEqualTo(Map.of("😂", 1L));
+    }
+
+    private void react(Announcement announcement, long userId, String emoji) {
+        Reaction reaction = new Reaction();
+        reaction.setAnnouncement(announcement);
+        reaction.setUserId(userId);
+        reaction.setEmoji(emoji);
+        reactionRepository.save(reaction);
+    }
+}
@@ -0,0 +1,152 @@
+package com.yigitkagan.realtime_chat_backend.archive;
+
+import com.yigitkagan.realtime_chat_backend.conversation.Conversation;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationRepository;
+import com.yigitkagan.realtime_chat_backend.message.ChatMessageResponse;
+import com.yigitkagan.realtime_chat_backend.message.ChatService;
+import com.yigitkagan.realtime_chat_backend.message.Message;
+import com.yigitkagan.realtime_chat_backend.message.MessageDeletionsRepository;
+import com.yigitkagan.realtime_chat_backend.message.MessageReaction;
+import com.yigitkagan.realtime_chat_backend.message.MessageReactionRepository;
+import com.yigitkagan.realtime_chat_backend.message.MessageRepository;
+import com.yigitkagan.realtime_chat_backend.message.MessageSlice;
+import com.yigitkagan.realtime_chat_backend.user.User;
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Arşivlenen aralık sıcak tablodan silinir; geçmiş okuması aynı imleçle segmentlerden devam eder
+@SpringBootTest
+class MessageArchiverTest {
+
+    private static final int MESSAGE_COUNT = 30;
+    private static final long ARCHIVE_UP_TO = 20;
+
+    private static Path archiveDir;
+
+    @Autowired private MessageArchiver archiver;
+    @Autowired private MessageArchive archive;
+    @Autowired private ChatService chatService;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private MessageReactionRepository messageReactionRepository;
+    @Autowired private MessageDeletionsRepository messageDeletionsRepository;
+    @Autowired private ConversationRepository conversationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private Conversation conversation;
+    private final Map<Long, Long> idsBySeq = new HashMap<>();
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) throws IOException {
+        archiveDir = Files.createTempDirectory("message-archive-test");
+        registry.add("app.chat.archive.dir", archiveDir::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS message_deletions (message_id bigint NOT NULL, user_id bigint NOT NULL)");
+
+        alice = userRepository.save(newUser("alice"));
+        bob = userRepository.save(newUser("bob"));
+
+        Conversation c = new Conversation();
+        c.setUser1(alice);
+        c.setUser2(bob);
+        conversation = conversationRepository.save(c);
+
+        for (int i = 1; i <= MESSAGE_COUNT; i++) {
+            Message message = new Message();
+            message.setConversation(conversation);
+            message.setSender(i % 2 == 0 ? alice : bob);
+            message.setSeq((long) i);
+            message.setContent("mesaj " + i);
+            idsBySeq.put((long) i, messageRepository.save(message).getId());
+        }
+        messageReactionRepository.save(new MessageReaction(messageRepository.findById(idsBySeq.get(5L)).orElseThrow(),
+                bob, "👍"));
+        messageDeletionsRepository.insertDeletion(idsBySeq.get(10L), alice.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM message_archive_segments WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM message_deletions WHERE user_id IN (?, ?)", alice.getId(), bob.getId());
+        jdbcTemplate.update("DELETE FROM message_reactions WHERE message_id IN (SELECT id FROM messages WHERE conversation_id = ?)", conversation.getId());
+        jdbcTemplate.update("DELETE FROM messages WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM conversations WHERE id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", alice.getId(), bob.getId());
+        archive.onSegmentsChanged(conversation.getId());
+        FileSystemUtils.deleteRecursively(archiveDir.resolve(String.valueOf(conversation.getId())).toFile());
+    }
+
+    @Test
+    void archivedRangeIsReadBackFromSegments() {
+        assertThat(archiver.archiveConversation(conversation.getId(), ARCHIVE_UP_TO)).isEqualTo((int) ARCHIVE_UP_TO);
+
+        Long hot = jdbcTemplate.queryForObject("SELECT count(*) FROM messages WHERE conversation_id = ?",
+                Long.class, conversation.getId());
+        assertThat(hot).isEqualTo(MESSAGE_COUNT - ARCHIVE_UP_TO);
+
+        MessageArchive.ArchivePage page = archive.readBefore(conversation.getId(), Long.MAX_VALUE, 0, 50);
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.newestFirst()).extracting(ArchivedMessage::seq)
+                .containsExactlyElementsOf(descending(ARCHIVE_UP_TO, 1));
+        ArchivedMessage reacted = page.newestFirst().get((int) (ARCHIVE_UP_TO - 5));
+        assertThat(reacted.content()).isEqualTo("mesaj 5");
+        assertThat(reacted.reactions()).containsExactly(new ArchivedMessage.Reaction(bob.getId(), "👍"));
+        assertThat(page.newestFirst().get((int) (ARCHIVE_UP_TO - 10)).hiddenFor()).containsExactly(alice.getId());
+    }
+
+    @Test
+    void historyContinuesFromHotTableIntoArchive() {
+        archiver.archiveConversation(conversation.getId(), ARCHIVE_UP_TO);
+
+        MessageSlice first = chatService.getMessagesBefore(conversation.getId(), null, 15, alice.getId());
+        assertThat(first.messages()).extracting(ChatMessageResponse::seq)
+                .containsExactlyElementsOf(descending(MESSAGE_COUNT, 16));
+        assertThat(first.hasMore()).isTrue();
+
+        // Alice'in kendinden sildiği 10. mesaj arşivden de gelmez
+        MessageSlice rest = chatService.getMessagesBefore(conversation.getId(), first.nextBefore(), 50, alice.getId());
+        List<Long> expected = descending(15, 1).stream().filter(seq -> seq != 10L).toList();
+        assertThat(rest.messages()).extracting(ChatMessageResponse::seq).containsExactlyElementsOf(expected);
+        assertThat(rest.hasMore()).isFalse();
+
+        assertThat(chatService.getMessages(conversation.getId(), 0, 20, alice.getId()).getTotalElements())
+                .isEqualTo(MESSAGE_COUNT);
+    }
+
+    private static List<Long> descending(long from, long to) {
+        return LongStream.rangeClosed(to, from).map(seq -> from + to - seq).boxed().toList();
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        String unique = name + "-" + UUID.randomUUID();
+        user.setEmail(unique + "@test.chat");
+        user.setDisplayName(name);
+        user.setPasswordHash("x");
+        return user;
+    }
+}
@@ -0,0 +1,45 @@
+package com.yigitkagan.realtime_chat_backend.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticatedUserCacheTest {
+
+    private static final Date IN_AN_HOUR = new Date(System.currentTimeMillis() + 3_600_000);
+
+    private final AuthenticatedUserCache cache = new AuthenticatedUserCache(new SimpleMeterRegistry(), 2, 60_000);
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondCapacity() {
+        cache.put("a", new AuthenticatedUser(1L, "a@x"), IN_AN_HOUR);
+        cache.put("b", new AuthenticatedUser(2L, "b@x"), IN_AN_HOUR);
+        cache.get("a");
+        cache.put("c", new AuthenticatedUser(3L, "c@x"), IN_AN_HOUR);
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+    }
+
+    @Test
+    void entryNeverOutlivesToken() {
+        cache.put("expired", new AuthenticatedUser(1L, "a@x"), new Date(System.currentTimeMillis() - 1));
+
+        assertThat(cache.get("expired")).isNull();
+    }
+
+    @Test
+    void invalidateDropsEveryTokenOfUser() {
+        cache.put("web", new AuthenticatedUser(1L, "a@x"), IN_AN_HOUR);
+        cache.put("mobile", new AuthenticatedUser(1L, "a@x"), IN_AN_HOUR);
+
+        cache.invalidateUser(1L);
+
+        assertThat(cache.get("web")).isNull();
+        assertThat(cache.get("mobile")).isNull();
+    }
+}
@@ -0,0 +1,78 @@
+package com.yigitkagan.realtime_chat_backend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SnapshotCache<Long, String> cache(int maxEntries) {
+        return new SnapshotCache<>("test", maxEntries, 100, meterRegistry,
+                id -> {
+                    loads.incrementAndGet();
+                    return id < 0 ? null : "user-" + id + "#" + loads.get();
+                },
+                now::get);
+    }
+
+    @Test
+    void readsThroughOnceAndCountsHitsAndMisses() {
+        SnapshotCache<Long, String> cache = cache(10);
+
+        assertThat(cache.get(1L)).isEqualTo("user-1#1");
+        assertThat(cache.get(1L)).isEqualTo("user-1#1");
+        assertThat(cache.get(1L)).isEqualTo("user-1#1");
+
+        assertThat(loads).hasValue(1);
+        assertThat(count("hit")).isEqualTo(2);
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void missingKeysAreNotCached() {
+        SnapshotCache<Long, String> cache = cache(10);
+
+        assertThat(cache.get(-1L)).isNull();
+        assertThat(cache.get(-1L)).isNull();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void reloadsAfterTtlAndInvalidate() {
+        SnapshotCache<Long, String> cache = cache(10);
+        cache.get(1L);
+
+        now.addAndGet(100);
+        assertThat(cache.get(1L)).isEqualTo("user-1#2");
+
+        cache.invalidate(1L);
+        assertThat(cache.get(1L)).isEqualTo("user-1#3");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        SnapshotCache<Long, String> cache = cache(2);
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(1L);
+        cache.get(3L);
+
+        cache.get(1L);
+        assertThat(loads).hasValue(3);
+        cache.get(2L);
+        assertThat(loads).hasValue(4);
+        assertThat(meterRegistry.get("chat.cache.evictions").tag("cache", "test").counter().count()).isEqualTo(2);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("chat.cache.gets").tag("cache", "test").tag("result", result).counter().count();
+    }
+}
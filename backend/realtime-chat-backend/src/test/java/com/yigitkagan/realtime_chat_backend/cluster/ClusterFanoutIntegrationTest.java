@@ -0,0 +1,198 @@
+package com.yigitkagan.realtime_chat_backend.cluster;
+
+import com.yigitkagan.realtime_chat_backend.RealtimeChatBackendApplication;
+import com.yigitkagan.realtime_chat_backend.announcement.Announcement;
+import com.yigitkagan.realtime_chat_backend.announcement.AnnouncementFeed;
+import com.yigitkagan.realtime_chat_backend.announcement.AnnouncementRepository;
+import com.yigitkagan.realtime_chat_backend.announcement.AnnouncementResponse;
+import com.yigitkagan.realtime_chat_backend.auth.JwtService;
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+import com.yigitkagan.realtime_chat_backend.message.MessageTailCache;
+import com.yigitkagan.realtime_chat_backend.presence.PresenceService;
+import com.yigitkagan.realtime_chat_backend.user.User;
+import com.yigitkagan.realtime_chat_backend.user.UserDirectory;
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Aynı JVM'de, aynı veritabanına bağlı iki düğüm: A'da yapılan yayın B'deki aboneye,
+// A'ya bağlanan kullanıcı B'nin çevrimiçi listesine, A'da değişen kullanıcı B'nin rehberine ulaşmalı,
+// A'da değişen sohbetin tail'i ve duyuru akışı B'de düşmeli
+class ClusterFanoutIntegrationTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static User user;
+    private static String token;
+    private static final WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+
+        // STOMP CONNECT geçerli bir token ister
+        user = new User();
+        user.setEmail("cluster-it-" + System.nanoTime() + "@example.com");
+        user.setPasswordHash("-");
+        user.setDisplayName("Cluster IT");
+        user = nodeA.getBean(UserRepository.class).save(user);
+        token = nodeA.getBean(JwtService.class).generateToken(user);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (user != null && nodeA != null) {
+            nodeA.getBean(UserRepository.class).delete(user);
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void broadcastOnOneNodeReachesSubscriberOnAnother() throws Exception {
+        String destination = "/topic/conversations/" + System.nanoTime();
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        StompSession session = connect(nodeB);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        });
+
+        // Abonelik asenkron işlenir; gelene kadar yeniden gönderilir
+        SimpMessagingTemplate templateA = nodeA.getBean(SimpMessagingTemplate.class);
+        String frame = null;
+        for (int attempt = 0; attempt < 50 && frame == null; attempt++) {
+            templateA.convertAndSend(destination, (Object) Map.of("type", "PING", "from", "A"));
+            frame = received.poll(200, TimeUnit.MILLISECONDS);
+        }
+        session.disconnect();
+
+        assertThat(frame).contains("\"type\":\"PING\"").contains("\"from\":\"A\"");
+    }
+
+    @Test
+    void presenceOnOneNodeIsVisibleOnAnother() throws Exception {
+        long userId = user.getId();
+        StompSession session = connect(nodeA);
+        PresenceService presenceB = nodeB.getBean(PresenceService.class);
+
+        assertThat(waitFor(() -> presenceB.getOnlineUsers().contains(userId))).isTrue();
+
+        session.disconnect();
+        assertThat(waitFor(() -> !presenceB.getOnlineUsers().contains(userId))).isTrue();
+    }
+
+    @Test
+    void userChangeOnOneNodeRefreshesDirectoryOnAnother() throws Exception {
+        UserRepository usersA = nodeA.getBean(UserRepository.class);
+        UserDirectory directoryB = nodeB.getBean(UserDirectory.class);
+        String name = "Cluster Rehber " + System.nanoTime();
+
+        User changed = usersA.findById(user.getId()).orElseThrow();
+        changed.setDisplayName(name);
+        changed.setActivated(true);
+        usersA.save(changed);
+
+        assertThat(waitFor(() -> directoryB.page(name, null, 10, null).entries().stream()
+                .anyMatch(entry -> entry.id().equals(user.getId())))).isTrue();
+    }
+
+    @Test
+    void tailChangeOnOneNodeDiscardsTailOnAnother() throws Exception {
+        long conversationId = System.nanoTime();
+        MessageTailCache tailA = nodeA.getBean(MessageTailCache.class);
+        MessageTailCache tailB = nodeB.getBean(MessageTailCache.class);
+        tailB.fill(conversationId, tailB.stamp(conversationId), List.of(tailMessage(conversationId, 1)), true, 1L);
+        assertThat(tailB.firstPage(conversationId, 1)).isPresent();
+
+        tailA.onNewMessage(tailMessage(conversationId, 2));
+
+        assertThat(waitFor(() -> tailB.firstPage(conversationId, 1).isEmpty())).isTrue();
+    }
+
+    @Test
+    void announcementChangeOnOneNodeRefreshesFeedOnAnother() throws Exception {
+        AnnouncementFeed feedB = nodeB.getBean(AnnouncementFeed.class);
+        feedB.page(user.getId(), null, null, 1);
+
+        AnnouncementRepository announcementsA = nodeA.getBean(AnnouncementRepository.class);
+        Announcement announcement = new Announcement();
+        announcement.setContent("cluster-duyuru-" + System.nanoTime());
+        announcement = announcementsA.save(announcement);
+        Long id = announcement.getId();
+        try {
+            nodeA.getBean(AnnouncementFeed.class).invalidate();
+
+            assertThat(waitFor(() -> feedB.page(user.getId(), null, null, 1).items().stream()
+                    .map(AnnouncementResponse::id).anyMatch(id::equals))).isTrue();
+        } finally {
+            announcementsA.deleteById(id);
+        }
+    }
+
+    private static MessageTailCache.CachedMessage tailMessage(long conversationId, long seq) {
+        return new MessageTailCache.CachedMessage(seq, conversationId, user.getId(), seq, "mesaj " + seq,
+                Instant.EPOCH, null, MessageStatus.SENT, false, List.of(), List.of());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        // properties() sadece varsayılanları ayarlar, application.yml onları ezer; komut satırı argümanı kullanılır
+        return new SpringApplicationBuilder(RealtimeChatBackendApplication.class)
+                .run("--server.port=0", "--app.chat.cluster.mode=postgres",
+                        "--app.chat.cluster.channel=chat_cluster_it");
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        String port = node.getEnvironment().getProperty("local.server.port");
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws", new WebSocketHttpHeaders(),
+                connectHeaders, new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,96 @@
+package com.yigitkagan.realtime_chat_backend.conversation;
+
+import com.yigitkagan.realtime_chat_backend.user.User;
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Aynı çift için eşzamanlı açılışlar tek sohbete çıkmalı; yön önemli değil
+@SpringBootTest
+class ConversationPairsTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired private ConversationPairs conversationPairs;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice"));
+        bob = userRepository.save(newUser("bob"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM conversation_summaries WHERE user_id IN (?, ?)", alice.getId(), bob.getId());
+        jdbcTemplate.update("DELETE FROM conversations WHERE user1_id IN (?, ?)", alice.getId(), bob.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", alice.getId(), bob.getId());
+    }
+
+    @Test
+    void concurrentInsertOrGetCreatesOneConversation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ConversationPairs.Result>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                boolean reversed = i % 2 == 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return reversed
+                            ? conversationPairs.insertOrGet(bob.getId(), alice.getId())
+                            : conversationPairs.insertOrGet(alice.getId(), bob.getId());
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            int created = 0;
+            for (Future<ConversationPairs.Result> future : futures) {
+                ConversationPairs.Result result = future.get();
+                ids.add(result.participants().conversationId());
+                created += result.created() ? 1 : 0;
+            }
+            assertThat(ids).hasSize(1);
+            assertThat(created).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM conversations WHERE pair_low = ? AND pair_high = ?", Integer.class,
+                Math.min(alice.getId(), bob.getId()), Math.max(alice.getId(), bob.getId()));
+        assertThat(rows).isEqualTo(1);
+        assertThat(conversationPairs.find(bob.getId(), alice.getId()).conversationId())
+                .isEqualTo(conversationPairs.find(alice.getId(), bob.getId()).conversationId());
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        String unique = name + "-" + UUID.randomUUID();
+        user.setEmail(unique + "@test.chat");
+        user.setDisplayName(name);
+        user.setPasswordHash("x");
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.yigitkagan.realtime_chat_backend.conversation.Conversation;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationRepository;
+import com.yigitkagan.realtime_chat_backend.user.User;
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Geçmiş okuması sayfa boyutundan bağımsız, sabit sayıda SQL çalıştırmalı (N+1 regresyonu)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ChatServiceHistoryQueryTest {
+
+    private static final int MESSAGE_COUNT = 50;
+
+    @Autowired private ChatService chatService;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private MessageReactionRepository messageReactionRepository;
+    @Autowired private MessageDeletionsRepository messageDeletionsRepository;
+    @Autowired private ConversationRepository conversationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private Conversation conversation;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS message_deletions (message_id bigint NOT NULL, user_id bigint NOT NULL)");
+
+        alice = userRepository.save(newUser("alice"));
+        bob = userRepository.save(newUser("bob"));
+
+        Conversation c = new Conversation();
+        c.setUser1(alice);
+        c.setUser2(bob);
+        conversation = conversationRepository.save(c);
+
+        for (int i = 1; i <= MESSAGE_COUNT; i++) {
+            Message message = new Message();
+            message.setConversation(conversation);
+            message.setSender(i % 2 == 0 ? alice : bob);
+            message.setSeq((long) i);
+            message.setContent("mesaj " + i);
+            Message saved = messageRepository.save(message);
+
+            messageReactionRepository.save(new MessageReaction(saved, alice, "👍"));
+            messageReactionRepository.save(new MessageReaction(saved, bob, i % 3 == 0 ? "👍" : "❤️"));
+            if (i % 5 == 0) {
+                messageDeletionsRepository.insertDeletion(saved.getId(), alice.getId());
+            }
+        }
+        jdbcTemplate.update("INSERT INTO message_reaction_counts (message_id, emoji, reaction_count) " +
+                "SELECT r.message_id, r.reaction_content, count(*) FROM message_reactions r " +
+                "JOIN messages m ON m.id = r.message_id WHERE m.conversation_id = ? " +
+                "GROUP BY r.message_id, r.reaction_content", conversation.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM message_deletions WHERE user_id IN (?, ?)", alice.getId(), bob.getId());
+        jdbcTemplate.update("DELETE FROM message_reaction_counts WHERE message_id IN (SELECT id FROM messages WHERE conversation_id = ?)", conversation.getId());
+        jdbcTemplate.update("DELETE FROM message_reactions WHERE message_id IN (SELECT id FROM messages WHERE conversation_id = ?)", conversation.getId());
+        jdbcTemplate.update("DELETE FROM messages WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM conversations WHERE id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", alice.getId(), bob.getId());
+    }
+
+    @Test
+    void cursorPageUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        MessageSlice slice = chatService.getMessagesBefore(conversation.getId(), null, MESSAGE_COUNT, alice.getId());
+
+        // mesaj satırları + gizlenen id'ler + tepkiler
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(slice.messages()).hasSize(MESSAGE_COUNT - MESSAGE_COUNT / 5);
+        // 50. mesaj alice için gizli (her 5. mesaj); en yeni görünen 49
+        assertThat(slice.messages().get(0).seq()).isEqualTo(MESSAGE_COUNT - 1);
+        assertThat(slice.messages().get(0).reactions())
+                .anySatisfy(r -> assertThat(r.isMe()).isTrue());
+    }
+
+    @Test
+    void legacyPageUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+
+        Page<ChatMessageResponse> page = chatService.getMessages(conversation.getId(), 0, 20, alice.getId());
+
+        // satırlar + COUNT + gizlenen id'ler + tepkiler
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getTotalElements()).isEqualTo(MESSAGE_COUNT);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        String unique = name + "-" + UUID.randomUUID();
+        user.setEmail(unique + "@test.chat");
+        user.setDisplayName(name);
+        user.setPasswordHash("x");
+        return user;
+    }
+}
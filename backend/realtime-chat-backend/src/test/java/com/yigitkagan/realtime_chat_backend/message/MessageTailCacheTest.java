@@ -0,0 +1,37 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageTailCacheTest {
+
+    private static final long CONVERSATION = 1L;
+
+    private final MessageTailCache cache = new MessageTailCache(new SimpleMeterRegistry(), true, 10, 1 << 20);
+
+    @Test
+    void outOfOrderMessagesAreInsertedBySeqAndDuplicatesDropped() {
+        cache.fill(CONVERSATION, cache.stamp(CONVERSATION), List.of(message(2), message(1)), true, 2L);
+
+        cache.onNewMessage(message(5));
+        cache.onNewMessage(message(3));
+        cache.onNewMessage(message(5));
+        cache.onNewMessage(message(4));
+
+        MessageTailCache.TailSnapshot page = cache.firstPage(CONVERSATION, 10).orElseThrow();
+        assertThat(page.newestFirst()).extracting(MessageTailCache.CachedMessage::seq)
+                .containsExactly(5L, 4L, 3L, 2L, 1L);
+        assertThat(page.totalCount()).isEqualTo(5L);
+        assertThat(cache.latestSeq(CONVERSATION)).contains(5L);
+    }
+
+    private static MessageTailCache.CachedMessage message(long seq) {
+        return new MessageTailCache.CachedMessage(seq * 100, CONVERSATION, 7L, seq, "mesaj " + seq,
+                Instant.EPOCH, null, MessageStatus.SENT, false, List.of(), List.of());
+    }
+}
@@ -0,0 +1,116 @@
+package com.yigitkagan.realtime_chat_backend.message;
+
+import com.yigitkagan.realtime_chat_backend.conversation.Conversation;
+import com.yigitkagan.realtime_chat_backend.conversation.ConversationRepository;
+import com.yigitkagan.realtime_chat_backend.user.User;
+import com.yigitkagan.realtime_chat_backend.user.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// flush-interval içinde kuyruğa giren mesajlar tek batch'e girer; batch'te çakışan satır varsa diğerleri
+// satır satır yazılır, çakışan mesaj park edilir ve onu bekleyene "kaydedilemedi" hatası döner
+@SpringBootTest(properties = {
+        "app.chat.pipeline.enabled=true",
+        "app.chat.pipeline.flush-size=10",
+        "app.chat.pipeline.flush-interval-ms=1000"
+})
+class MessageWritePipelineTest {
+
+    @Autowired private MessageWritePipeline pipeline;
+    @Autowired private MessageIdAllocator idAllocator;
+    @Autowired private ConversationRepository conversationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private User alice;
+    private User bob;
+    private Conversation conversation;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice"));
+        bob = userRepository.save(newUser("bob"));
+
+        Conversation c = new Conversation();
+        c.setUser1(alice);
+        c.setUser2(bob);
+        conversation = conversationRepository.save(c);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM message_write_failures WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM message_search WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM conversation_summaries WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM messages WHERE conversation_id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM conversations WHERE id = ?", conversation.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", alice.getId(), bob.getId());
+    }
+
+    @Test
+    void queuedMessagesAreWrittenInOneBatch() {
+        DistributionSummary batches = meterRegistry.get("chat.pipeline.batch.size").summary();
+        long batchesBefore = batches.count();
+        double rowsBefore = batches.totalAmount();
+
+        List<MessageWritePipeline.PendingMessage> messages = List.of(pending(1), pending(2), pending(3));
+        messages.forEach(pipeline::enqueue);
+        messages.forEach(m -> pipeline.awaitPersisted(m.id()));
+
+        assertThat(batches.count() - batchesBefore).isEqualTo(1);
+        assertThat(batches.totalAmount() - rowsBefore).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("SELECT seq FROM messages WHERE conversation_id = ? ORDER BY seq",
+                Long.class, conversation.getId())).containsExactly(1L, 2L, 3L);
+        assertThat(messages).noneMatch(m -> pipeline.isPending(m.id()));
+    }
+
+    @Test
+    void failingRowIsDeadLetteredAndTheRestAreWrittenRowByRow() {
+        MessageWritePipeline.PendingMessage first = pending(1);
+        // Aynı seq: (conversation_id, seq) tekil index'i batch'i ve satır satır denemede bu satırı düşürür
+        MessageWritePipeline.PendingMessage duplicate = pending(1);
+        MessageWritePipeline.PendingMessage last = pending(2);
+        List.of(first, duplicate, last).forEach(pipeline::enqueue);
+
+        // Batch flush-interval dolana kadar yazılmaz; bekleyen sonucu alır
+        assertThatThrownBy(() -> pipeline.awaitPersisted(duplicate.id()))
+                .isInstanceOf(MessageNotPersistedException.class)
+                .matches(e -> ((MessageNotPersistedException) e).isFailed());
+        pipeline.awaitPersisted(first.id());
+        pipeline.awaitPersisted(last.id());
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM messages WHERE conversation_id = ? ORDER BY seq",
+                Long.class, conversation.getId())).containsExactly(first.id(), last.id());
+        assertThat(jdbcTemplate.queryForList("SELECT message_id FROM message_write_failures WHERE conversation_id = ?",
+                Long.class, conversation.getId())).containsExactly(duplicate.id());
+    }
+
+    private MessageWritePipeline.PendingMessage pending(long seq) {
+        return new MessageWritePipeline.PendingMessage(idAllocator.nextId(), conversation.getId(), seq,
+                alice.getId(), bob.getId(), "mesaj " + seq, Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        String unique = name + "-" + UUID.randomUUID();
+        user.setEmail(unique + "@test.chat");
+        user.setDisplayName(name);
+        user.setPasswordHash("x");
+        return user;
+    }
+}
@@ -0,0 +1,81 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Nabız kesilen kullanıcı ttl + bir tick içinde düşmeli; açık oturumu varsa çevrimiçi kalmalı
+class HeartbeatPresenceServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final PresenceService presenceService = new PresenceService();
+    private final PresenceNotifier notifier = mock(PresenceNotifier.class);
+    private final HeartbeatPresenceService service = new HeartbeatPresenceService(presenceService, notifier,
+            mock(LastSeenTracker.class), now::get, 250, 10_000);
+
+    @Test
+    void expiresUsersWhoStopHeartbeating() {
+        service.heartbeat(1L);
+        service.heartbeat(2L);
+        service.heartbeat(2L);
+        verify(notifier).online(1L, false);
+        verify(notifier).online(2L, false);
+
+        advanceTo(6_000);
+        service.heartbeat(1L);
+        assertThat(presenceService.getOnlineUsers()).containsExactlyInAnyOrder(1L, 2L);
+
+        advanceTo(10_250);
+        assertThat(presenceService.getOnlineUsers()).containsExactly(1L);
+        verify(notifier).offline(2L);
+        verify(notifier, never()).offline(1L);
+
+        // Gecikmeli tick'ler toplu işlenir
+        advanceTo(60_000);
+        assertThat(presenceService.getOnlineUsers()).isEmpty();
+        verify(notifier).offline(1L);
+    }
+
+    @Test
+    void sessionKeepsUserOnlineAfterHeartbeatLapses() {
+        presenceService.userConnected("s1", 3L);
+        service.heartbeat(3L);
+        verify(notifier, never()).online(3L, false);
+
+        advanceTo(20_000);
+        assertThat(presenceService.getOnlineUsers()).containsExactly(3L);
+        verify(notifier, never()).offline(3L);
+    }
+
+    @Test
+    void primitiveMapMatchesHashMap() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Long previous = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(previous != null ? previous : LongLongHashMap.MISSING);
+            } else {
+                Long previous = expected.put(key, (long) i);
+                assertThat(map.put(key, i)).isEqualTo(previous != null ? previous : LongLongHashMap.MISSING);
+            }
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    private void advanceTo(long offsetMillis) {
+        now.set(1_000_000 + offsetMillis);
+        service.advance();
+    }
+}
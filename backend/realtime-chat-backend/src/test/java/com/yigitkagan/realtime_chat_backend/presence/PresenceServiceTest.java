@@ -0,0 +1,35 @@
+package com.yigitkagan.realtime_chat_backend.presence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Çevrimiçi/çevrimdışı geçişi sadece ilk ve son oturumda olmalı
+class PresenceServiceTest {
+
+    private final PresenceService presenceService = new PresenceService();
+
+    @Test
+    void reportsTransitionsOnFirstAndLastSession() {
+        assertThat(presenceService.userConnected("s1", 7L)).isTrue();
+        assertThat(presenceService.userConnected("s2", 7L)).isFalse();
+        assertThat(presenceService.userConnected("s2", 7L)).isFalse();
+
+        assertThat(presenceService.userDisconnected("s1")).isNull();
+        assertThat(presenceService.getOnlineUsers()).containsExactly(7L);
+
+        assertThat(presenceService.userDisconnected("s2")).isEqualTo(7L);
+        assertThat(presenceService.userDisconnected("s2")).isNull();
+        assertThat(presenceService.getOnlineUsers()).isEmpty();
+    }
+
+    @Test
+    void remoteSessionsKeepUserOnline() {
+        presenceService.userConnected("s1", 7L);
+        presenceService.remoteUserOnline("node-b", 7L);
+
+        assertThat(presenceService.userDisconnected("s1")).isEqualTo(7L);
+        assertThat(presenceService.isOnline(7L)).isTrue();
+        assertThat(presenceService.getLocalOnlineUsers()).isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package com.yigitkagan.realtime_chat_backend.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class UserDirectoryTest {
+
+    private final UserDirectory directory = new UserDirectory(mock(UserRepository.class), new SimpleMeterRegistry());
+
+    @Test
+    void prefixSearchIsCaseAndAccentInsensitive() {
+        directory.put(entry(1L, "Şule Yılmaz", "+90 532 000 0001"));
+        directory.put(entry(2L, "Işık Demir", "+90 532 000 0002"));
+        directory.put(entry(3L, "Ali", ""));
+
+        assertThat(ids(directory.page("sule", null, 10, null))).containsExactly(1L);
+        assertThat(ids(directory.page("IŞI", null, 10, null))).containsExactly(2L);
+        assertThat(ids(directory.page("90532", null, 10, null))).containsExactly(1L, 2L);
+        assertThat(ids(directory.page("", null, 10, 3L))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void hiddenPhoneIsNotSearchable() {
+        directory.put(entry(1L, "Ayşe", ""));
+
+        assertThat(ids(directory.page("532", null, 10, null))).isEmpty();
+    }
+
+    @Test
+    void cursorPagesAreStableAcrossInserts() {
+        for (long id = 1; id <= 10; id++) {
+            directory.put(entry(id, "user " + (char) ('a' + id), ""));
+        }
+        UserDirectory.DirectoryPage first = directory.page("", null, 4, null);
+        assertThat(ids(first)).containsExactly(1L, 2L, 3L, 4L);
+
+        // Önceki sayfaya giren ve sonraki sayfalara giren yeni kayıtlar
+        directory.put(entry(20L, "user a", ""));
+        directory.put(entry(21L, "user z", ""));
+
+        List<Long> rest = new ArrayList<>();
+        String cursor = first.nextCursor();
+        while (cursor != null) {
+            UserDirectory.DirectoryPage page = directory.page("", cursor, 4, null);
+            rest.addAll(ids(page));
+            cursor = page.nextCursor();
+        }
+        assertThat(rest).containsExactly(5L, 6L, 7L, 8L, 9L, 10L, 21L);
+    }
+
+    @Test
+    void renameMovesUserInIndex() {
+        directory.put(entry(1L, "Mehmet", ""));
+        directory.put(entry(1L, "Zeynep", ""));
+
+        assertThat(ids(directory.page("meh", null, 10, null))).isEmpty();
+        assertThat(ids(directory.page("zey", null, 10, null))).containsExactly(1L);
+        directory.remove(1L);
+        assertThat(ids(directory.page("", null, 10, null))).isEmpty();
+    }
+
+    private static UserSummary entry(Long id, String name, String phone) {
+        return new UserSummary(id, id + "@example.com", name, null, null, phone, null);
+    }
+
+    private static List<Long> ids(UserDirectory.DirectoryPage page) {
+        return page.entries().stream().map(UserSummary::id).toList();
+    }
+}
@@ -0,0 +1,75 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import com.yigitkagan.realtime_chat_backend.message.ChatMessageResponse;
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Yayın başına kodlama sayısı ve kodlamanın ayırdığı bayt abone sayısından bağımsız olmalı
+class BroadcastFanoutAllocationTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PayloadCodec codec = new PayloadCodec(JsonMapper.builder().build(), meterRegistry);
+    private final PayloadFormatRegistry formatRegistry = new PayloadFormatRegistry();
+    private final PayloadFormatInterceptor interceptor = new PayloadFormatInterceptor(formatRegistry, codec, meterRegistry);
+
+    @Test
+    void encodesOncePerFormatRegardlessOfSubscriberCount() {
+        for (int subscribers : new int[]{1, 100, 10_000}) {
+            double encodingsBefore = encodings();
+            double encodedBefore = meterRegistry.get("chat.broadcast.encoded").tag("format", "json").summary().totalAmount();
+
+            BroadcastPayload payload = BroadcastPayload.of(sampleMessage());
+            byte[] first = null;
+            for (int i = 0; i < subscribers; i++) {
+                String sessionId = "s" + i;
+                if (i % 2 == 1) {
+                    formatRegistry.register(sessionId, PayloadFormat.CBOR);
+                }
+                Message<?> delivered = interceptor.preSend(subscriberMessage(payload, sessionId), null);
+                assertThat(delivered.getPayload()).isInstanceOf(byte[].class);
+                if (i == 0) {
+                    first = (byte[]) delivered.getPayload();
+                } else if (i % 2 == 0) {
+                    // Aynı formattaki aboneler aynı diziyi paylaşır, kopya yok
+                    assertThat(delivered.getPayload()).isSameAs(first);
+                }
+            }
+
+            double encodings = encodings() - encodingsBefore;
+            double encodedBytes = meterRegistry.get("chat.broadcast.encoded").tag("format", "json").summary().totalAmount()
+                    - encodedBefore;
+            assertThat(encodings).isEqualTo(subscribers == 1 ? 1 : 2);
+            assertThat(encodedBytes).isEqualTo(first.length);
+        }
+    }
+
+    private double encodings() {
+        return meterRegistry.get("chat.broadcast.encodings").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    // SimpleBrokerMessageHandler'ın abone başına ürettiği mesajın benzeri
+    private static Message<?> subscriberMessage(BroadcastPayload payload, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/conversations/42");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static ChatMessageResponse sampleMessage() {
+        return new ChatMessageResponse(1L, 42L, 7L, "Merhaba", Instant.now(), null,
+                MessageStatus.SENT, List.of(), false, 1L);
+    }
+}
@@ -0,0 +1,63 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import com.yigitkagan.realtime_chat_backend.message.ChatMessageResponse;
+import com.yigitkagan.realtime_chat_backend.message.MessageStatus;
+import com.yigitkagan.realtime_chat_backend.message.ReactionDelta;
+import com.yigitkagan.realtime_chat_backend.message.ReceiptEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Yayın formatlarının boyut/CPU karşılaştırması; sonuçlar test raporuna yazılır.
+// Süreler makineye bağlı olduğu için sadece boyut doğrulanır. Varsayılan testlerde çalışmaz: mvn test -Pbenchmark
+@Tag("benchmark")
+class PayloadCodecBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final PayloadCodec codec = new PayloadCodec(JsonMapper.builder().build(), new SimpleMeterRegistry());
+
+    @Test
+    void cborIsSmallerThanJsonForBroadcastEvents(TestReporter reporter) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<Object> events = List.of(
+                new ChatMessageResponse(123456L, 42L, 7L, "Merhaba, akşam toplantıya geliyor musun?",
+                        now, null, MessageStatus.SENT, List.of(), false, 1024L),
+                ReceiptEvent.seen(42L, 8L, 1024L),
+                ReactionDelta.of(123456L, 8L, "👍", 1));
+
+        for (Object event : events) {
+            int jsonBytes = codec.encode(event, PayloadFormat.JSON).length;
+            int cborBytes = codec.encode(event, PayloadFormat.CBOR).length;
+            double jsonNanos = nanosPerEncode(event, PayloadFormat.JSON);
+            double cborNanos = nanosPerEncode(event, PayloadFormat.CBOR);
+            reporter.publishEntry(event.getClass().getSimpleName(), String.format(
+                    "json=%dB cbor=%dB json=%.0fns/op cbor=%.0fns/op", jsonBytes, cborBytes, jsonNanos, cborNanos));
+
+            assertThat(cborBytes).isLessThan(jsonBytes);
+        }
+    }
+
+    private double nanosPerEncode(Object event, PayloadFormat format) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += codec.encode(event, format).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += codec.encode(event, format).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return (double) elapsed / ITERATIONS;
+    }
+}
@@ -0,0 +1,116 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Kuyruk dolunca önce yazıyor/çevrimiçi frame'leri düşer, yer açılmazsa oturum kapatılır
+class SessionOutboundExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SessionOutboundExecutor executor = new SessionOutboundExecutor(meterRegistry, 1, 3,
+            SlowConsumerPolicy.DROP_THEN_DISCONNECT, List.of("/topic/online-users", "/topic/conversations/*/typing"));
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    private final MessageHandler handler = message -> {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT_ACK) {
+            sending.countDown();
+            await(release);
+        }
+        sent.add(message);
+    };
+
+    @Test
+    void dropsDroppableFramesBeforeDisconnecting() throws Exception {
+        // CONNECT_ACK gönderilirken istemci takılıyor, arkadaki frame'ler kuyrukta bekler
+        executor.execute(task(SimpMessageType.CONNECT_ACK, null));
+        // CONNECT_ACK kuyruktan çıkmadan diğerleri eklenirse kuyruk bir frame erken dolar
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1"));
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1/typing"));
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/online-users"));
+        waitUntilQueued(3);
+
+        // Kuyruk dolu: yeni typing düşer, yeni mesaj kuyruktaki typing'in yerini alır
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1/typing"));
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1"));
+        assertThat(dropped("droppable")).isEqualTo(2);
+        assertThat(meterRegistry.get("chat.broker.slow_consumer.disconnects").counter().count()).isZero();
+
+        // Önce kalan online-users frame'i gider; sonra droppable kalmaz ve oturum kapatılır
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1"));
+        executor.execute(task(SimpMessageType.MESSAGE, "/topic/conversations/1"));
+        assertThat(dropped("droppable")).isEqualTo(3);
+        assertThat(meterRegistry.get("chat.broker.slow_consumer.disconnects").counter().count()).isEqualTo(1);
+
+        assertThat(dropped("overflow")).isEqualTo(4);
+
+        release.countDown();
+        waitUntilQueued(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(sent).hasSize(2);
+        assertThat(SimpMessageHeaderAccessor.getMessageType(sent.get(1).getHeaders()))
+                .isEqualTo(SimpMessageType.DISCONNECT_ACK);
+    }
+
+    private MessageHandlingRunnable task(SimpMessageType type, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return handler;
+            }
+
+            @Override
+            public void run() {
+                handler.handleMessage(message);
+            }
+        };
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("chat.broker.outbound.dropped").tag("reason", reason).counter().count();
+    }
+
+    private void waitUntilQueued(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("chat.broker.outbound.queued").gauge().value() != expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("chat.broker.outbound.queued").gauge().value()).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
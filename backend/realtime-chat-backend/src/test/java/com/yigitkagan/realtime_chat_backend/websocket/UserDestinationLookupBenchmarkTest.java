@@ -0,0 +1,111 @@
+package com.yigitkagan.realtime_chat_backend.websocket;
+
+import com.yigitkagan.realtime_chat_backend.auth.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationResult;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 50k bağlı kullanıcıda kişiye özel bildirimin abone aramasının maliyeti; sonuçlar test raporuna yazılır.
+// Önce: kullanıcı başına /topic/notifications/{id}. Sonra: /user/{id}/queue/notifications -> oturum hedefleri.
+// Süreler makineye bağlı olduğu için sadece doğru oturuma çözüldüğü doğrulanır. Varsayılan testlerde çalışmaz: mvn test -Pbenchmark
+@Tag("benchmark")
+class UserDestinationLookupBenchmarkTest {
+
+    private static final int USERS = 50_000;
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    @Test
+    void userDestinationsResolveToTheRecipientsSession(TestReporter reporter) {
+        ShardedSubscriptionRegistry topicRegistry = new ShardedSubscriptionRegistry(8, new SimpleMeterRegistry());
+        ShardedSubscriptionRegistry queueRegistry = new ShardedSubscriptionRegistry(8, new SimpleMeterRegistry());
+        DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+        DefaultUserDestinationResolver resolver = new DefaultUserDestinationResolver(userRegistry);
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            String sessionId = "s" + userId;
+            topicRegistry.registerSubscription(subscribe(sessionId, "/topic/notifications/" + userId));
+
+            AuthenticatedUser user = new AuthenticatedUser(userId, userId + "@example.com");
+            userRegistry.onApplicationEvent(new SessionConnectedEvent(this, connected(sessionId, user), user));
+            // SUBSCRIBE /user/queue/notifications, UserDestinationMessageHandler'ın yaptığı gibi oturum hedefine çevrilir
+            queueRegistry.registerSubscription(subscribe(sessionId, "/queue/notifications-user" + sessionId));
+        }
+
+        double topicNanos = nanosPerLookup(userId -> {
+            MultiValueMap<String, String> subscribers =
+                    topicRegistry.findSubscriptions(message("/topic/notifications/" + userId));
+            return subscribers.size();
+        });
+        double userNanos = nanosPerLookup(userId -> {
+            UserDestinationResult result = resolver.resolveDestination(message("/user/" + userId + "/queue/notifications"));
+            int sessions = 0;
+            for (String target : result.getTargetDestinations()) {
+                sessions += queueRegistry.findSubscriptions(message(target)).size();
+            }
+            return sessions;
+        });
+        reporter.publishEntry("users=" + USERS, String.format("topic-per-user=%.0f ns/op user-destination=%.0f ns/op",
+                topicNanos, userNanos));
+
+        long recipient = 31_337;
+        UserDestinationResult result = resolver.resolveDestination(message("/user/" + recipient + "/queue/notifications"));
+        assertThat(result.getTargetDestinations()).containsExactly("/queue/notifications-users" + recipient);
+        assertThat(queueRegistry.findSubscriptions(message(result.getTargetDestinations().iterator().next())))
+                .containsOnlyKeys("s" + recipient);
+    }
+
+    private interface Lookup {
+        int sessionsFor(long userId);
+    }
+
+    private static double nanosPerLookup(Lookup lookup) {
+        long sink = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < WARMUP; i++) {
+            sink += lookup.sessionsFor(random.nextLong(1, USERS + 1));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += lookup.sessionsFor(random.nextLong(1, USERS + 1));
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isEqualTo(WARMUP + ITERATIONS);
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> connected(String sessionId, AuthenticatedUser user) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
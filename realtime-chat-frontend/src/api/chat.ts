@@ -30,6 +30,30 @@ export interface ChatMessageResponse {
   status?: MessageStatus;
   reactions?: { emoji: string; count: number; isMe: boolean }[];
   deletedForEveryone?: boolean;
+  seq?: number;
+}
+
+export interface ReactionDelta {
+  type: "REACTION";
+  messageId: number;
+  userId: number;
+  emoji: string;
+  delta: number;
+}
+
+// Yayınlanmış ama sunucuda kaydedilemeyen mesaj: listeden kaldırılır
+export interface MessageFailedEvent {
+  type: "FAILED";
+  conversationId: number;
+  messageId: number;
+  seq: number;
+}
+
+export interface ReceiptEvent {
+  type: "SEEN" | "DELIVERED";
+  conversationId: number;
+  userId: number;
+  seq: number;
 }
 
 export const listUsers = async (): Promise<UserListItem[]> => {
@@ -37,11 +61,56 @@ export const listUsers = async (): Promise<UserListItem[]> => {
   return res.data;
 };
 
+export interface UserDirectoryPage {
+  items: UserListItem[];
+  nextCursor: string | null;
+}
+
+// Sayfalı rehber araması (ad ya da görünür telefon numarası öneki)
+export const searchUsers = async (q: string, cursor?: string | null, limit = 50): Promise<UserDirectoryPage> => {
+  const res = await api.get<UserDirectoryPage>("/api/users/directory", {
+    params: { q, limit, ...(cursor ? { cursor } : {}) },
+  });
+  return res.data;
+};
+
 export const listConversations = async (): Promise<ConversationResponse[]> => {
   const res = await api.get<ConversationResponse[]>("/api/conversations");
   return res.data;
 };
 
+export interface ConversationSummary {
+  conversationId: number;
+  otherUserId: number;
+  otherUserName: string;
+  otherUserPictureUrl?: string;
+  lastMessageId?: number;
+  lastMessageSeq?: number;
+  lastMessageSnippet?: string;
+  lastSenderId?: number;
+  lastActivityAt: string;
+  unreadCount: number;
+}
+
+export interface ConversationSummaryPage {
+  items: ConversationSummary[];
+  hasMore: boolean;
+  nextBeforeActivity?: string;
+  nextBeforeId?: number;
+}
+
+// Sohbet listesi: son aktiviteye göre sıralı, sayfa sayfa (keyset)
+export const listConversationSummaries = async (
+  beforeActivity?: string,
+  beforeId?: number,
+  limit: number = 50
+): Promise<ConversationSummaryPage> => {
+  const res = await api.get<ConversationSummaryPage>("/api/conversations/summaries", {
+    params: { beforeActivity, beforeId, limit },
+  });
+  return res.data;
+};
+
 export const createOrGetConversation = async (
   otherUserId: number
 ): Promise<ConversationResponse> => {
@@ -116,6 +185,22 @@ export const getAnnouncements = async () => {
   return res.data;
 };
 
+// Duyuru akışı (en yeni önce, sayfalı); tepkiler emoji -> sayı olarak gelir
+export const getAnnouncementFeed = async (
+  cursor?: { beforeCreatedAt: string; beforeId: number } | null,
+  limit = 20
+) => {
+  const res = await api.get("/api/announcements/feed", {
+    params: { limit, ...(cursor ?? {}) },
+  });
+  return res.data as {
+    items: any[];
+    hasMore: boolean;
+    nextBeforeCreatedAt: string | null;
+    nextBeforeId: number | null;
+  };
+};
+
 // Yeni duyuru paylaş (Sadece Admin)
 export const postAnnouncement = async (content: string, mediaUrl: string | null, userId: number) => {
   const res = await api.post(`/api/announcements`, 
@@ -180,4 +265,78 @@ export const deleteMessageForMe = async (messageId: number, userId: number) => {
   await api.delete(`/api/conversations/${messageId}/me`, {
     params: { userId }
   });
-};
\ No newline at end of file
+};
+export interface MessageSearchHit {
+  messageId: number;
+  conversationId: number;
+  seq?: number;
+  senderId: number;
+  content: string;
+  createdAt: string;
+  rank: number;
+}
+
+// Mesaj arama (sonuçlar alaka sırasına göre)
+export const searchMessages = async (q: string, viewerId: number, conversationId?: number, limit = 20): Promise<MessageSearchHit[]> => {
+  const res = await api.get<MessageSearchHit[]>("/api/messages/search", {
+    params: { q, viewerId, conversationId, limit }
+  });
+  return res.data;
+};
+
+// Yeniden bağlanma senkronu: satır satır gelen olaylar
+export type SyncEvent =
+  | { type: "MESSAGE"; conversationId: number; position: number; message: ChatMessageResponse }
+  | { type: "CURSOR"; conversationId: number; userId: number; seenSeq: number; deliveredSeq: number }
+  | { type: "END"; conversationId: number; position: number }
+  | { type: "TRUNCATED"; conversationId: number; position: number };
+
+// positions: sohbet id -> bilinen son değişiklik numarası; yanıt akış olarak okunur, tamamı beklenmez
+export const syncConversations = async (
+  viewerId: number,
+  positions: Record<number, number>,
+  onEvent: (event: SyncEvent) => void,
+  limitPerConversation?: number
+): Promise<void> => {
+  const token = localStorage.getItem("token");
+  const res = await fetch(`${import.meta.env.VITE_API_URL ?? ""}/api/messages/sync`, {
+    method: "POST",
+    headers: {
+      "Content-Type": "application/json",
+      ...(token ? { Authorization: `Bearer ${token}` } : {})
+    },
+    body: JSON.stringify({ viewerId, positions, limitPerConversation })
+  });
+  if (!res.ok || !res.body) {
+    throw new Error(`Sync failed: ${res.status}`);
+  }
+  const reader = res.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = "";
+  for (;;) {
+    const { done, value } = await reader.read();
+    if (done) break;
+    buffer += decoder.decode(value, { stream: true });
+    let newline;
+    while ((newline = buffer.indexOf("\n")) >= 0) {
+      const line = buffer.slice(0, newline).trim();
+      buffer = buffer.slice(newline + 1);
+      if (line) onEvent(JSON.parse(line) as SyncEvent);
+    }
+  }
+  if (buffer.trim()) onEvent(JSON.parse(buffer) as SyncEvent);
+};
+
+export interface LastSeenItem {
+  userId: number;
+  online: boolean;
+  lastSeenAt?: string;
+}
+
+// Birden çok kullanıcının son görülmesi tek istekte
+export const getLastSeen = async (userIds: number[]): Promise<LastSeenItem[]> => {
+  const res = await api.get<LastSeenItem[]>("/api/presence/last-seen", {
+    params: { userIds: userIds.join(",") }
+  });
+  return res.data;
+};
@@ -2,13 +2,13 @@ import React, { useCallback, useEffect, useRef, useState } from "react";
 import {
   createOrGetConversation,
   getMessages,
-  listConversations,
+  listConversationSummaries,
   listUsers,
   markConversationSeen,
   getUserById,
   uploadAudio,
   uploadMedia,
-  getAnnouncements,
+  getAnnouncementFeed,
   postAnnouncement,
   reactToAnnouncement,
   deleteAnnouncement,
@@ -20,7 +20,11 @@ import {
 import type {
   ChatMessageResponse,
   ConversationResponse,
+  ConversationSummary,
   UserListItem,
+  ReceiptEvent,
+  ReactionDelta,
+  MessageFailedEvent,
 } from "../api/chat";
 import type { MeResponse } from "../api/auth";
 import { useSocket } from "../context/SocketContext"; //
@@ -263,6 +267,15 @@ const formatDateLabel = (dateString: string) => {
   return date.toLocaleDateString("tr-TR", { day: "2-digit", month: "2-digit", year: "numeric" });
 };
 
+// Sohbet listesi önizlemesi: medya mesajları için tür etiketi
+const previewText = (content: string) => {
+  if (content.startsWith("AUDIO::")) return "🎤 Sesli Mesaj";
+  if (content.startsWith("IMAGE::")) return "📷 Fotoğraf";
+  if (content.startsWith("VIDEO::")) return "🎥 Video";
+  if (content.startsWith("DOCUMENT::")) return "📄 Belge";
+  return content;
+};
+
 const formatTime = (iso: string | undefined) =>
   iso ? new Date(iso).toLocaleTimeString([], { hour: "2-digit", minute: "2-digit" }) : "";
 
@@ -330,7 +343,8 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
 
   // ADMIN & DUYURU
   const [activeTab, setActiveTab] = useState<"CHATS" | "CHANNELS">("CHATS"); // Sekme kontrolü
-  const [announcements, setAnnouncements] = useState<any[]>([]); // Duyuru listesi
+  const [announcements, setAnnouncements] = useState<any[]>([]); // Duyuru listesi (eskiden yeniye)
+  const [announcementCursor, setAnnouncementCursor] = useState<{ beforeCreatedAt: string; beforeId: number } | null>(null); // Daha eski sayfa imleci
   const [channelMessage, setChannelMessage] = useState(""); // Admin duyuru yazısı
 
   //  DOSYA ÖNİZLEME STATE'LERİ
@@ -353,18 +367,25 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
   const [editingMessage, setEditingMessage] = useState<ChatMessageResponse | null>(null);
 
   // SOCKET ENTEGRASYONU (HİBRİT YAPI)
-  const { sendMessage, sendTyping, subscribe, lastMessage, isConnected } = useSocket();
+  const { sendMessage, sendTyping, subscribe, lastMessage, lastReceipt, isConnected } = useSocket();
 
-  const handleTyping = useCallback((senderId: number) => {
+  const handleTyping = useCallback((senderId: number, typing: boolean) => {
     if (senderId === me.id) return;
     if (typingTimeoutRef.current) clearTimeout(typingTimeoutRef.current);
 
+    // Sunucu sadece geçişleri gönderir; "durdu" gelince hemen kapat
+    if (!typing) {
+      setTypingUserId(null);
+      typingTimeoutRef.current = null;
+      return;
+    }
     setTypingUserId(senderId);
 
+    // "Durdu" kaybolursa diye güvenlik zamanlayıcısı (sunucu ~1.5 sn'de bir yeniler)
     typingTimeoutRef.current = setTimeout(() => {
       setTypingUserId(null);
       typingTimeoutRef.current = null;
-    }, 2000);
+    }, 4000);
   }, [me.id]);
 
   // 3. AKTİF SOHBETİ DİNLEME (Canlı Sohbet - /topic)
@@ -372,7 +393,39 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
     if (!selectedConversation || !isConnected) return;
 
     // A) Sohbet Mesajlarını Dinle (/topic/conversations/{id})
-    const unsubMessages = subscribe(`/topic/conversations/${selectedConversation.id}`, (msg: ChatMessageResponse) => {
+    const unsubMessages = subscribe(`/topic/conversations/${selectedConversation.id}`, (payload: ChatMessageResponse | ReceiptEvent | ReactionDelta | MessageFailedEvent) => {
+      // Tepki sayacı: mesajı yeniden çekmeden yerinde güncelle
+      if ("type" in payload && payload.type === "REACTION") {
+        const applyDelta = (list: ChatMessageResponse[]) => list.map((m) => {
+          if (!m || m.id !== payload.messageId) return m;
+          const reactions = [...(m.reactions || [])];
+          const i = reactions.findIndex((r) => r.emoji === payload.emoji);
+          const current = i >= 0 ? reactions[i] : { emoji: payload.emoji, count: 0, isMe: false };
+          const next = {
+            ...current,
+            count: current.count + payload.delta,
+            isMe: payload.userId === me.id ? payload.delta > 0 : current.isMe,
+          };
+          if (i >= 0) reactions.splice(i, 1);
+          if (next.count > 0) reactions.splice(i >= 0 ? i : reactions.length, 0, next);
+          return { ...m, reactions };
+        });
+        setMessages((prev) => applyDelta(prev));
+        setMessageCache((prev) => ({ ...prev, [selectedConversation.id]: applyDelta(prev[selectedConversation.id] || []) }));
+        return;
+      }
+      // Kaydedilemeyen mesaj: ekrandan ve cache'ten kaldır
+      if ("type" in payload && payload.type === "FAILED") {
+        const dropFailed = (list: ChatMessageResponse[]) => list.filter((m) => !m || m.id !== payload.messageId);
+        setMessages((prev) => dropFailed(prev));
+        setMessageCache((prev) => ({ ...prev, [selectedConversation.id]: dropFailed(prev[selectedConversation.id] || []) }));
+        return;
+      }
+      // Diğer olaylar (iletildi/okundu artık /user/queue/receipts'ten gelir)
+      if ("type" in payload) {
+        return;
+      }
+      const msg = payload;
       // Ekrana bas
       setMessages((prev) => {
         if (prev.some(m => m.id === msg.id)) return prev;
@@ -391,7 +444,7 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
 
     // B) Yazıyor... Eventini Dinle
     const unsubTyping = subscribe(`/topic/conversations/${selectedConversation.id}/typing`, (data: any) => {
-      handleTyping(data.senderId);
+      handleTyping(data.senderId, data.typing !== false);
     });
 
     return () => {
@@ -400,7 +453,20 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
     };
   }, [selectedConversation, isConnected, subscribe, handleTyping, me.id]);
 
-  // 4. BİLDİRİM YÖNETİMİ (Arka Plan - /topic/notifications)
+  // İletildi/okundu bilgisi (/user/queue/receipts): karşı tarafın imleci ilerledi, benim o seq'e kadarki mesajlarım güncellenir
+  useEffect(() => {
+    if (!lastReceipt || lastReceipt.userId === me.id) return;
+    const applyReceipt = (list: ChatMessageResponse[]) => list.map((m) => {
+      if (!m || m.senderId !== me.id || m.seq == null || m.seq > lastReceipt.seq || m.status === "SEEN") return m;
+      return { ...m, status: lastReceipt.type };
+    });
+    if (selectedConversation && selectedConversation.id === lastReceipt.conversationId) {
+      setMessages((prev) => applyReceipt(prev));
+    }
+    setMessageCache((prev) => ({ ...prev, [lastReceipt.conversationId]: applyReceipt(prev[lastReceipt.conversationId] || []) }));
+  }, [lastReceipt, me.id]);
+
+  // 4. BİLDİRİM YÖNETİMİ (Arka Plan - /user/queue/notifications)
   useEffect(() => {
     if (!lastMessage) return;
 
@@ -420,7 +486,7 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
           return {
             ...user,
             unreadCount: (user.unreadCount || 0) + 1,
-            lastMessageText: lastMessage.content.startsWith("AUDIO::") ? "🎤 Sesli Mesaj" : lastMessage.content,
+            lastMessageText: previewText(lastMessage.content),
             lastMessageTime: formatTime(lastMessage.createdAt),
             lastMessageDate: new Date(lastMessage.createdAt).getTime()
           };
@@ -488,25 +554,43 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
   // --- Initial Data Load ---
   useEffect(() => {
     const load = async () => {
-      const [userList, convList] = await Promise.all([listUsers(), listConversations()]);
-
-      const mappedUsers: ChatUser[] = userList.map(u => ({ ...u, unreadCount: 0 }));
+      // Sohbet önizlemeleri özet tablosundan gelir; her sohbet için geçmiş çekilmez
+      const loadSummaries = async () => {
+        const all: ConversationSummary[] = [];
+        let page = await listConversationSummaries();
+        all.push(...page.items);
+        while (page.hasMore) {
+          page = await listConversationSummaries(page.nextBeforeActivity, page.nextBeforeId);
+          all.push(...page.items);
+        }
+        return all;
+      };
+      const [userList, summaries] = await Promise.all([listUsers(), loadSummaries()]);
+
+      const byOtherUser = new Map(summaries.map((s) => [s.otherUserId, s]));
+      const mappedUsers: ChatUser[] = userList.map((u) => {
+        const s = byOtherUser.get(u.id);
+        if (!s) return { ...u, unreadCount: 0 };
+        return {
+          ...u,
+          unreadCount: s.unreadCount,
+          lastMessageText: s.lastMessageSnippet != null ? previewText(s.lastMessageSnippet) : undefined,
+          lastMessageTime: s.lastMessageId != null ? formatTime(s.lastActivityAt) : undefined,
+          lastMessageDate: new Date(s.lastActivityAt).getTime(),
+        };
+      });
       setUsers(mappedUsers);
 
-      setConversations(convList);
-      const cache: Record<number, ChatMessageResponse[]> = {};
-      await Promise.all(
-        convList.map(async (c) => {
-          try {
-            const history = await getMessages(c.id, me.id);
-            cache[c.id] = [...history].reverse();
-          } catch (e) { console.error(e); }
-        })
-      );
-      setMessageCache(cache);
+      setConversations(summaries.map((s) => ({
+        id: s.conversationId,
+        user1Id: me.id,
+        user1Name: me.displayName,
+        user2Id: s.otherUserId,
+        user2Name: s.otherUserName,
+      })));
     };
     load();
-  }, [me.id]);
+  }, [me.id, me.displayName]);
 
   // --- Helper Logic ---
   const openConversationWith = async (otherUserId: number) => {
@@ -526,6 +610,7 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
     setMessages(sortedHistory);
     setMessageCache((prev) => ({ ...prev, [conv.id]: sortedHistory }));
     markConversationSeen(conv.id, me.id).catch(() => { });
+    setUsers((prev) => prev.map((u) => (u.id === otherUserId ? { ...u, unreadCount: 0 } : u)));
   };
 
   // --- 1. SAĞ TIK (Context Menu) ---
@@ -846,7 +931,7 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
         messagesEndRef.current?.scrollIntoView({ behavior: "smooth" });
       }, 100);
     }
-  }, [announcements, activeTab, selectedConversation]);
+  }, [announcements[announcements.length - 1]?.id, activeTab, selectedConversation]); // Eski sayfa/tepki gelince kaydırma yok
 
   useEffect(() => {
     if (textareaRef.current) {
@@ -864,17 +949,45 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
     } catch (e) { console.error(e); }
   };
 
+  // Akış en yeni önce gelir; ekranda eskiden yeniye gösterildiği için sayfa ters çevrilir
+  const applyAnnouncementPage = (page: Awaited<ReturnType<typeof getAnnouncementFeed>>, older: boolean) => {
+    const items = [...page.items].reverse();
+    setAnnouncements((prev) => (older ? [...items, ...prev] : items));
+    setAnnouncementCursor(
+      page.hasMore && page.nextBeforeCreatedAt && page.nextBeforeId
+        ? { beforeCreatedAt: page.nextBeforeCreatedAt, beforeId: page.nextBeforeId }
+        : null
+    );
+  };
+
   const loadAnnouncements = async () => {
     try {
-      const data = await getAnnouncements();
-      setAnnouncements(data);
+      applyAnnouncementPage(await getAnnouncementFeed(), false);
     } catch (error) { console.error("Duyurular yüklenemedi", error); }
   };
 
+  const loadOlderAnnouncements = async () => {
+    if (!announcementCursor) return;
+    try {
+      applyAnnouncementPage(await getAnnouncementFeed(announcementCursor), true);
+    } catch (error) { console.error("Duyurular yüklenemedi", error); }
+  };
+
+  // Tepki aç/kapa; sunucu da aynı şekilde değiştirdiği için akış yeniden çekilmez
   const handleReaction = async (announcementId: number, emoji: string) => {
     try {
       await reactToAnnouncement(announcementId, me.id, emoji);
-      loadAnnouncements();
+      setAnnouncements((prev) => prev.map((ann) => {
+        if (ann.id !== announcementId) return ann;
+        const mine: string[] = ann.myReactions ?? [];
+        const reacted = mine.includes(emoji);
+        const count = (ann.reactionCounts?.[emoji] ?? 0) + (reacted ? -1 : 1);
+        return {
+          ...ann,
+          myReactions: reacted ? mine.filter((e) => e !== emoji) : [...mine, emoji],
+          reactionCounts: { ...ann.reactionCounts, [emoji]: Math.max(0, count) },
+        };
+      }));
     } catch (error) { console.error(error); }
   };
 
@@ -960,11 +1073,7 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
 
       let lastMessageText = "Henüz mesaj yok";
       if (lastMessage && lastMessage.content) {
-        if (lastMessage.content.startsWith("AUDIO::")) lastMessageText = "🎤 Sesli Mesaj";
-        else if (lastMessage.content.startsWith("IMAGE::")) lastMessageText = "📷 Fotoğraf";
-        else if (lastMessage.content.startsWith("VIDEO::")) lastMessageText = "🎥 Video";
-        else if (lastMessage.content.startsWith("DOCUMENT::")) lastMessageText = "📄 Belge";
-        else lastMessageText = lastMessage.content;
+        lastMessageText = previewText(lastMessage.content);
       }
       const displayUnreadCount = user.unreadCount || convMessages.filter((m) => m && m.senderId && m.senderId !== me.id && m.status !== "SEEN").length;
       const displayLastMessageText = user.lastMessageText || lastMessageText;
@@ -1158,6 +1267,13 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
 
               {/* Duyuru Akışı */}
               <div style={{ flex: 1, overflowY: "auto", padding: "20px", background: "linear-gradient(180deg, #F5F3FF, #EAE6FF)" }}>
+                {announcementCursor && (
+                  <div style={{ textAlign: "center", marginBottom: "20px" }}>
+                    <button onClick={loadOlderAnnouncements} style={{ background: "white", border: "1px solid #E0DCFF", borderRadius: "20px", padding: "6px 16px", cursor: "pointer", color: "#6F79FF", fontSize: "13px", fontWeight: "600" }}>
+                      Daha eski duyurular
+                    </button>
+                  </div>
+                )}
                 {announcements.map((ann) => (
                   <div key={ann.id} style={{ maxWidth: "600px", margin: "0 auto 25px auto", backgroundColor: "white", borderRadius: "16px", boxShadow: "0 4px 20px rgba(0,0,0,0.05)", overflow: "hidden", border: "1px solid #fff", position: "relative" }}>
                     {me.role === "ADMIN" && (
@@ -1182,8 +1298,8 @@ const ChatLayout: React.FC<ChatLayoutProps> = ({ me, onLogout }) => {
                       {/* Tepkiler */}
                       <div style={{ display: "flex", gap: "8px", flexWrap: "wrap" }}>
                         {["👍", "❤️", "😂", "😮", "😢", "👏"].map(emoji => {
-                          const count = ann.reactions?.filter((r: any) => r.emoji === emoji).length || 0;
-                          const isReactedByMe = ann.reactions?.some((r: any) => r.emoji === emoji && Number(r.userId) === me.id);
+                          const count = ann.reactionCounts?.[emoji] || 0;
+                          const isReactedByMe = ann.myReactions?.includes(emoji);
                           return (
                             <button key={emoji} onClick={() => handleReaction(ann.id, emoji)} style={{ background: isReactedByMe ? "#E7F3FF" : "#F8F9FA", border: isReactedByMe ? "1px solid #6F79FF" : "1px solid #EEE", borderRadius: "20px", padding: "6px 12px", cursor: "pointer", fontSize: "14px", display: "flex", alignItems: "center", gap: "6px", transition: "all 0.2s" }}>
                               {emoji} {count > 0 && <span style={{ fontWeight: "bold", color: isReactedByMe ? "#6F79FF" : "#999", fontSize: "12px" }}>{count}</span>}
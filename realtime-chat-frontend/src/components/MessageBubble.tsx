@@ -147,7 +147,7 @@ const reactions = Array.isArray((message as any).reactions) ? (message as any).r
            {new Date(message.createdAt).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}
            
            {/* Tikler */}
-           {isMine && <span>{message.status === "SEEN" ? "✓✓" : "✓"}</span>}
+           {isMine && <span>{message.status === "SEEN" || message.status === "DELIVERED" ? "✓✓" : "✓"}</span>}
         </div>
 
         {/* REAKSİYONLAR */}
@@ -2,12 +2,13 @@ import React, { createContext, useContext, useEffect, useRef, useState } from "r
 import { Client} from "@stomp/stompjs";
 import type { IMessage } from "@stomp/stompjs";
 import type { StompSubscription } from "@stomp/stompjs";
-import type{ ChatMessageResponse } from "../api/chat";
+import type{ ChatMessageResponse, ReceiptEvent } from "../api/chat";
 
 interface SocketContextType {
   client: Client | null;
   isConnected: boolean;
   lastMessage: ChatMessageResponse | null;
+  lastReceipt: ReceiptEvent | null;
   sendMessage: (conversationId: number, content: string, senderId: number) => void;
   sendTyping: (conversationId: number, senderId: number) => void;
   subscribe: (destination: string, callback: (msg: any) => void) => () => void;
@@ -19,6 +20,7 @@ export const SocketProvider: React.FC<{ children: React.ReactNode; userId: numbe
   const [client, setClient] = useState<Client | null>(null);
   const [isConnected, setIsConnected] = useState(false);
   const [lastMessage, setLastMessage] = useState<ChatMessageResponse | null>(null);
+  const [lastReceipt, setLastReceipt] = useState<ReceiptEvent | null>(null);
   
   const clientRef = useRef<Client | null>(null);
 
@@ -30,14 +32,35 @@ export const SocketProvider: React.FC<{ children: React.ReactNode; userId: numbe
     const newClient = new Client({
       brokerURL: import.meta.env.VITE_WS_URL,
       reconnectDelay: 5000,
+      // Sunucu kimliği CONNECT'te token'dan çıkarır; her yeniden bağlanmada güncel token gönderilir
+      beforeConnect: () => {
+        const token = localStorage.getItem("token");
+        newClient.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {};
+      },
       onConnect: () => {
         setIsConnected(true);
         console.log("🟢 Global Socket Bağlandı. User ID:", userId);
 
-        newClient.subscribe(`/topic/notifications/${userId}`, (msg: IMessage) => {
+        newClient.subscribe("/user/queue/notifications", (msg: IMessage) => {
           try {
             const body = JSON.parse(msg.body) as ChatMessageResponse;
-            setLastMessage(body); 
+            setLastMessage(body);
+            // İletildi onayı (sunucu bunları toplu olarak işler)
+            if (body && body.seq != null && body.senderId !== userId) {
+              newClient.publish({
+                destination: "/app/chat.ack",
+                body: JSON.stringify({ conversationId: body.conversationId, seq: body.seq }),
+              });
+            }
+          } catch (e) {
+            console.error("Bildirim parse hatası:", e);
+          }
+        });
+
+        // Gönderdiğim mesajların iletildi/okundu bilgisi (hangi sohbet açık olursa olsun)
+        newClient.subscribe("/user/queue/receipts", (msg: IMessage) => {
+          try {
+            setLastReceipt(JSON.parse(msg.body) as ReceiptEvent);
           } catch (e) {
             console.error("Bildirim parse hatası:", e);
           }
@@ -92,7 +115,7 @@ export const SocketProvider: React.FC<{ children: React.ReactNode; userId: numbe
   };
 
   return (
-    <SocketContext.Provider value={{ client, isConnected, lastMessage, sendMessage, sendTyping, subscribe }}>
+    <SocketContext.Provider value={{ client, isConnected, lastMessage, lastReceipt, sendMessage, sendTyping, subscribe }}>
       {children}
     </SocketContext.Provider>
   );